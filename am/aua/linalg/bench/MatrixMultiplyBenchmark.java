@@ -0,0 +1,115 @@
+package am.aua.linalg.bench;
+
+import java.util.Random;
+import am.aua.linalg.core.*;
+
+/**
+ * Compares Matrix.multiply against the original i-j-k triple loop,
+ * both on a single thread and with the default parallelism of the multiplication engine.
+ * Run it with the matrix sizes to measure as arguments, for example: java am.aua.linalg.bench.MatrixMultiplyBenchmark 256 512 1000
+ */
+public class MatrixMultiplyBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+
+    public static void main(String[] args) {
+        int[] sizes = {128, 256, 512, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Random random = new Random(42);
+        int threads = MatrixMultiplication.getParallelism();
+        System.out.printf("%8s %12s %14s %16s %10s %12s%n", "size", "naive (ms)", "blocked (ms)",
+                "parallel x" + threads + " (ms)", "speedup", "max error");
+        Matrix[] left = new Matrix[sizes.length];
+        Matrix[] right = new Matrix[sizes.length];
+        for (int s = 0; s < sizes.length; s++) {
+            left[s] = randomMatrix(sizes[s], sizes[s], random);
+            right[s] = randomMatrix(sizes[s], sizes[s], random);
+        }
+
+        // All sizes are timed on one thread first and then in parallel, so the parallelism changes only once
+        // and the pool is not recreated inside the measurements
+        double[] naiveMillis = new double[sizes.length];
+        double[] blockedMillis = new double[sizes.length];
+        MatrixMultiplication.setParallelism(1);
+        for (int s = 0; s < sizes.length; s++) {
+            Matrix A = left[s], B = right[s];
+            naiveMillis[s] = time(() -> naiveMultiply(A, B));
+            blockedMillis[s] = time(() -> Matrix.multiply(A, B));
+        }
+
+        MatrixMultiplication.setParallelism(threads);
+        for (int s = 0; s < sizes.length; s++) {
+            Matrix A = left[s], B = right[s];
+            double parallelMillis = time(() -> Matrix.multiply(A, B));
+            double error = maxDifference(naiveMultiply(A, B), Matrix.multiply(A, B));
+
+            System.out.printf("%8d %12.1f %14.1f %16.1f %9.2fx %12.2e%n", sizes[s], naiveMillis[s], blockedMillis[s],
+                    parallelMillis, naiveMillis[s] / parallelMillis, error);
+        }
+    }
+
+
+    // The multiplication loop Matrix.multiply used before the blocked kernel
+    private static Matrix naiveMultiply(Matrix A, Matrix B) {
+        int numRowsA = A.getNumOfRows();
+        int numColsA = A.getNumOfColumns();
+        int numColsB = B.getNumOfColumns();
+        double[][] result = new double[numRowsA][numColsB];
+
+        for (int i = 0; i < numRowsA; i++) {
+            for (int j = 0; j < numColsB; j++) {
+                double sum = 0;
+                for (int k = 0; k < numColsA; k++) {
+                    sum += A.getEntry(i, k) * B.getEntry(k, j);
+                }
+                result[i][j] = sum;
+            }
+        }
+        return new Matrix(result);
+    }
+
+
+    // Returns the best wall-clock time in milliseconds over the measured runs
+    private static double time(Runnable task) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            task.run();
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+
+    private static Matrix randomMatrix(int rows, int cols, Random random) {
+        Matrix M = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                M.setEntry(i, j, random.nextDouble() - 0.5);
+            }
+        }
+        return M;
+    }
+
+
+    private static double maxDifference(Matrix A, Matrix B) {
+        double max = 0;
+        for (int i = 0; i < A.getNumOfRows(); i++) {
+            for (int j = 0; j < A.getNumOfColumns(); j++) {
+                max = Math.max(max, Math.abs(A.getEntry(i, j) - B.getEntry(i, j)));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,95 @@
+package am.aua.linalg.core;
+
+/**
+ * Solves general (nonsymmetric) systems Ax = b with the stabilized biconjugate gradient method (BiCGSTAB).
+ * Every iteration costs two matrix-vector products and uses a fixed amount of memory, unlike GMRES,
+ * but convergence is not monotone and the method can break down on some systems.
+ * The preconditioner, if any, is applied on the right, so the recorded residuals are those of the original system.
+ */
+public class BiCGSTABSolver extends IterativeSolver {
+
+    // Constructors
+    /**
+     * Constructs a BiCGSTAB solver with the default tolerance and iteration limit.
+     */
+    public BiCGSTABSolver() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+
+    /**
+     * Constructs a BiCGSTAB solver with the given stopping criteria.
+     *
+     * @param tolerance The relative residual at which the iteration stops
+     * @param maxIterations The maximum number of iterations per solve
+     * @throws IllegalArgumentException If the tolerance is negative or the iteration limit is less than 1
+     */
+    public BiCGSTABSolver(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+    }
+
+
+
+    @Override
+    void iterate(LinearOperator A, Vector b, Vector x, double bNorm) {
+        int size = b.length();
+        Vector r = workVector(size);
+        Vector p = workVector(size);
+        Vector v = workVector(size);
+        Vector s = workVector(size);
+        Vector t = workVector(size);
+        Vector pHat = workVector(size);
+        Vector sHat = workVector(size);
+        double[] xValues = x.data(), rValues = r.data(), pValues = p.data(), vValues = v.data();
+        double[] sValues = s.data(), tValues = t.data(), pHatValues = pHat.data(), sHatValues = sHat.data();
+
+        residual(A, b, x, r);
+        if (record(norm(rValues) / bNorm)) {
+            return;
+        }
+        double[] shadow = rValues.clone();    // The fixed shadow residual r0
+        double rho = 1, alpha = 1, omega = 1;
+
+        for (int k = 0; k < getMaxIterations(); k++) {
+            double rhoNext = dot(shadow, rValues);
+            if (rhoNext == 0 || omega == 0) {
+                // Breakdown: the shadow residual became orthogonal to the residual
+                return;
+            }
+
+            // BiCG step along the preconditioned direction
+            double beta = (rhoNext / rho) * (alpha / omega);
+            rho = rhoNext;
+            for (int i = 0; i < size; i++) {
+                pValues[i] = rValues[i] + beta * (pValues[i] - omega * vValues[i]);
+            }
+            precondition(p, pHat);
+            A.apply(pHat, v);
+            alpha = rho / dot(shadow, vValues);
+            for (int i = 0; i < size; i++) {
+                sValues[i] = rValues[i] - alpha * vValues[i];
+            }
+            double sNorm = norm(sValues);
+            if (sNorm / bNorm <= getTolerance()) {
+                axpy(alpha, pHatValues, xValues);
+                record(sNorm / bNorm);
+                return;
+            }
+
+            // Stabilizing step: minimize the residual along A s
+            precondition(s, sHat);
+            A.apply(sHat, t);
+            double tt = dot(tValues, tValues);
+            omega = tt > 0 ? dot(tValues, sValues) / tt : 0;
+            for (int i = 0; i < size; i++) {
+                xValues[i] += alpha * pHatValues[i] + omega * sHatValues[i];
+                rValues[i] = sValues[i] - omega * tValues[i];
+            }
+            if (record(norm(rValues) / bNorm)) {
+                return;
+            }
+        }
+    }
+
+
+}
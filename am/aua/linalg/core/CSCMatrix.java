@@ -0,0 +1,126 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents a sparse matrix in compressed sparse column (CSC) format.
+ * The non-zero entries are stored column by column with their row indices, which makes column access
+ * and products with the transpose fast and takes O(columns + non-zeros) memory.
+ */
+public class CSCMatrix extends SparseMatrix {
+
+    // Constructors
+    /**
+     * Constructs a new CSCMatrix with the specified number of rows and columns and no non-zero entries.
+     *
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     */
+    public CSCMatrix(int numOfRows, int numOfColumns) {
+        super(numOfRows, numOfColumns, new int[numOfColumns + 1], new int[0], new double[0]);
+    }
+
+
+    /**
+     * Constructs a new CSCMatrix holding the non-zero entries of another Matrix.
+     *
+     * @param M The Matrix to convert
+     */
+    public CSCMatrix(Matrix M) {
+        this(M.getNumOfRows(), M.getNumOfColumns(), compress(M));
+    }
+
+
+    /**
+     * Constructs a CSCMatrix that takes ownership of the given compressed arrays without copying them.
+     *
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     * @param columnPointers The start of every column in rowIndices and values, followed by the number of stored entries
+     * @param rowIndices The row of every stored entry, ascending within every column
+     * @param values The value of every stored entry
+     */
+    CSCMatrix(int numOfRows, int numOfColumns, int[] columnPointers, int[] rowIndices, double[] values) {
+        super(numOfRows, numOfColumns, columnPointers, rowIndices, values);
+    }
+
+
+    private CSCMatrix(int numOfRows, int numOfColumns, SparseMatrix compressed) {
+        this(numOfRows, numOfColumns, compressed.pointerData(), compressed.indexData(), compressed.valueData());
+    }
+
+
+    // Compresses the columns of M, copying the storage of a sparse M so the new matrix does not share it
+    private static SparseMatrix compress(Matrix M) {
+        if (M instanceof SparseMatrix) {
+            return ((SparseMatrix) M).toCSC().clone();
+        }
+        int numRows = M.getNumOfRows();
+        int numCols = M.getNumOfColumns();
+        double[] dense = M.data();
+        SparseMatrixBuilder builder = new SparseMatrixBuilder(numRows, numCols);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                double value = dense[i * numCols + j];
+                if (value != 0) {
+                    builder.add(i, j, value);
+                }
+            }
+        }
+        return builder.toCSC();
+    }
+
+
+
+    // Accessors and Mutators
+    @Override
+    boolean isRowMajor() {
+        return false;
+    }
+
+
+    @Override
+    CSCMatrix withStorage(int[] pointers, int[] indices, double[] values) {
+        return new CSCMatrix(getNumOfRows(), getNumOfColumns(), pointers, indices, values);
+    }
+
+
+    @Override
+    public CSCMatrix clone() {
+        return (CSCMatrix) super.clone();
+    }
+
+
+    @Override
+    public CSRMatrix toCSR() {
+        int count = getNumOfNonZeros();
+        int[] rowPointers = new int[getNumOfRows() + 1];
+        int[] columnIndices = new int[count];
+        double[] values = new double[count];
+        regroup(pointerData(), indexData(), valueData(), getNumOfRows(), rowPointers, columnIndices, values);
+        return new CSRMatrix(getNumOfRows(), getNumOfColumns(), rowPointers, columnIndices, values);
+    }
+
+
+    @Override
+    public CSCMatrix toCSC() {
+        return this;
+    }
+
+
+
+    // Methods
+
+    // Transpose
+    /**
+     * Transposes this matrix in O(non-zeros) time.
+     * The columns of this matrix are the rows of its transpose, so the result is a CSRMatrix with the same arrays.
+     *
+     * @return The transpose of this matrix
+     */
+    @Override
+    public CSRMatrix transpose() {
+        return new CSRMatrix(getNumOfColumns(), getNumOfRows(),
+                pointerData().clone(), indexData().clone(), valueData().clone());
+    }
+
+
+}
@@ -0,0 +1,126 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents a sparse matrix in compressed sparse row (CSR) format.
+ * The non-zero entries are stored row by row with their column indices, which makes row access
+ * and matrix-vector products fast and takes O(rows + non-zeros) memory.
+ */
+public class CSRMatrix extends SparseMatrix {
+
+    // Constructors
+    /**
+     * Constructs a new CSRMatrix with the specified number of rows and columns and no non-zero entries.
+     *
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     */
+    public CSRMatrix(int numOfRows, int numOfColumns) {
+        super(numOfRows, numOfColumns, new int[numOfRows + 1], new int[0], new double[0]);
+    }
+
+
+    /**
+     * Constructs a new CSRMatrix holding the non-zero entries of another Matrix.
+     *
+     * @param M The Matrix to convert
+     */
+    public CSRMatrix(Matrix M) {
+        this(M.getNumOfRows(), M.getNumOfColumns(), compress(M));
+    }
+
+
+    /**
+     * Constructs a CSRMatrix that takes ownership of the given compressed arrays without copying them.
+     *
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     * @param rowPointers The start of every row in columnIndices and values, followed by the number of stored entries
+     * @param columnIndices The column of every stored entry, ascending within every row
+     * @param values The value of every stored entry
+     */
+    CSRMatrix(int numOfRows, int numOfColumns, int[] rowPointers, int[] columnIndices, double[] values) {
+        super(numOfRows, numOfColumns, rowPointers, columnIndices, values);
+    }
+
+
+    private CSRMatrix(int numOfRows, int numOfColumns, SparseMatrix compressed) {
+        this(numOfRows, numOfColumns, compressed.pointerData(), compressed.indexData(), compressed.valueData());
+    }
+
+
+    // Compresses the rows of M, copying the storage of a sparse M so the new matrix does not share it
+    private static SparseMatrix compress(Matrix M) {
+        if (M instanceof SparseMatrix) {
+            return ((SparseMatrix) M).toCSR().clone();
+        }
+        int numRows = M.getNumOfRows();
+        int numCols = M.getNumOfColumns();
+        double[] dense = M.data();
+        SparseMatrixBuilder builder = new SparseMatrixBuilder(numRows, numCols);
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                double value = dense[i * numCols + j];
+                if (value != 0) {
+                    builder.add(i, j, value);
+                }
+            }
+        }
+        return builder.toCSR();
+    }
+
+
+
+    // Accessors and Mutators
+    @Override
+    boolean isRowMajor() {
+        return true;
+    }
+
+
+    @Override
+    CSRMatrix withStorage(int[] pointers, int[] indices, double[] values) {
+        return new CSRMatrix(getNumOfRows(), getNumOfColumns(), pointers, indices, values);
+    }
+
+
+    @Override
+    public CSRMatrix clone() {
+        return (CSRMatrix) super.clone();
+    }
+
+
+    @Override
+    public CSRMatrix toCSR() {
+        return this;
+    }
+
+
+    @Override
+    public CSCMatrix toCSC() {
+        int count = getNumOfNonZeros();
+        int[] columnPointers = new int[getNumOfColumns() + 1];
+        int[] rowIndices = new int[count];
+        double[] values = new double[count];
+        regroup(pointerData(), indexData(), valueData(), getNumOfColumns(), columnPointers, rowIndices, values);
+        return new CSCMatrix(getNumOfRows(), getNumOfColumns(), columnPointers, rowIndices, values);
+    }
+
+
+
+    // Methods
+
+    // Transpose
+    /**
+     * Transposes this matrix in O(non-zeros) time.
+     * The rows of this matrix are the columns of its transpose, so the result is a CSCMatrix with the same arrays.
+     *
+     * @return The transpose of this matrix
+     */
+    @Override
+    public CSCMatrix transpose() {
+        return new CSCMatrix(getNumOfColumns(), getNumOfRows(),
+                pointerData().clone(), indexData().clone(), valueData().clone());
+    }
+
+
+}
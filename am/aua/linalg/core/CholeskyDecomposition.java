@@ -0,0 +1,248 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents the Cholesky decomposition of a symmetric positive-definite matrix, A = LL^T,
+ * where L is lower triangular with a positive diagonal.
+ * It costs about half as much as an LU decomposition and needs no pivoting.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry or setValue.
+ */
+public class CholeskyDecomposition implements MatrixDecomposition {
+
+    // Instance variables
+    private final SquareMatrix source;    // The decomposed matrix
+    private final int sourceModCount;     // Modification count of the source when it was decomposed
+    private final int size;               // Size of the decomposed matrix
+    private final double[] l;             // Row-major array holding L on and below the diagonal
+    private final boolean spd;            // Whether the matrix is symmetric positive-definite
+
+
+    // Constructor
+    /**
+     * Computes the Cholesky decomposition of the given square matrix.
+     * If the matrix turns out not to be symmetric positive-definite, the decomposition is marked as such
+     * and cannot be used to solve systems.
+     *
+     * @param M The square matrix to decompose
+     */
+    public CholeskyDecomposition(SquareMatrix M) {
+        this.source = M;
+        this.sourceModCount = M.getModCount();
+        this.size = M.getNumOfRows();
+        this.l = new double[size * size];
+
+        double[] a = M.data();
+        boolean isSpd = M.isSymmetric();
+
+        // Compute L row by row, every entry is a dot product of two already computed rows
+        for (int j = 0; j < size && isSpd; j++) {
+            int rowJ = j * size;
+            double d = 0;
+            for (int k = 0; k < j; k++) {
+                int rowK = k * size;
+                double s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += l[rowK + i] * l[rowJ + i];
+                }
+                s = (a[rowJ + k] - s) / l[rowK + k];
+                l[rowJ + k] = s;
+                d += s * s;
+            }
+            d = a[rowJ + j] - d;
+            if (d <= 0) {
+                isSpd = false;
+            } else {
+                l[rowJ + j] = Math.sqrt(d);
+            }
+        }
+
+        this.spd = isSpd;
+    }
+
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry or setValue since it was decomposed.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether the decomposed matrix is symmetric positive-definite, that is, whether the decomposition exists.
+     *
+     * @return true if the matrix is symmetric positive-definite, false otherwise
+     */
+    public boolean isSPD() {
+        return spd;
+    }
+
+    /**
+     * Returns the lower triangular factor L.
+     *
+     * @return The lower triangular factor
+     * @throws UnsupportedOperationException If the matrix is not symmetric positive-definite
+     */
+    public LowerTriangularMatrix getL() {
+        requireSpd();
+        double[] values = new double[size * (size + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(l, i * size, values, index, i + 1);
+            index += i + 1;
+        }
+        return new LowerTriangularMatrix(values, size);
+    }
+
+
+
+    // Methods
+
+    // Determinant
+    /**
+     * Computes the determinant of the decomposed matrix as the squared product of the diagonal of L.
+     *
+     * @return The determinant of the decomposed matrix
+     * @throws UnsupportedOperationException If the matrix is not symmetric positive-definite
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public double det() {
+        requireSpd();
+        double product = 1;
+        for (int i = 0; i < size; i++) {
+            product *= l[i * size + i];
+        }
+        return product * product;
+    }
+
+
+    // Solve
+    /**
+     * Solves the system AX = B, where A is the decomposed matrix, by forward substitution with L and back substitution with L^T.
+     *
+     * @param B The right-hand side, with as many rows as A
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as A
+     * @throws UnsupportedOperationException If A is not symmetric positive-definite
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Matrix solve(Matrix B) {
+        if (B.getNumOfRows() != size) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int numCols = B.getNumOfColumns();
+        return new Matrix(solve(B.data(), numCols), size, numCols);
+    }
+
+    /**
+     * Solves the system Ax = b, where A is the decomposed matrix.
+     *
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of A
+     * @throws UnsupportedOperationException If A is not symmetric positive-definite
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Vector solve(Vector b) {
+        double[] values = b.getElements();
+        if (values.length != size) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        return Vector.wrap(solve(values, 1));
+    }
+
+
+    // Division
+    /**
+     * Computes B times the inverse of the decomposed matrix A by solving XA = B.
+     * Since A is symmetric, this is the transpose of the solution of AY = B^T.
+     *
+     * @param B The matrix to divide, with as many columns as A
+     * @return The solution X = B * A^-1
+     * @throws IllegalArgumentException If B does not have as many columns as A
+     * @throws UnsupportedOperationException If A is not symmetric positive-definite
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Matrix divide(Matrix B) {
+        if (B.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Matrix column dimensions must agree.");
+        }
+        return solve(B.transpose()).transpose();
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse of the decomposed matrix by solving AX = I.
+     *
+     * @return The inverse of the decomposed matrix
+     * @throws UnsupportedOperationException If the matrix is not symmetric positive-definite
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public SquareMatrix inverse() {
+        double[] identity = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            identity[i * size + i] = 1.0;
+        }
+        return new SquareMatrix(solve(identity, size), size);
+    }
+
+
+    // Solves AX = B for a row-major right-hand side with numCols columns and returns X as a new row-major array
+    private double[] solve(double[] b, int numCols) {
+        requireSpd();
+        double[] x = b.clone();
+
+        // Forward substitution: solve LY = B
+        for (int k = 0; k < size; k++) {
+            int rowK = k * numCols;
+            for (int i = 0; i < k; i++) {
+                double factor = l[k * size + i];
+                if (factor != 0) {
+                    int rowI = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowK + j] -= factor * x[rowI + j];
+                    }
+                }
+            }
+            double diagonal = l[k * size + k];
+            for (int j = 0; j < numCols; j++) {
+                x[rowK + j] /= diagonal;
+            }
+        }
+
+        // Back substitution: solve L^T X = Y
+        for (int k = size - 1; k >= 0; k--) {
+            int rowK = k * numCols;
+            double diagonal = l[k * size + k];
+            for (int j = 0; j < numCols; j++) {
+                x[rowK + j] /= diagonal;
+            }
+            for (int i = 0; i < k; i++) {
+                double factor = l[k * size + i];
+                if (factor != 0) {
+                    int rowI = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowI + j] -= factor * x[rowK + j];
+                    }
+                }
+            }
+        }
+
+        return x;
+    }
+
+
+    private void requireSpd() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+        if (!spd) {
+            throw new UnsupportedOperationException("The matrix is not symmetric positive-definite.");
+        }
+    }
+
+
+}
@@ -0,0 +1,326 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents the LU decomposition of a square complex matrix with partial pivoting, PA = LU,
+ * where P is a row permutation, L is unit lower triangular and U is upper triangular.
+ * The factors are kept with their real and imaginary parts in separate arrays, so the elimination runs on doubles.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry.
+ */
+public class ComplexLUDecomposition {
+
+    // Instance variables
+    private final ComplexMatrix source;    // The decomposed matrix
+    private final int sourceModCount;      // Modification count of the source when it was decomposed
+    private final int size;           // Size of the decomposed matrix
+    private final double[] luReal;    // Real parts of L below the diagonal (unit diagonal implied) and U on and above it, row-major
+    private final double[] luImag;    // Imaginary parts of the same entries
+    private final int[] pivot;        // pivot[i] is the row of the original matrix that ended up in row i
+    private final int pivotSign;      // +1 or -1, the sign of the permutation P
+    private final boolean singular;   // Whether a pivot was zero relative to the size of the entries
+
+
+    // Constructor
+    /**
+     * Computes the LU decomposition of the given square complex matrix using Gaussian elimination with partial pivoting.
+     * At every step the row whose entry in the pivot column has the largest |re| + |im| is swapped into place.
+     *
+     * @param M The square complex matrix to decompose
+     * @throws IllegalArgumentException If the matrix is not square
+     */
+    public ComplexLUDecomposition(ComplexMatrix M) {
+        if (M.getNumOfRows() != M.getNumOfColumns()) {
+            throw new IllegalArgumentException("Only square matrices have an LU decomposition.");
+        }
+        this.source = M;
+        this.sourceModCount = M.getModCount();
+        this.size = M.getNumOfRows();
+        this.luReal = M.realData().clone();
+        this.luImag = M.imaginaryData().clone();
+        this.pivot = new int[size];
+        for (int i = 0; i < size; i++) {
+            pivot[i] = i;
+        }
+
+        // Pivots smaller than this are treated as zero
+        double max = 0;
+        for (int k = 0; k < luReal.length; k++) {
+            max = Math.max(max, Math.abs(luReal[k]) + Math.abs(luImag[k]));
+        }
+        double tolerance = size * Math.ulp(1.0) * max;
+
+        int sign = 1;
+        boolean isSingular = false;
+        double[] reciprocal = new double[2];
+        for (int k = 0; k < size; k++) {
+            // Find the pivot row
+            int p = k;
+            double largest = Math.abs(luReal[k * size + k]) + Math.abs(luImag[k * size + k]);
+            for (int i = k + 1; i < size; i++) {
+                double candidate = Math.abs(luReal[i * size + k]) + Math.abs(luImag[i * size + k]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    p = i;
+                }
+            }
+
+            // Swap rows if necessary to bring the pivot to the current row
+            if (p != k) {
+                swapRows(luReal, p, k);
+                swapRows(luImag, p, k);
+                int temp = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = temp;
+                sign = -sign;
+            }
+
+            int pivotRow = k * size;
+            if (largest <= tolerance) {
+                isSingular = true;
+                if (luReal[pivotRow + k] == 0 && luImag[pivotRow + k] == 0) {
+                    continue; // Nothing to eliminate in this column
+                }
+            }
+
+            // Eliminate the entries below the pivot, storing the multipliers in place of the zeros
+            reciprocal(luReal[pivotRow + k], luImag[pivotRow + k], reciprocal);
+            for (int i = k + 1; i < size; i++) {
+                int row = i * size;
+                double ar = luReal[row + k], ai = luImag[row + k];
+                double fr = ar * reciprocal[0] - ai * reciprocal[1];
+                double fi = ar * reciprocal[1] + ai * reciprocal[0];
+                luReal[row + k] = fr;
+                luImag[row + k] = fi;
+                if (fr != 0 || fi != 0) {
+                    for (int j = k + 1; j < size; j++) {
+                        double ur = luReal[pivotRow + j], ui = luImag[pivotRow + j];
+                        luReal[row + j] -= fr * ur - fi * ui;
+                        luImag[row + j] -= fr * ui + fi * ur;
+                    }
+                }
+            }
+        }
+
+        this.pivotSign = sign;
+        this.singular = isSingular;
+    }
+
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry since it was decomposed.
+     * A stale decomposition no longer describes its matrix and refuses to be used.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether the decomposed matrix is singular.
+     *
+     * @return true if a pivot was zero relative to the size of the entries, false otherwise
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the row permutation: entry i is the row of the original matrix that was moved to row i.
+     *
+     * @return A copy of the pivot indices
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+
+
+    // Methods
+
+    // Determinant
+    /**
+     * Computes the determinant of the decomposed matrix as the signed product of the diagonal of U.
+     *
+     * @return The determinant, or 0 if the matrix is singular
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public ComplexNumber det() {
+        requireCurrent();
+        if (singular) {
+            return new ComplexNumber(0, 0);
+        }
+        double real = pivotSign, imaginary = 0;
+        for (int i = 0; i < size; i++) {
+            double dr = luReal[i * size + i], di = luImag[i * size + i];
+            double temp = real * dr - imaginary * di;
+            imaginary = real * di + imaginary * dr;
+            real = temp;
+        }
+        return new ComplexNumber(real, imaginary);
+    }
+
+
+    // Solve
+    /**
+     * Solves the system AX = B, where A is the decomposed matrix, by forward and back substitution.
+     *
+     * @param B The right-hand side, with as many rows as A
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as A
+     * @throws UnsupportedOperationException If A is singular
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public ComplexMatrix solve(ComplexMatrix B) {
+        if (B.getNumOfRows() != size) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int numCols = B.getNumOfColumns();
+        double[] xReal = new double[size * numCols];
+        double[] xImag = new double[size * numCols];
+        solve(B.realData(), B.imaginaryData(), xReal, xImag, numCols);
+        return new ComplexMatrix(xReal, xImag, size, numCols);
+    }
+
+
+    /**
+     * Solves the system Ax = b, where A is the decomposed matrix, by forward and back substitution.
+     *
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of A
+     * @throws UnsupportedOperationException If A is singular
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public ComplexVector solve(ComplexVector b) {
+        if (b.getLength() != size) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        double[] values = b.data();
+        double[] bReal = new double[size];
+        double[] bImag = new double[size];
+        for (int i = 0; i < size; i++) {
+            bReal[i] = values[2 * i];
+            bImag[i] = values[2 * i + 1];
+        }
+        double[] xReal = new double[size];
+        double[] xImag = new double[size];
+        solve(bReal, bImag, xReal, xImag, 1);
+        return new ComplexVector(xReal, xImag);
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse of the decomposed matrix by solving AX = I.
+     *
+     * @return The inverse of the decomposed matrix
+     * @throws UnsupportedOperationException If the matrix is singular and does not have an inverse
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public ComplexMatrix inverse() {
+        double[] identity = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            identity[i * size + i] = 1.0;
+        }
+        double[] xReal = new double[size * size];
+        double[] xImag = new double[size * size];
+        solve(identity, new double[size * size], xReal, xImag, size);
+        return new ComplexMatrix(xReal, xImag, size, size);
+    }
+
+
+    // Solves AX = B for a split row-major right-hand side with numCols columns, writing X into xReal and xImag
+    private void solve(double[] bReal, double[] bImag, double[] xReal, double[] xImag, int numCols) {
+        requireNonsingular();
+
+        // Apply the row permutation: X = PB
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(bReal, pivot[i] * numCols, xReal, i * numCols, numCols);
+            System.arraycopy(bImag, pivot[i] * numCols, xImag, i * numCols, numCols);
+        }
+
+        // Forward substitution: solve LY = PB
+        for (int k = 0; k < size; k++) {
+            int rowK = k * numCols;
+            for (int i = k + 1; i < size; i++) {
+                double fr = luReal[i * size + k], fi = luImag[i * size + k];
+                if (fr != 0 || fi != 0) {
+                    subtractMultiple(xReal, xImag, i * numCols, rowK, fr, fi, numCols);
+                }
+            }
+        }
+
+        // Back substitution: solve UX = Y
+        double[] reciprocal = new double[2];
+        for (int k = size - 1; k >= 0; k--) {
+            int rowK = k * numCols;
+            reciprocal(luReal[k * size + k], luImag[k * size + k], reciprocal);
+            for (int j = 0; j < numCols; j++) {
+                double xr = xReal[rowK + j], xi = xImag[rowK + j];
+                xReal[rowK + j] = xr * reciprocal[0] - xi * reciprocal[1];
+                xImag[rowK + j] = xr * reciprocal[1] + xi * reciprocal[0];
+            }
+            for (int i = 0; i < k; i++) {
+                double fr = luReal[i * size + k], fi = luImag[i * size + k];
+                if (fr != 0 || fi != 0) {
+                    subtractMultiple(xReal, xImag, i * numCols, rowK, fr, fi, numCols);
+                }
+            }
+        }
+    }
+
+
+    // Subtracts (fr + i fi) times the row of X starting at source from the row starting at target
+    private static void subtractMultiple(double[] xReal, double[] xImag, int target, int source,
+                                         double fr, double fi, int numCols) {
+        for (int j = 0; j < numCols; j++) {
+            double sr = xReal[source + j], si = xImag[source + j];
+            xReal[target + j] -= fr * sr - fi * si;
+            xImag[target + j] -= fr * si + fi * sr;
+        }
+    }
+
+
+    // Writes 1 / (re + i im) into result, scaling by the larger part so that the squares cannot overflow (Smith's method)
+    private static void reciprocal(double re, double im, double[] result) {
+        if (Math.abs(re) >= Math.abs(im)) {
+            double ratio = im / re;
+            double denominator = re + im * ratio;
+            result[0] = 1 / denominator;
+            result[1] = -ratio / denominator;
+        } else {
+            double ratio = re / im;
+            double denominator = im + re * ratio;
+            result[0] = ratio / denominator;
+            result[1] = -1 / denominator;
+        }
+    }
+
+
+    private void swapRows(double[] values, int p, int k) {
+        for (int j = 0; j < size; j++) {
+            double temp = values[p * size + j];
+            values[p * size + j] = values[k * size + j];
+            values[k * size + j] = temp;
+        }
+    }
+
+
+    private void requireNonsingular() {
+        requireCurrent();
+        if (singular) {
+            throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+        }
+    }
+
+
+    private void requireCurrent() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+    }
+
+
+}
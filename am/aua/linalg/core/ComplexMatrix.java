@@ -0,0 +1,585 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents a matrix of complex numbers with a specific number of rows and columns.
+ * The real and imaginary parts are kept in two separate row-major arrays of doubles,
+ * so a complex n x n matrix takes 2n^2 doubles instead of the 4n^2 of its real 2n x 2n embedding,
+ * and the arithmetic runs on the same primitive kernels as Matrix.
+ */
+public class ComplexMatrix implements Cloneable {
+
+    // Instance variables
+    private final int numOfRows;       // Number of rows in the matrix
+    private final int numOfColumns;    // Number of columns in the matrix
+    private double[] real;             // Row-major real parts, entry (i, j) is stored at i * numOfColumns + j
+    private double[] imaginary;        // Row-major imaginary parts, stored like the real parts
+    private int modCount;              // Number of times the entries were changed through setEntry, used to detect a stale factorization
+    private ComplexLUDecomposition factorization;    // Cached LU decomposition, computed on first use
+
+
+    // Constructors
+    /**
+     * Constructs a new ComplexMatrix with the specified number of rows and columns, filled with zeros.
+     *
+     * @param rows The number of rows in the matrix
+     * @param cols The number of columns in the matrix
+     */
+    public ComplexMatrix(int rows, int cols) {
+        this(new double[rows * cols], new double[rows * cols], rows, cols);
+    }
+
+
+    /**
+     * Constructs a new ComplexMatrix initialized with the specified 2D array of complex numbers.
+     *
+     * @param array The 2D array used to initialize the matrix
+     * @throws IllegalArgumentException If the input array is not rectangular (not all rows have the same length)
+     */
+    public ComplexMatrix(ComplexNumber[][] array) {
+        this(array.length, array[0].length);
+        for (int i = 0; i < numOfRows; i++) {
+            if (array[i].length != numOfColumns) {
+                throw new IllegalArgumentException("Input array is not rectangular");
+            }
+            for (int j = 0; j < numOfColumns; j++) {
+                real[i * numOfColumns + j] = array[i][j].getReal();
+                imaginary[i * numOfColumns + j] = array[i][j].getImaginary();
+            }
+        }
+    }
+
+
+    /**
+     * Constructs a new ComplexMatrix from its real and imaginary parts.
+     *
+     * @param realPart The real parts of the entries
+     * @param imaginaryPart The imaginary parts of the entries, with the dimensions of realPart
+     * @throws IllegalArgumentException If the two matrices have different dimensions
+     */
+    public ComplexMatrix(Matrix realPart, Matrix imaginaryPart) {
+        this(realPart.copyData(), imaginaryPart.copyData(), realPart.getNumOfRows(), realPart.getNumOfColumns());
+        if (realPart.getNumOfRows() != imaginaryPart.getNumOfRows()
+                || realPart.getNumOfColumns() != imaginaryPart.getNumOfColumns()) {
+            throw new IllegalArgumentException("Real and imaginary parts must have the same dimensions.");
+        }
+    }
+
+
+    /**
+     * Constructs a new ComplexMatrix with the entries of a real matrix and zero imaginary parts.
+     *
+     * @param realPart The real matrix
+     */
+    public ComplexMatrix(Matrix realPart) {
+        this(realPart.copyData(), new double[realPart.getNumOfRows() * realPart.getNumOfColumns()],
+                realPart.getNumOfRows(), realPart.getNumOfColumns());
+    }
+
+
+    /**
+     * Constructs a new ComplexMatrix that takes ownership of the given row-major arrays without copying them.
+     * Used internally so that computed results are not copied a second time.
+     *
+     * @param real The row-major real parts of numOfRows * numOfColumns entries
+     * @param imaginary The row-major imaginary parts of numOfRows * numOfColumns entries
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     */
+    ComplexMatrix(double[] real, double[] imaginary, int numOfRows, int numOfColumns) {
+        this.numOfRows = numOfRows;
+        this.numOfColumns = numOfColumns;
+        this.real = real;
+        this.imaginary = imaginary;
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Retrieves the number of rows in the matrix.
+     *
+     * @return The number of rows in the matrix
+     */
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+
+    /**
+     * Retrieves the number of columns in the matrix.
+     *
+     * @return The number of columns in the matrix
+     */
+    public int getNumOfColumns() {
+        return numOfColumns;
+    }
+
+
+    /**
+     * Retrieves the value of a specific entry in the matrix.
+     *
+     * @param row The row index of the entry
+     * @param column The column index of the entry
+     * @return The value of the specified entry
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     */
+    public ComplexNumber getEntry(int row, int column) {
+        if (row < 0 || row >= numOfRows || column < 0 || column >= numOfColumns) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        int index = row * numOfColumns + column;
+        return new ComplexNumber(real[index], imaginary[index]);
+    }
+
+
+    /**
+     * Sets the value of a specific entry in the matrix.
+     *
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     */
+    public void setEntry(int i, int j, ComplexNumber value) {
+        if (i < 0 || i >= numOfRows || j < 0 || j >= numOfColumns) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        real[i * numOfColumns + j] = value.getReal();
+        imaginary[i * numOfColumns + j] = value.getImaginary();
+        modCount++;
+    }
+
+
+    /**
+     * Returns the real parts of the entries as a new Matrix.
+     *
+     * @return The real part of this matrix
+     */
+    public Matrix getReal() {
+        return new Matrix(real.clone(), numOfRows, numOfColumns);
+    }
+
+
+    /**
+     * Returns the imaginary parts of the entries as a new Matrix.
+     *
+     * @return The imaginary part of this matrix
+     */
+    public Matrix getImaginary() {
+        return new Matrix(imaginary.clone(), numOfRows, numOfColumns);
+    }
+
+
+    // Returns the row-major real parts without copying them, for the computational kernels
+    double[] realData() {
+        return real;
+    }
+
+
+    // Returns the row-major imaginary parts without copying them, for the computational kernels
+    double[] imaginaryData() {
+        return imaginary;
+    }
+
+
+    // Returns the number of times the entries were changed, checked by the cached factorization
+    int getModCount() {
+        return modCount;
+    }
+
+
+    /**
+     * Returns a string representation of the matrix, one row per line enclosed in square brackets.
+     *
+     * @return A string representation of the matrix
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numOfRows; i++) {
+            sb.append("[ ");
+            for (int j = 0; j < numOfColumns; j++) {
+                sb.append(getEntry(i, j)).append(" ");
+            }
+            sb.append("]").append("\n");
+        }
+        return sb.toString();
+    }
+
+
+    /**
+     * Compares this ComplexMatrix with another ComplexMatrix for equality.
+     *
+     * @param M The ComplexMatrix to compare with
+     * @return true if the two matrices have the same dimensions and entries, false otherwise
+     */
+    public boolean equals(ComplexMatrix M) {
+        if (numOfRows != M.numOfRows || numOfColumns != M.numOfColumns) {
+            return false;
+        }
+        for (int k = 0; k < real.length; k++) {
+            if (real[k] != M.real[k] || imaginary[k] != M.imaginary[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Creates and returns a deep copy of this ComplexMatrix.
+     * The copy does not share the cached factorization of this matrix.
+     *
+     * @return A deep copy of this ComplexMatrix
+     */
+    @Override
+    public ComplexMatrix clone() {
+        try {
+            ComplexMatrix clonedMatrix = (ComplexMatrix) super.clone();
+            clonedMatrix.real = real.clone();
+            clonedMatrix.imaginary = imaginary.clone();
+            clonedMatrix.factorization = null;
+            return clonedMatrix;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+
+
+
+    //// Methods
+
+
+    // Add
+    /**
+     * Adds two complex matrices together and returns the result.
+     *
+     * @param A The first ComplexMatrix to be added
+     * @param B The second ComplexMatrix to be added
+     * @return The result of adding the two matrices
+     * @throws IllegalArgumentException If the input matrices have different dimensions
+     */
+    public static ComplexMatrix add(ComplexMatrix A, ComplexMatrix B) {
+        return combine(A, B, 1.0);
+    }
+
+
+    /**
+     * Adds another ComplexMatrix to this ComplexMatrix and returns the result.
+     *
+     * @param O The ComplexMatrix to be added to this ComplexMatrix
+     * @return The result of adding the two matrices
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this ComplexMatrix
+     */
+    public ComplexMatrix add(ComplexMatrix O) {
+        return add(this, O);
+    }
+
+
+
+    // Subtract
+    /**
+     * Subtracts one complex matrix from another and returns the result.
+     *
+     * @param A The ComplexMatrix from which to subtract
+     * @param B The ComplexMatrix to subtract
+     * @return The result of subtracting matrix B from matrix A
+     * @throws IllegalArgumentException If the input matrices have different dimensions
+     */
+    public static ComplexMatrix subtract(ComplexMatrix A, ComplexMatrix B) {
+        return combine(A, B, -1.0);
+    }
+
+
+    /**
+     * Subtracts another ComplexMatrix from this ComplexMatrix and returns the result.
+     *
+     * @param O The ComplexMatrix to subtract from this ComplexMatrix
+     * @return The result of subtracting the input matrix from this ComplexMatrix
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this ComplexMatrix
+     */
+    public ComplexMatrix subtract(ComplexMatrix O) {
+        return subtract(this, O);
+    }
+
+
+    // Computes A + sign * B
+    private static ComplexMatrix combine(ComplexMatrix A, ComplexMatrix B, double sign) {
+        if (A.numOfRows != B.numOfRows || A.numOfColumns != B.numOfColumns) {
+            throw new IllegalArgumentException("Cannot add matrices with different dimensions.");
+        }
+        int length = A.real.length;
+        double[] resultReal = new double[length];
+        double[] resultImag = new double[length];
+        for (int k = 0; k < length; k++) {
+            resultReal[k] = A.real[k] + sign * B.real[k];
+            resultImag[k] = A.imaginary[k] + sign * B.imaginary[k];
+        }
+        return new ComplexMatrix(resultReal, resultImag, A.numOfRows, A.numOfColumns);
+    }
+
+
+
+    // Scalar multiplication
+    /**
+     * Multiplies a complex matrix by a complex scalar and returns the result.
+     *
+     * @param M The ComplexMatrix to be multiplied
+     * @param a The complex scalar to multiply by
+     * @return The result of multiplying the matrix by the scalar
+     */
+    public static ComplexMatrix scalarMultiply(ComplexMatrix M, ComplexNumber a) {
+        double ar = a.getReal(), ai = a.getImaginary();
+        int length = M.real.length;
+        double[] resultReal = new double[length];
+        double[] resultImag = new double[length];
+        for (int k = 0; k < length; k++) {
+            double mr = M.real[k], mi = M.imaginary[k];
+            resultReal[k] = mr * ar - mi * ai;
+            resultImag[k] = mr * ai + mi * ar;
+        }
+        return new ComplexMatrix(resultReal, resultImag, M.numOfRows, M.numOfColumns);
+    }
+
+
+    /**
+     * Multiplies this ComplexMatrix by a complex scalar and returns the result.
+     *
+     * @param a The complex scalar to multiply by
+     * @return The result of multiplying this matrix by the scalar
+     */
+    public ComplexMatrix scalarMultiply(ComplexNumber a) {
+        return scalarMultiply(this, a);
+    }
+
+
+
+    // Multiplication
+    /**
+     * Multiplies two complex matrices and returns the result.
+     * The product is formed from three real products instead of four (the 3M method):
+     * with P1 = Ar Br, P2 = Ai Bi and P3 = (Ar + Ai)(Br + Bi), the real part is P1 - P2 and the imaginary part P3 - P1 - P2.
+     * Each real product runs on the cache-blocked, parallel kernel of Matrix.
+     * The imaginary part is computed as a difference, so it can lose relative accuracy when it is much smaller than the real part.
+     *
+     * @param A The first ComplexMatrix to be multiplied
+     * @param B The second ComplexMatrix to be multiplied
+     * @return The result of multiplying matrix A by matrix B
+     * @throws IllegalArgumentException If the number of columns of A is not equal to the number of rows of B
+     */
+    public static ComplexMatrix multiply(ComplexMatrix A, ComplexMatrix B) {
+        if (A.numOfColumns != B.numOfRows) {
+            throw new IllegalArgumentException("Cannot multiply matrices with incompatible dimensions.");
+        }
+        int numRows = A.numOfRows, depth = A.numOfColumns, numCols = B.numOfColumns;
+
+        double[] p1 = MatrixMultiplication.multiply(A.real, B.real, numRows, depth, numCols);
+        double[] p2 = MatrixMultiplication.multiply(A.imaginary, B.imaginary, numRows, depth, numCols);
+        double[] p3 = MatrixMultiplication.multiply(sum(A.real, A.imaginary), sum(B.real, B.imaginary), numRows, depth, numCols);
+
+        // Reuse P1 for the real part and P3 for the imaginary part
+        for (int k = 0; k < p1.length; k++) {
+            p3[k] -= p1[k] + p2[k];
+            p1[k] -= p2[k];
+        }
+        return new ComplexMatrix(p1, p3, numRows, numCols);
+    }
+
+
+    /**
+     * Multiplies this ComplexMatrix by another ComplexMatrix and returns the result.
+     *
+     * @param O The ComplexMatrix to multiply by
+     * @return The result of multiplying this matrix by the input matrix
+     * @throws IllegalArgumentException If the number of columns of this matrix is not equal to the number of rows of the input matrix
+     */
+    public ComplexMatrix multiply(ComplexMatrix O) {
+        return multiply(this, O);
+    }
+
+
+    private static double[] sum(double[] a, double[] b) {
+        double[] result = new double[a.length];
+        for (int k = 0; k < a.length; k++) {
+            result[k] = a[k] + b[k];
+        }
+        return result;
+    }
+
+
+
+    // Vector multiplication
+    /**
+     * Multiplies this ComplexMatrix by a complex vector and returns the result.
+     *
+     * @param x The ComplexVector to multiply by, with as many elements as this matrix has columns
+     * @return The vector Ax
+     * @throws IllegalArgumentException If the length of x does not match the number of columns of this matrix
+     */
+    public ComplexVector multiply(ComplexVector x) {
+        if (x.getLength() != numOfColumns) {
+            throw new IllegalArgumentException("Vector length must match the number of columns of the matrix.");
+        }
+        double[] input = x.data();
+        ComplexVector result = new ComplexVector(numOfRows);
+        double[] output = result.data();
+        for (int i = 0; i < numOfRows; i++) {
+            int row = i * numOfColumns;
+            double sumReal = 0, sumImag = 0;
+            for (int j = 0; j < numOfColumns; j++) {
+                double ar = real[row + j], ai = imaginary[row + j];
+                double xr = input[2 * j], xi = input[2 * j + 1];
+                sumReal += ar * xr - ai * xi;
+                sumImag += ar * xi + ai * xr;
+            }
+            output[2 * i] = sumReal;
+            output[2 * i + 1] = sumImag;
+        }
+        return result;
+    }
+
+
+
+    // Transpose
+    /**
+     * Transposes this ComplexMatrix without conjugating its entries.
+     *
+     * @return The transpose of this matrix
+     */
+    public ComplexMatrix transpose() {
+        return transpose(1.0);
+    }
+
+
+    /**
+     * Computes the conjugate transpose (Hermitian adjoint) of this ComplexMatrix,
+     * whose entry (i, j) is the conjugate of the entry (j, i) of this matrix.
+     *
+     * @return The conjugate transpose of this matrix
+     */
+    public ComplexMatrix conjugateTranspose() {
+        return transpose(-1.0);
+    }
+
+
+    /**
+     * Computes the conjugate of every entry of this ComplexMatrix.
+     *
+     * @return The entry-wise conjugate of this matrix
+     */
+    public ComplexMatrix conjugate() {
+        double[] resultImag = new double[imaginary.length];
+        for (int k = 0; k < imaginary.length; k++) {
+            resultImag[k] = -imaginary[k];
+        }
+        return new ComplexMatrix(real.clone(), resultImag, numOfRows, numOfColumns);
+    }
+
+
+    /**
+     * Checks whether this ComplexMatrix is Hermitian, that is, equal to its conjugate transpose.
+     *
+     * @return true if the matrix is square and every entry (i, j) is the conjugate of the entry (j, i), false otherwise
+     */
+    public boolean isHermitian() {
+        if (numOfRows != numOfColumns) {
+            return false;
+        }
+        int size = numOfRows;
+        for (int i = 0; i < size; i++) {
+            for (int j = i; j < size; j++) {
+                if (real[i * size + j] != real[j * size + i] || imaginary[i * size + j] != -imaginary[j * size + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+
+    // Transposes both parts, multiplying the imaginary part by conjugateSign
+    private ComplexMatrix transpose(double conjugateSign) {
+        int numRows = numOfColumns, numCols = numOfRows;
+        double[] resultReal = new double[real.length];
+        double[] resultImag = new double[imaginary.length];
+        for (int i = 0; i < numRows; i++) {
+            for (int j = 0; j < numCols; j++) {
+                resultReal[i * numCols + j] = real[j * numRows + i];
+                resultImag[i * numCols + j] = conjugateSign * imaginary[j * numRows + i];
+            }
+        }
+        return new ComplexMatrix(resultReal, resultImag, numRows, numCols);
+    }
+
+
+
+    // Factorization
+    /**
+     * Returns the LU decomposition of this square matrix, computing it only on the first call.
+     * The same decomposition is reused by det(), inverse() and solve() until the matrix is modified through setEntry.
+     *
+     * @return The LU decomposition of this matrix
+     * @throws IllegalArgumentException If the matrix is not square
+     */
+    public ComplexLUDecomposition factorize() {
+        if (factorization == null || factorization.isStale()) {
+            factorization = new ComplexLUDecomposition(this);
+        }
+        return factorization;
+    }
+
+
+    // Determinant
+    /**
+     * Computes the determinant of this square matrix from its LU decomposition.
+     *
+     * @return The determinant of this matrix
+     * @throws IllegalArgumentException If the matrix is not square
+     */
+    public ComplexNumber det() {
+        return factorize().det();
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse of this square matrix from its LU decomposition.
+     *
+     * @return The inverse of this matrix
+     * @throws IllegalArgumentException If the matrix is not square
+     * @throws UnsupportedOperationException If the matrix is singular and does not have an inverse
+     */
+    public ComplexMatrix inverse() {
+        return factorize().inverse();
+    }
+
+
+    // Solve
+    /**
+     * Solves the linear system AX = B, where A is this square matrix, without forming the inverse of A.
+     *
+     * @param B The right-hand side, with as many rows as this matrix
+     * @return The solution X
+     * @throws IllegalArgumentException If the matrix is not square or B does not have as many rows as this matrix
+     * @throws UnsupportedOperationException If this matrix is singular
+     */
+    public ComplexMatrix solve(ComplexMatrix B) {
+        return factorize().solve(B);
+    }
+
+
+    /**
+     * Solves the linear system Ax = b, where A is this square matrix, without forming the inverse of A.
+     *
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the matrix is not square or the length of b does not match its size
+     * @throws UnsupportedOperationException If this matrix is singular
+     */
+    public ComplexVector solve(ComplexVector b) {
+        return factorize().solve(b);
+    }
+
+
+}
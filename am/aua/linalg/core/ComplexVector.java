@@ -1,26 +1,79 @@
-package am.aua.linalg.core; 
+package am.aua.linalg.core;
 
 /**
  * Represents a vector of complex numbers.
+ * The elements are stored in a single primitive array with the real and imaginary parts interleaved,
+ * so the arithmetic works on doubles directly and creates no ComplexNumber objects per element.
  */
-public class ComplexVector { 
+public class ComplexVector {
 
     // Instance variable
-    private ComplexNumber[] elements;
+    private double[] values;    // Element k has its real part at 2k and its imaginary part at 2k + 1
 
 
     //Constructor
     public ComplexVector(ComplexNumber... values){
-        this.elements= values.clone();
+        this.values = new double[2 * values.length];
+        for (int k = 0; k < values.length; k++) {
+            this.values[2 * k] = values[k].getReal();
+            this.values[2 * k + 1] = values[k].getImaginary();
+        }
+    }
+
+
+    /**
+     * Constructs a ComplexVector from the real and imaginary parts of its elements.
+     *
+     * @param real The real parts of the elements.
+     * @param imaginary The imaginary parts of the elements, as many as the real parts.
+     * @throws IllegalArgumentException if the arrays have different lengths.
+     */
+    public ComplexVector(double[] real, double[] imaginary) {
+        if (real.length != imaginary.length) {
+            throw new IllegalArgumentException("Real and imaginary parts must have the same length.");
+        }
+        this.values = new double[2 * real.length];
+        for (int k = 0; k < real.length; k++) {
+            this.values[2 * k] = real[k];
+            this.values[2 * k + 1] = imaginary[k];
+        }
+    }
+
+
+    // Constructs a zero vector of the given length, for results filled in by the methods of this package
+    ComplexVector(int length) {
+        this.values = new double[2 * length];
     }
 
+
     /**
-     * Retrieves the array of complex numbers.
+     * Retrieves the elements of this ComplexVector as complex numbers.
+     * The ComplexNumber objects are created on every call, so loops should prefer the arithmetic methods of this class.
      *
-     * @return The array of complex numbers.
+     * @return A new array holding the elements of this ComplexVector.
      */
     public ComplexNumber[] getElements() {
-        return this.elements;
+        ComplexNumber[] elements = new ComplexNumber[getLength()];
+        for (int k = 0; k < elements.length; k++) {
+            elements[k] = new ComplexNumber(values[2 * k], values[2 * k + 1]);
+        }
+        return elements;
+    }
+
+
+    /**
+     * Retrieves the number of elements of this ComplexVector.
+     *
+     * @return The number of elements.
+     */
+    public int getLength() {
+        return values.length / 2;
+    }
+
+
+    // Returns the interleaved array backing this vector without copying it, for the computational kernels
+    double[] data() {
+        return values;
     }
 
 
@@ -28,9 +81,9 @@ public class ComplexVector {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (int i = 0; i < elements.length; i++) {
-            sb.append(elements[i]);
-            if (i < elements.length - 1) {
+        for (int k = 0; k < getLength(); k++) {
+            sb.append(new ComplexNumber(values[2 * k], values[2 * k + 1]));
+            if (k < getLength() - 1) {
                 sb.append(", ");
             }
         }
@@ -50,11 +103,13 @@ public class ComplexVector {
      * @throws IllegalArgumentException if the other ComplexVector has a different length than this ComplexVector.
     */
     public ComplexVector add(ComplexVector other){
-        ComplexNumber[] newVector = new ComplexNumber[other.elements.length];
-        for (int i = 0; i < other.elements.length; i++) {
-            newVector[i] = other.elements[i].add(this.elements[i]);
+        checkLength(other);
+        ComplexVector result = new ComplexVector(getLength());
+        double[] a = this.values, b = other.values, c = result.values;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
         }
-        return new ComplexVector(newVector);
+        return result;
     }
 
     /**
@@ -65,11 +120,13 @@ public class ComplexVector {
      * @throws IllegalArgumentException if the other ComplexVector has a different length than this ComplexVector.
      */
     public ComplexVector subtract(ComplexVector other) {
-        ComplexNumber[] newVector = new ComplexNumber[other.elements.length];
-        for (int i = 0; i < other.elements.length; i++) {
-            newVector[i] = this.elements[i].subtract(other.elements[i]);
+        checkLength(other);
+        ComplexVector result = new ComplexVector(getLength());
+        double[] a = this.values, b = other.values, c = result.values;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
         }
-        return new ComplexVector(newVector);
+        return result;
     }
 
     /**
@@ -77,14 +134,9 @@ public class ComplexVector {
      *
      * @param scalar The ComplexNumber scalar to multiply each element by.
      * @return A new ComplexVector representing the result of multiplying each element of this ComplexVector by the scalar.
-     */    
+     */
     public ComplexVector multiplyWithAComplexScalar(ComplexNumber scalar) {
-        
-        ComplexNumber[] newVector = new ComplexNumber[this.elements.length];
-        for (int i = 0; i < this.elements.length; i++) {
-            newVector[i] = this.elements[i].multiply(scalar);
-        }
-        return new ComplexVector(newVector);
+        return scalarMultiplication(scalar);
     }
 
 
@@ -94,11 +146,13 @@ public class ComplexVector {
      * @return A new ComplexVector representing the conjugate of each element in this ComplexVector.
      */
     public ComplexVector conjugate() {
-        ComplexNumber[] conjugates = new ComplexNumber[this.elements.length];
-        for (int i = 0; i < this.elements.length; i++) {
-            conjugates[i] = this.elements[i].conjugate();
+        ComplexVector result = new ComplexVector(getLength());
+        double[] a = this.values, c = result.values;
+        for (int i = 0; i < c.length; i += 2) {
+            c[i] = a[i];
+            c[i + 1] = -a[i + 1];
         }
-        return new ComplexVector(conjugates);
+        return result;
     }
 
     /**
@@ -108,24 +162,30 @@ public class ComplexVector {
     */
     public double magnitude() {
         double sum = 0;
-        for (ComplexNumber el : elements) {
-            sum += el.modulus() * el.modulus();
+        for (double v : values) {
+            sum += v * v;
         }
         return Math.sqrt(sum);
     }
 
     /**
-     * Computes the dot product of this ComplexVector with another ComplexVector.
+     * Computes the dot product of this ComplexVector with another ComplexVector,
+     * the sum of the products of the elements of this vector with the conjugates of the elements of the other.
      *
      * @param other The other ComplexVector to compute the dot product with.
      * @return The dot product of this ComplexVector with the other ComplexVector.
+     * @throws IllegalArgumentException if the other ComplexVector has a different length than this ComplexVector.
     */
     public ComplexNumber dotProduct(ComplexVector other) {
-        ComplexNumber sum = new ComplexNumber(0, 0);
-        for (int i = 0; i < this.elements.length; i++) {
-            sum = sum.add(this.elements[i].multiply(other.elements[i].conjugate()));
+        checkLength(other);
+        double[] a = this.values, b = other.values;
+        double real = 0, imaginary = 0;
+        for (int i = 0; i < a.length; i += 2) {
+            // (ar + i ai)(br - i bi)
+            real += a[i] * b[i] + a[i + 1] * b[i + 1];
+            imaginary += a[i + 1] * b[i] - a[i] * b[i + 1];
         }
-        return sum;
+        return new ComplexNumber(real, imaginary);
     }
 
     /**
@@ -135,11 +195,76 @@ public class ComplexVector {
      * @return A new ComplexVector resulting from the scalar multiplication.
     */
     public ComplexVector scalarMultiplication(ComplexNumber scalar) {
-        ComplexNumber[] result = new ComplexNumber[this.elements.length];
-        for (int i = 0; i < this.elements.length; i++) {
-            result[i] = this.elements[i].multiply(scalar);
+        ComplexVector result = new ComplexVector(getLength());
+        scale(this.values, scalar.getReal(), scalar.getImaginary(), result.values);
+        return result;
+    }
+
+
+
+    // In-place methods
+    /**
+     * Adds another ComplexVector to this ComplexVector element-wise, in place.
+     *
+     * @param other The ComplexVector to be added to this ComplexVector.
+     * @throws IllegalArgumentException if the other ComplexVector has a different length than this ComplexVector.
+     */
+    public void addInPlace(ComplexVector other) {
+        checkLength(other);
+        double[] a = this.values, b = other.values;
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+    }
+
+    /**
+     * Subtracts another ComplexVector from this ComplexVector element-wise, in place.
+     *
+     * @param other The ComplexVector to be subtracted from this ComplexVector.
+     * @throws IllegalArgumentException if the other ComplexVector has a different length than this ComplexVector.
+     */
+    public void subtractInPlace(ComplexVector other) {
+        checkLength(other);
+        double[] a = this.values, b = other.values;
+        for (int i = 0; i < a.length; i++) {
+            a[i] -= b[i];
+        }
+    }
+
+    /**
+     * Multiplies each element of this ComplexVector by a scalar ComplexNumber, in place.
+     *
+     * @param scalar The scalar ComplexNumber to multiply each element by.
+     */
+    public void scaleInPlace(ComplexNumber scalar) {
+        scale(this.values, scalar.getReal(), scalar.getImaginary(), this.values);
+    }
+
+    /**
+     * Replaces each element of this ComplexVector by its conjugate, in place.
+     */
+    public void conjugateInPlace() {
+        for (int i = 1; i < values.length; i += 2) {
+            values[i] = -values[i];
+        }
+    }
+
+
+
+    // Writes (sr + i si) times every element of a into c, which may be a itself
+    private static void scale(double[] a, double sr, double si, double[] c) {
+        for (int i = 0; i < a.length; i += 2) {
+            double re = a[i], im = a[i + 1];
+            c[i] = re * sr - im * si;
+            c[i + 1] = re * si + im * sr;
+        }
+    }
+
+
+    private void checkLength(ComplexVector other) {
+        if (other.values.length != this.values.length) {
+            throw new IllegalArgumentException("Vectors must have the same length.");
         }
-        return new ComplexVector(result);
     }
 
 }
@@ -0,0 +1,77 @@
+package am.aua.linalg.core;
+
+/**
+ * Solves symmetric positive-definite systems Ax = b with the (preconditioned) conjugate gradient method.
+ * Every iteration costs one matrix-vector product and a few vector updates, and the error shrinks
+ * at a rate governed by the square root of the condition number of A.
+ * The preconditioner, if any, must be symmetric positive-definite as well.
+ */
+public class ConjugateGradientSolver extends IterativeSolver {
+
+    // Constructors
+    /**
+     * Constructs a conjugate gradient solver with the default tolerance and iteration limit.
+     */
+    public ConjugateGradientSolver() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+
+    /**
+     * Constructs a conjugate gradient solver with the given stopping criteria.
+     *
+     * @param tolerance The relative residual at which the iteration stops
+     * @param maxIterations The maximum number of iterations per solve
+     * @throws IllegalArgumentException If the tolerance is negative or the iteration limit is less than 1
+     */
+    public ConjugateGradientSolver(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+    }
+
+
+
+    @Override
+    void iterate(LinearOperator A, Vector b, Vector x, double bNorm) {
+        int size = b.length();
+        Vector r = workVector(size);
+        Vector z = workVector(size);
+        Vector p = workVector(size);
+        Vector q = workVector(size);
+        double[] xValues = x.data(), rValues = r.data(), zValues = z.data(), pValues = p.data(), qValues = q.data();
+
+        residual(A, b, x, r);
+        if (record(norm(rValues) / bNorm)) {
+            return;
+        }
+        precondition(r, z);
+        System.arraycopy(zValues, 0, pValues, 0, size);
+        double rz = dot(rValues, zValues);
+
+        for (int k = 0; k < getMaxIterations(); k++) {
+            // Step along the search direction to the minimum of the energy norm of the error
+            A.apply(p, q);
+            double pq = dot(pValues, qValues);
+            if (pq <= 0) {
+                // A is not positive-definite along p, so conjugate gradients cannot continue
+                return;
+            }
+            double alpha = rz / pq;
+            axpy(alpha, pValues, xValues);
+            axpy(-alpha, qValues, rValues);
+            if (record(norm(rValues) / bNorm)) {
+                return;
+            }
+
+            // The next direction is the preconditioned residual made A-conjugate to the previous ones
+            precondition(r, z);
+            double rzNext = dot(rValues, zValues);
+            double beta = rzNext / rz;
+            rz = rzNext;
+            for (int i = 0; i < size; i++) {
+                pValues[i] = zValues[i] + beta * pValues[i];
+            }
+        }
+    }
+
+
+}
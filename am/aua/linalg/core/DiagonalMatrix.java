@@ -3,8 +3,14 @@ package am.aua.linalg.core;
 /**
  * Represents a diagonal matrix, which is a special type of square matrix
  * where all elements off the main diagonal are zero.
+ * Only the n diagonal entries are stored, and products, sums, determinants, inverses and powers
+ * with other diagonal matrices take O(n) time.
 */
 public class DiagonalMatrix extends SquareMatrix{
+
+    // Instance variables
+    private double[] diagonal;    // The entries (i, i) of the matrix
+
  
     /**
      * Constructs a diagonal matrix with the specified size and diagonal entries.
@@ -14,22 +20,336 @@ public class DiagonalMatrix extends SquareMatrix{
      * @throws IllegalArgumentException If the number of diagonal entries provided does not match the size of the matrix
     */
     public DiagonalMatrix(int size, double... diagonalEntries){
-        super(size);
+        super(null, size);
         if (diagonalEntries.length != size) {
             System.out.println("Invalid input: Number of diagonal values must match the size of the matrix.");
             System.exit(0);
         }
     
-        // Initialize as a diagonal matrix with provided diagonal values
+        // Initialize as a diagonal matrix with provided diagonal values, off-diagonal elements are implicitly 0.0
+        this.diagonal = diagonalEntries.clone();
+    }
+
+
+    /**
+     * Constructs a diagonal matrix that takes ownership of the given diagonal without copying it.
+     * 
+     * @param diagonal The diagonal entries of the matrix
+     * @param size The size of the diagonal matrix (number of rows/columns)
+     */
+    DiagonalMatrix(double[] diagonal, int size) {
+        super(null, size);
+        this.diagonal = diagonal;
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Returns a copy of the diagonal entries of this matrix.
+     * 
+     * @return The diagonal entries of this matrix
+     */
+    public double[] getDiagonal() {
+        return diagonal.clone();
+    }
+
+
+    // Returns the diagonal backing this matrix without copying it
+    double[] diagonalData() {
+        return diagonal;
+    }
+
+
+    @Override
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= getSize() || column < 0 || column >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        return row == column ? diagonal[row] : 0;
+    }
+
+
+    /**
+     * Sets the value of a specific entry on the diagonal of the matrix.
+     * 
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     * @throws IllegalArgumentException If a non-zero value is set off the diagonal
+     */
+    @Override
+    public void setEntry(int i, int j, double value) {
+        if (i < 0 || i >= getSize() || j < 0 || j >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        if (i != j) {
+            if (value != 0) {
+                throw new IllegalArgumentException("Off-diagonal entries of a diagonal matrix must be zero.");
+            }
+            return;
+        }
+        diagonal[i] = value;
+        modified();
+    }
+
+
+    /**
+     * Sets the values of this matrix using the provided 2D array.
+     * 
+     * @param array The square 2D array containing the new values, zero off the diagonal
+     * @throws IllegalArgumentException If the array does not have the size of this matrix or has non-zero entries off the diagonal
+     */
+    @Override
+    public void setValue(double[][] array) {
+        int size = getSize();
+        if (array.length != size) {
+            throw new IllegalArgumentException("Array does not match the size of the matrix");
+        }
+        double[] newDiagonal = new double[size];
         for (int i = 0; i < size; i++) {
+            if (array[i].length != size) {
+                throw new IllegalArgumentException("Array does not match the size of the matrix");
+            }
             for (int j = 0; j < size; j++) {
-                if (i == j) {
-                    setEntry(i,j,diagonalEntries[i]);    // Access the value array directly
-                } else {
-                    setEntry(i,j,0);  // Off-diagonal elements are set to 0.0
+                if (i != j && array[i][j] != 0) {
+                    throw new IllegalArgumentException("Off-diagonal entries of a diagonal matrix must be zero.");
                 }
             }
+            newDiagonal[i] = array[i][i];
+        }
+        this.diagonal = newDiagonal;
+        modified();
+    }
+
+
+    @Override
+    double[] copyData() {
+        int size = getSize();
+        double[] dense = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            dense[i * size + i] = diagonal[i];
+        }
+        return dense;
+    }
+
+
+    @Override
+    public DiagonalMatrix clone() {
+        DiagonalMatrix clonedMatrix = (DiagonalMatrix) super.clone();
+        clonedMatrix.diagonal = this.diagonal.clone();
+        return clonedMatrix;
+    }
+
+
+    @Override
+    public boolean isSymmetric() {
+        return true;
+    }
+
+
+
+    // Methods
+
+    // Add
+    /**
+     * Adds another Matrix to this matrix.
+     * The sum of two diagonal matrices is diagonal and takes O(n) time; any other matrix gets a dense result.
+     * 
+     * @param O The Matrix to be added to this matrix
+     * @return The result of adding the two matrices
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this matrix
+     */
+    @Override
+    public Matrix add(Matrix O) {
+        return addScaled(O, 1);
+    }
+
+
+    // Subtract
+    /**
+     * Subtracts another Matrix from this matrix.
+     * The difference of two diagonal matrices is diagonal and takes O(n) time; any other matrix gets a dense result.
+     * 
+     * @param O The Matrix to subtract from this matrix
+     * @return The result of subtracting the input matrix from this matrix
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this matrix
+     */
+    @Override
+    public Matrix subtract(Matrix O) {
+        return addScaled(O, -1);
+    }
+
+
+    // Computes this + sign * O
+    private Matrix addScaled(Matrix O, double sign) {
+        int size = getSize();
+        if (O.getNumOfRows() != size || O.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Cannot add matrices with different dimensions.");
+        }
+
+        if (O instanceof DiagonalMatrix) {
+            double[] other = ((DiagonalMatrix) O).diagonal;
+            double[] result = new double[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = diagonal[i] + sign * other[i];
+            }
+            return new DiagonalMatrix(result, size);
+        }
+
+        // Dense fallback: copy the other matrix and only touch its diagonal
+        double[] result = O.copyData();
+        if (sign != 1) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] *= sign;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            result[i * size + i] += diagonal[i];
+        }
+        return new SquareMatrix(result, size);
+    }
+
+
+    // Scalar multiplication
+    /**
+     * Multiplies this matrix by a scalar value in O(n) time.
+     * 
+     * @param a The scalar value to multiply by
+     * @return The result of multiplying this matrix by the scalar value
+     */
+    @Override
+    public DiagonalMatrix scalarMultiply(Scalar a) {
+        double[] result = new double[getSize()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = diagonal[i] * a.getValue();
+        }
+        return new DiagonalMatrix(result, result.length);
+    }
+
+
+    // Transpose
+    /**
+     * Transposes this matrix; a diagonal matrix is its own transpose.
+     * 
+     * @return A copy of this matrix
+     */
+    @Override
+    public DiagonalMatrix transpose() {
+        return new DiagonalMatrix(diagonal.clone(), getSize());
+    }
+
+
+    // Determinant
+    /**
+     * Computes the determinant as the product of the diagonal entries, in O(n) time.
+     * 
+     * @return The determinant of this matrix
+     */
+    @Override
+    public double det() {
+        double determinant = 1;
+        for (double d : diagonal) {
+            determinant *= d;
+        }
+        return determinant;
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse by taking the reciprocal of every diagonal entry, in O(n) time.
+     * 
+     * @return The inverse of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero and the matrix does not have an inverse
+     */
+    @Override
+    public DiagonalMatrix inverse() {
+        double[] result = new double[getSize()];
+        for (int i = 0; i < result.length; i++) {
+            if (diagonal[i] == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            result[i] = 1 / diagonal[i];
+        }
+        return new DiagonalMatrix(result, result.length);
+    }
+
+
+    // Power
+    /**
+     * Raises this matrix to a given power by raising every diagonal entry to it, in O(n) time.
+     * 
+     * @param n The exponent to raise the matrix to
+     * @return The result of raising this matrix to the given power
+     * @throws UnsupportedOperationException If a diagonal entry is zero and the exponent is negative
+     */
+    @Override
+    public DiagonalMatrix power(int n) {
+        if (n < 0) {
+            return inverse().power(-n);
+        }
+        double[] result = new double[getSize()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Math.pow(diagonal[i], n);
+        }
+        return new DiagonalMatrix(result, result.length);
+    }
+
+
+    // Solve
+    /**
+     * Solves the linear system AX = B by dividing every row of B by the matching diagonal entry.
+     * 
+     * @param B The right-hand side, with as many rows as this matrix
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Matrix solve(Matrix B) {
+        return inverse().multiply(B);
+    }
+
+    /**
+     * Solves the linear system Ax = b by dividing every element of b by the matching diagonal entry.
+     * 
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Vector solve(Vector b) {
+        double[] values = b.getElements();
+        if (values.length != getSize()) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (diagonal[i] == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            values[i] /= diagonal[i];
+        }
+        return Vector.wrap(values);
+    }
+
+
+    // Computes A * D^-1 by dividing every column of A by the matching diagonal entry
+    @Override
+    Matrix rightDivide(Matrix A) {
+        DiagonalMatrix inverse = inverse();
+        int numRows = A.getNumOfRows();
+        int size = getSize();
+        double[] result = A.copyData();
+        for (int i = 0; i < numRows; i++) {
+            int row = i * size;
+            for (int j = 0; j < size; j++) {
+                result[row + j] *= inverse.diagonal[j];
+            }
         }
+        return new Matrix(result, numRows, size);
     }
     
     
@@ -0,0 +1,933 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the eigendecomposition of a square matrix, AV = VD.
+ * Symmetric matrices are reduced to tridiagonal form by Householder reflections and then diagonalized by the
+ * implicit QL algorithm, which gives real eigenvalues in ascending order and an orthonormal V.
+ * General matrices are reduced to Hessenberg form and then to real Schur form by the shifted double-step QR algorithm;
+ * their eigenvalues come in complex conjugate pairs, and D is block diagonal with a 2 x 2 block for every pair.
+ * Both take O(n^3) time, about 9n^3 operations for the symmetric algorithm and 25n^3 for the general one.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry or setValue.
+ */
+public class EigenDecomposition {
+
+    // Upper bound on the QR steps spent on one eigenvalue before giving up
+    private static final int MAX_QR_ITERATIONS = 1000;
+
+    // Instance variables
+    private final SquareMatrix source;    // The decomposed matrix
+    private final int sourceModCount;     // Modification count of the source when it was decomposed
+    private final int size;               // Size of the decomposed matrix
+    private final boolean symmetric;      // Whether the symmetric algorithm was used
+    private final double[] real;          // Real parts of the eigenvalues
+    private final double[] imaginary;     // Imaginary parts of the eigenvalues, +b and -b for each conjugate pair
+    private final double[][] vectors;     // vectors[j] is column j of V, kept as rows so that the rotations run along contiguous arrays
+
+
+    // Constructor
+    /**
+     * Computes the eigendecomposition of the given square matrix.
+     * The symmetric algorithm is used when the matrix equals its transpose, and the general one otherwise.
+     *
+     * @param M The square matrix to decompose
+     * @throws IllegalArgumentException If the matrix has a NaN or infinite entry
+     * @throws UnsupportedOperationException If the QR algorithm fails to converge within its iteration limit
+     */
+    public EigenDecomposition(SquareMatrix M) {
+        // NaN fails the symmetry test and the QR iteration can converge around it, so such entries are rejected up front
+        for (double value : M.data()) {
+            if (!Double.isFinite(value)) {
+                throw new IllegalArgumentException("Cannot decompose a matrix with NaN or infinite entries.");
+            }
+        }
+        this.source = M;
+        this.sourceModCount = M.getModCount();
+        this.size = M.getNumOfRows();
+        this.symmetric = M.isSymmetric();
+        this.real = new double[size];
+        this.imaginary = new double[size];
+
+        double[] values = M.data();
+        double[][] a = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(values, i * size, a[i], 0, size);
+        }
+
+        if (size == 0) {
+            this.vectors = a;
+        } else if (symmetric) {
+            double[] e = new double[size];
+            tridiagonalize(a, real, e);
+            this.vectors = transpose(a);
+            tql2(real, e, vectors);
+        } else {
+            double[][] V = new double[size][size];
+            hessenberg(a, V);
+            schur(a, V, real, imaginary);
+            this.vectors = transpose(V);
+        }
+    }
+
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry or setValue since it was decomposed.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether the decomposition was computed with the symmetric algorithm.
+     *
+     * @return true if the decomposed matrix is symmetric, in which case all eigenvalues are real and V is orthogonal
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * Returns the eigenvalues of the decomposed matrix.
+     * The eigenvalues of a symmetric matrix are real and sorted in ascending order;
+     * complex eigenvalues of a general matrix appear as adjacent conjugate pairs, the one with positive imaginary part first.
+     *
+     * @return The eigenvalues
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public ComplexNumber[] getEigenvalues() {
+        requireCurrent();
+        ComplexNumber[] eigenvalues = new ComplexNumber[size];
+        for (int i = 0; i < size; i++) {
+            eigenvalues[i] = new ComplexNumber(real[i], imaginary[i]);
+        }
+        return eigenvalues;
+    }
+
+    /**
+     * Returns the real parts of the eigenvalues, in the order of getEigenvalues().
+     *
+     * @return A copy of the real parts of the eigenvalues
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public double[] getRealEigenvalues() {
+        requireCurrent();
+        return real.clone();
+    }
+
+    /**
+     * Returns the imaginary parts of the eigenvalues, in the order of getEigenvalues().
+     *
+     * @return A copy of the imaginary parts of the eigenvalues
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public double[] getImagEigenvalues() {
+        requireCurrent();
+        return imaginary.clone();
+    }
+
+    /**
+     * Returns the eigenvectors of the decomposed matrix, scaled to unit length, in the order of getEigenvalues().
+     * The eigenvector of a complex eigenvalue a + bi is built from two consecutive columns of V as V[j] + i V[j + 1],
+     * and that of its conjugate is the conjugate vector.
+     *
+     * @return The eigenvectors
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public ComplexVector[] getEigenvectors() {
+        requireCurrent();
+        ComplexVector[] eigenvectors = new ComplexVector[size];
+        for (int j = 0; j < size; j++) {
+            ComplexVector v = new ComplexVector(size);
+            double[] data = v.data();
+            if (imaginary[j] == 0) {
+                for (int i = 0; i < size; i++) {
+                    data[2 * i] = vectors[j][i];
+                }
+            } else {
+                // Columns j and j + 1 of V (or j - 1 and j for the second eigenvalue of the pair) hold the real and imaginary parts
+                int first = imaginary[j] > 0 ? j : j - 1;
+                double sign = imaginary[j] > 0 ? 1 : -1;
+                for (int i = 0; i < size; i++) {
+                    data[2 * i] = vectors[first][i];
+                    data[2 * i + 1] = sign * vectors[first + 1][i];
+                }
+            }
+            double norm = v.magnitude();
+            if (norm != 0) {
+                v.scaleInPlace(new ComplexNumber(1 / norm, 0));
+            }
+            eigenvectors[j] = v;
+        }
+        return eigenvectors;
+    }
+
+    /**
+     * Returns the real eigenvector matrix V, whose columns are the eigenvectors of real eigenvalues and the real and
+     * imaginary parts of the eigenvectors of complex ones. V is orthogonal when the decomposed matrix is symmetric.
+     *
+     * @return The eigenvector matrix
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public SquareMatrix getV() {
+        requireCurrent();
+        double[] values = new double[size * size];
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                values[i * size + j] = vectors[j][i];
+            }
+        }
+        return new SquareMatrix(values, size);
+    }
+
+    /**
+     * Returns the real block diagonal eigenvalue matrix D, with AV = VD.
+     * Real eigenvalues lie on the diagonal, and each complex pair a +- bi forms the block [a b; -b a].
+     *
+     * @return The eigenvalue matrix
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public SquareMatrix getD() {
+        requireCurrent();
+        double[] values = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            values[i * size + i] = real[i];
+            if (imaginary[i] > 0) {
+                values[i * size + i + 1] = imaginary[i];
+            } else if (imaginary[i] < 0) {
+                values[i * size + i - 1] = imaginary[i];
+            }
+        }
+        return new SquareMatrix(values, size);
+    }
+
+
+
+    // Symmetric algorithm
+    /**
+     * Reduces a symmetric matrix to tridiagonal form by Householder reflections (tred2 of EISPACK, as in JAMA).
+     * On return d holds the diagonal, e[1..n-1] the subdiagonal, and a the orthogonal transformation, column by column.
+     */
+    private static void tridiagonalize(double[][] V, double[] d, double[] e) {
+        int n = d.length;
+        for (int j = 0; j < n; j++) {
+            d[j] = V[n - 1][j];
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            // Scale to avoid under/overflow
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+                scale += Math.abs(d[k]);
+            }
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = V[i - 1][j];
+                    V[i][j] = 0.0;
+                    V[j][i] = 0.0;
+                }
+            } else {
+                // Generate the Householder vector
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) {
+                    g = -g;
+                }
+                e[i] = scale * g;
+                h = h - f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0.0;
+                }
+
+                // Apply the similarity transformation to the remaining columns
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    V[j][i] = f;
+                    g = e[j] + V[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += V[k][j] * d[k];
+                        e[k] += V[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        V[k][j] -= (f * e[k] + g * d[k]);
+                    }
+                    d[j] = V[i - 1][j];
+                    V[i][j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        // Accumulate the transformations
+        for (int i = 0; i < n - 1; i++) {
+            V[n - 1][i] = V[i][i];
+            V[i][i] = 1.0;
+            double h = d[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = V[k][i + 1] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) {
+                        g += V[k][i + 1] * V[k][j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        V[k][j] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                V[k][i + 1] = 0.0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = V[n - 1][j];
+            V[n - 1][j] = 0.0;
+        }
+        V[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+
+    /**
+     * Diagonalizes a symmetric tridiagonal matrix with the implicit QL algorithm (tql2 of EISPACK, as in JAMA).
+     * On entry d holds the diagonal and e[1..n-1] the subdiagonal, and z[j] is the j-th column of the transformation
+     * accumulated so far (the identity for a bare tridiagonal matrix). On return d holds the eigenvalues in ascending order
+     * and z[j] the eigenvector of d[j]. Since z is indexed by columns, every rotation updates two contiguous rows.
+     *
+     * @param d The diagonal, replaced by the eigenvalues
+     * @param e The subdiagonal in e[1..n-1], destroyed
+     * @param z The columns of the accumulated transformation, replaced by the eigenvectors
+     */
+    static void tql2(double[] d, double[] e, double[][] z) {
+        int n = d.length;
+        for (int i = 1; i < n; i++) {
+            e[i - 1] = e[i];
+        }
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        double eps = Math.ulp(1.0);
+        for (int l = 0; l < n; l++) {
+            // Find a small subdiagonal element
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1 && Math.abs(e[m]) > eps * tst1) {
+                m++;
+            }
+
+            // If m == l, d[l] is already an eigenvalue, otherwise iterate
+            if (m > l) {
+                do {
+                    // Compute the implicit shift
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f = f + h;
+
+                    // Implicit QL transformation
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        // Accumulate the rotation
+                        double[] zi = z[i];
+                        double[] zi1 = z[i + 1];
+                        for (int k = 0; k < zi.length; k++) {
+                            h = zi1[k];
+                            zi1[k] = s * zi[k] + c * h;
+                            zi[k] = c * zi[k] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+
+        // Sort the eigenvalues and eigenvectors in ascending order
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                double[] temp = z[i];
+                z[i] = z[k];
+                z[k] = temp;
+            }
+        }
+    }
+
+
+
+    // General algorithm
+    /**
+     * Reduces a general matrix to upper Hessenberg form by orthogonal similarity transformations (orthes of EISPACK, as in JAMA),
+     * and accumulates the transformations into V.
+     */
+    private static void hessenberg(double[][] H, double[][] V) {
+        int n = H.length;
+        int high = n - 1;
+        double[] ort = new double[n];
+        double[] f = new double[n];
+
+        for (int m = 1; m <= high - 1; m++) {
+            // Scale the column
+            double scale = 0.0;
+            for (int i = m; i <= high; i++) {
+                scale += Math.abs(H[i][m - 1]);
+            }
+            if (scale != 0.0) {
+                // Compute the Householder transformation
+                double h = 0.0;
+                for (int i = high; i >= m; i--) {
+                    ort[i] = H[i][m - 1] / scale;
+                    h += ort[i] * ort[i];
+                }
+                double g = Math.sqrt(h);
+                if (ort[m] > 0) {
+                    g = -g;
+                }
+                h = h - ort[m] * g;
+                ort[m] = ort[m] - g;
+
+                // Apply it from the left, H = (I - u u^T / h) H, accumulating u^T H along the rows
+                Arrays.fill(f, m, n, 0.0);
+                for (int i = m; i <= high; i++) {
+                    double o = ort[i];
+                    double[] row = H[i];
+                    for (int j = m; j < n; j++) {
+                        f[j] += o * row[j];
+                    }
+                }
+                for (int i = m; i <= high; i++) {
+                    double o = ort[i] / h;
+                    double[] row = H[i];
+                    for (int j = m; j < n; j++) {
+                        row[j] -= f[j] * o;
+                    }
+                }
+
+                // Apply it from the right, H = H (I - u u^T / h)
+                for (int i = 0; i <= high; i++) {
+                    double[] row = H[i];
+                    double sum = 0.0;
+                    for (int j = high; j >= m; j--) {
+                        sum += ort[j] * row[j];
+                    }
+                    sum = sum / h;
+                    for (int j = m; j <= high; j++) {
+                        row[j] -= sum * ort[j];
+                    }
+                }
+                ort[m] = scale * ort[m];
+                H[m][m - 1] = scale * g;
+            }
+        }
+
+        // Accumulate the transformations
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(V[i], 0.0);
+            V[i][i] = 1.0;
+        }
+        for (int m = high - 1; m >= 1; m--) {
+            if (H[m][m - 1] != 0.0) {
+                for (int i = m + 1; i <= high; i++) {
+                    ort[i] = H[i][m - 1];
+                }
+                Arrays.fill(f, m, high + 1, 0.0);
+                for (int i = m; i <= high; i++) {
+                    double o = ort[i];
+                    double[] row = V[i];
+                    for (int j = m; j <= high; j++) {
+                        f[j] += o * row[j];
+                    }
+                }
+                for (int j = m; j <= high; j++) {
+                    // Double division avoids possible underflow
+                    f[j] = (f[j] / ort[m]) / H[m][m - 1];
+                }
+                for (int i = m; i <= high; i++) {
+                    double o = ort[i];
+                    double[] row = V[i];
+                    for (int j = m; j <= high; j++) {
+                        row[j] += f[j] * o;
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reduces an upper Hessenberg matrix to real Schur form with the shifted double-step QR algorithm,
+     * then computes the eigenvectors by back substitution (hqr2 of EISPACK, as in JAMA).
+     * On return d and e hold the real and imaginary parts of the eigenvalues and V the eigenvectors, column by column.
+     */
+    private static void schur(double[][] H, double[][] V, double[] d, double[] e) {
+        int nn = H.length;
+        int n = nn - 1;
+        double eps = Math.ulp(1.0);
+        double exshift = 0.0;
+        double p = 0, q = 0, r = 0, s = 0, z = 0, t, w, x, y;
+
+        // Matrix norm, used to decide when a subdiagonal entry is negligible
+        double norm = 0.0;
+        for (int i = 0; i < nn; i++) {
+            for (int j = Math.max(i - 1, 0); j < nn; j++) {
+                norm += Math.abs(H[i][j]);
+            }
+        }
+
+        // Outer loop over the eigenvalue index
+        int iter = 0;
+        while (n >= 0) {
+            // Look for a single small subdiagonal element
+            int l = n;
+            while (l > 0) {
+                s = Math.abs(H[l - 1][l - 1]) + Math.abs(H[l][l]);
+                if (s == 0.0) {
+                    s = norm;
+                }
+                if (Math.abs(H[l][l - 1]) < eps * s) {
+                    break;
+                }
+                l--;
+            }
+
+            if (l == n) {
+                // One root found
+                H[n][n] = H[n][n] + exshift;
+                d[n] = H[n][n];
+                e[n] = 0.0;
+                n--;
+                iter = 0;
+            } else if (l == n - 1) {
+                // Two roots found
+                w = H[n][n - 1] * H[n - 1][n];
+                p = (H[n - 1][n - 1] - H[n][n]) / 2.0;
+                q = p * p + w;
+                z = Math.sqrt(Math.abs(q));
+                H[n][n] = H[n][n] + exshift;
+                H[n - 1][n - 1] = H[n - 1][n - 1] + exshift;
+                x = H[n][n];
+
+                if (q >= 0) {
+                    // Real pair
+                    z = p >= 0 ? p + z : p - z;
+                    d[n - 1] = x + z;
+                    d[n] = d[n - 1];
+                    if (z != 0.0) {
+                        d[n] = x - w / z;
+                    }
+                    e[n - 1] = 0.0;
+                    e[n] = 0.0;
+                    x = H[n][n - 1];
+                    s = Math.abs(x) + Math.abs(z);
+                    p = x / s;
+                    q = z / s;
+                    r = Math.sqrt(p * p + q * q);
+                    p = p / r;
+                    q = q / r;
+
+                    // Row modification
+                    for (int j = n - 1; j < nn; j++) {
+                        z = H[n - 1][j];
+                        H[n - 1][j] = q * z + p * H[n][j];
+                        H[n][j] = q * H[n][j] - p * z;
+                    }
+                    // Column modification
+                    for (int i = 0; i <= n; i++) {
+                        z = H[i][n - 1];
+                        H[i][n - 1] = q * z + p * H[i][n];
+                        H[i][n] = q * H[i][n] - p * z;
+                    }
+                    // Accumulate transformations
+                    for (int i = 0; i < nn; i++) {
+                        z = V[i][n - 1];
+                        V[i][n - 1] = q * z + p * V[i][n];
+                        V[i][n] = q * V[i][n] - p * z;
+                    }
+                } else {
+                    // Complex pair
+                    d[n - 1] = x + p;
+                    d[n] = x + p;
+                    e[n - 1] = z;
+                    e[n] = -z;
+                }
+                n = n - 2;
+                iter = 0;
+            } else {
+                // No convergence yet, form the shift
+                x = H[n][n];
+                y = 0.0;
+                w = 0.0;
+                if (l < n) {
+                    y = H[n - 1][n - 1];
+                    w = H[n][n - 1] * H[n - 1][n];
+                }
+
+                // Wilkinson's original ad hoc shift
+                if (iter == 10) {
+                    exshift += x;
+                    for (int i = 0; i <= n; i++) {
+                        H[i][i] -= x;
+                    }
+                    s = Math.abs(H[n][n - 1]) + Math.abs(H[n - 1][n - 2]);
+                    x = y = 0.75 * s;
+                    w = -0.4375 * s * s;
+                }
+
+                // MATLAB's new ad hoc shift
+                if (iter == 30) {
+                    s = (y - x) / 2.0;
+                    s = s * s + w;
+                    if (s > 0) {
+                        s = Math.sqrt(s);
+                        if (y < x) {
+                            s = -s;
+                        }
+                        s = x - w / ((y - x) / 2.0 + s);
+                        for (int i = 0; i <= n; i++) {
+                            H[i][i] -= s;
+                        }
+                        exshift += s;
+                        x = y = w = 0.964;
+                    }
+                }
+
+                iter = iter + 1;
+                if (iter > MAX_QR_ITERATIONS) {
+                    throw new UnsupportedOperationException("The QR algorithm did not converge.");
+                }
+
+                // Look for two consecutive small subdiagonal elements
+                int m = n - 2;
+                while (m >= l) {
+                    z = H[m][m];
+                    r = x - z;
+                    s = y - z;
+                    p = (r * s - w) / H[m + 1][m] + H[m][m + 1];
+                    q = H[m + 1][m + 1] - z - r - s;
+                    r = H[m + 2][m + 1];
+                    s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                    p = p / s;
+                    q = q / s;
+                    r = r / s;
+                    if (m == l) {
+                        break;
+                    }
+                    if (Math.abs(H[m][m - 1]) * (Math.abs(q) + Math.abs(r))
+                            < eps * (Math.abs(p) * (Math.abs(H[m - 1][m - 1]) + Math.abs(z) + Math.abs(H[m + 1][m + 1])))) {
+                        break;
+                    }
+                    m--;
+                }
+
+                for (int i = m + 2; i <= n; i++) {
+                    H[i][i - 2] = 0.0;
+                    if (i > m + 2) {
+                        H[i][i - 3] = 0.0;
+                    }
+                }
+
+                // Double QR step involving rows l:n and columns m:n
+                for (int k = m; k <= n - 1; k++) {
+                    boolean notlast = (k != n - 1);
+                    if (k != m) {
+                        p = H[k][k - 1];
+                        q = H[k + 1][k - 1];
+                        r = notlast ? H[k + 2][k - 1] : 0.0;
+                        x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                        if (x == 0.0) {
+                            continue;
+                        }
+                        p = p / x;
+                        q = q / x;
+                        r = r / x;
+                    }
+
+                    s = Math.sqrt(p * p + q * q + r * r);
+                    if (p < 0) {
+                        s = -s;
+                    }
+                    if (s != 0) {
+                        if (k != m) {
+                            H[k][k - 1] = -s * x;
+                        } else if (l != m) {
+                            H[k][k - 1] = -H[k][k - 1];
+                        }
+                        p = p + s;
+                        x = p / s;
+                        y = q / s;
+                        z = r / s;
+                        q = q / p;
+                        r = r / p;
+
+                        // Row modification
+                        for (int j = k; j < nn; j++) {
+                            p = H[k][j] + q * H[k + 1][j];
+                            if (notlast) {
+                                p = p + r * H[k + 2][j];
+                                H[k + 2][j] = H[k + 2][j] - p * z;
+                            }
+                            H[k][j] = H[k][j] - p * x;
+                            H[k + 1][j] = H[k + 1][j] - p * y;
+                        }
+
+                        // Column modification
+                        for (int i = 0; i <= Math.min(n, k + 3); i++) {
+                            p = x * H[i][k] + y * H[i][k + 1];
+                            if (notlast) {
+                                p = p + z * H[i][k + 2];
+                                H[i][k + 2] = H[i][k + 2] - p * r;
+                            }
+                            H[i][k] = H[i][k] - p;
+                            H[i][k + 1] = H[i][k + 1] - p * q;
+                        }
+
+                        // Accumulate transformations
+                        for (int i = 0; i < nn; i++) {
+                            p = x * V[i][k] + y * V[i][k + 1];
+                            if (notlast) {
+                                p = p + z * V[i][k + 2];
+                                V[i][k + 2] = V[i][k + 2] - p * r;
+                            }
+                            V[i][k] = V[i][k] - p;
+                            V[i][k + 1] = V[i][k + 1] - p * q;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Back substitute to find the vectors of the upper triangular form
+        if (norm == 0.0) {
+            return;
+        }
+        double[] quotient = new double[2];
+        for (n = nn - 1; n >= 0; n--) {
+            p = d[n];
+            q = e[n];
+
+            if (q == 0) {
+                // Real vector
+                int l = n;
+                H[n][n] = 1.0;
+                for (int i = n - 1; i >= 0; i--) {
+                    w = H[i][i] - p;
+                    r = 0.0;
+                    for (int j = l; j <= n; j++) {
+                        r = r + H[i][j] * H[j][n];
+                    }
+                    if (e[i] < 0.0) {
+                        z = w;
+                        s = r;
+                    } else {
+                        l = i;
+                        if (e[i] == 0.0) {
+                            H[i][n] = w != 0.0 ? -r / w : -r / (eps * norm);
+                        } else {
+                            // Solve the real equations
+                            x = H[i][i + 1];
+                            y = H[i + 1][i];
+                            q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+                            t = (x * s - z * r) / q;
+                            H[i][n] = t;
+                            H[i + 1][n] = Math.abs(x) > Math.abs(z) ? (-r - w * t) / x : (-s - y * t) / z;
+                        }
+
+                        // Overflow control
+                        t = Math.abs(H[i][n]);
+                        if ((eps * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                H[j][n] = H[j][n] / t;
+                            }
+                        }
+                    }
+                }
+            } else if (q < 0) {
+                // Complex vector, the last component imaginary so that the matrix is triangular
+                int l = n - 1;
+                if (Math.abs(H[n][n - 1]) > Math.abs(H[n - 1][n])) {
+                    H[n - 1][n - 1] = q / H[n][n - 1];
+                    H[n - 1][n] = -(H[n][n] - p) / H[n][n - 1];
+                } else {
+                    divide(0.0, -H[n - 1][n], H[n - 1][n - 1] - p, q, quotient);
+                    H[n - 1][n - 1] = quotient[0];
+                    H[n - 1][n] = quotient[1];
+                }
+                H[n][n - 1] = 0.0;
+                H[n][n] = 1.0;
+                for (int i = n - 2; i >= 0; i--) {
+                    double ra = 0.0;
+                    double sa = 0.0;
+                    for (int j = l; j <= n; j++) {
+                        ra = ra + H[i][j] * H[j][n - 1];
+                        sa = sa + H[i][j] * H[j][n];
+                    }
+                    w = H[i][i] - p;
+
+                    if (e[i] < 0.0) {
+                        z = w;
+                        r = ra;
+                        s = sa;
+                    } else {
+                        l = i;
+                        if (e[i] == 0) {
+                            divide(-ra, -sa, w, q, quotient);
+                            H[i][n - 1] = quotient[0];
+                            H[i][n] = quotient[1];
+                        } else {
+                            // Solve the complex equations
+                            x = H[i][i + 1];
+                            y = H[i + 1][i];
+                            double vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+                            double vi = (d[i] - p) * 2.0 * q;
+                            if (vr == 0.0 && vi == 0.0) {
+                                vr = eps * norm * (Math.abs(w) + Math.abs(q) + Math.abs(x) + Math.abs(y) + Math.abs(z));
+                            }
+                            divide(x * r - z * ra + q * sa, x * s - z * sa - q * ra, vr, vi, quotient);
+                            H[i][n - 1] = quotient[0];
+                            H[i][n] = quotient[1];
+                            if (Math.abs(x) > (Math.abs(z) + Math.abs(q))) {
+                                H[i + 1][n - 1] = (-ra - w * H[i][n - 1] + q * H[i][n]) / x;
+                                H[i + 1][n] = (-sa - w * H[i][n] - q * H[i][n - 1]) / x;
+                            } else {
+                                divide(-r - y * H[i][n - 1], -s - y * H[i][n], z, q, quotient);
+                                H[i + 1][n - 1] = quotient[0];
+                                H[i + 1][n] = quotient[1];
+                            }
+                        }
+
+                        // Overflow control
+                        t = Math.max(Math.abs(H[i][n - 1]), Math.abs(H[i][n]));
+                        if ((eps * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                H[j][n - 1] = H[j][n - 1] / t;
+                                H[j][n] = H[j][n] / t;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Back transformation to get the eigenvectors of the original matrix
+        double[] column = new double[nn];
+        for (int j = nn - 1; j >= 0; j--) {
+            for (int k = 0; k <= j; k++) {
+                column[k] = H[k][j];
+            }
+            for (int i = 0; i < nn; i++) {
+                double[] row = V[i];
+                double sum = 0.0;
+                for (int k = 0; k <= j; k++) {
+                    sum += row[k] * column[k];
+                }
+                row[j] = sum;
+            }
+        }
+    }
+
+
+    // Complex scalar division (xr + i xi) / (yr + i yi), scaled by the larger part of the divisor
+    private static void divide(double xr, double xi, double yr, double yi, double[] result) {
+        double ratio, denominator;
+        if (Math.abs(yr) > Math.abs(yi)) {
+            ratio = yi / yr;
+            denominator = yr + ratio * yi;
+            result[0] = (xr + ratio * xi) / denominator;
+            result[1] = (xi - ratio * xr) / denominator;
+        } else {
+            ratio = yr / yi;
+            denominator = yi + ratio * yr;
+            result[0] = (ratio * xr + xi) / denominator;
+            result[1] = (ratio * xi - xr) / denominator;
+        }
+    }
+
+
+    private static double[][] transpose(double[][] a) {
+        int n = a.length;
+        double[][] result = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                result[j][i] = a[i][j];
+            }
+        }
+        return result;
+    }
+
+
+    private void requireCurrent() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+    }
+
+
+}
@@ -0,0 +1,443 @@
+package am.aua.linalg.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The FFT class computes discrete Fourier transforms in O(n log n) time.
+ * The forward transform is X[k] = sum over j of x[j] e^(-2 pi i jk / n), and the inverse transform divides by n,
+ * so inverse(transform(x)) gives back x.
+ * Lengths that are powers of two use the iterative radix-2 algorithm, and all other lengths use Bluestein's algorithm,
+ * which rewrites the transform as a convolution of power-of-two length.
+ * The transforms run in place on the interleaved arrays of ComplexVector, without creating ComplexNumber objects,
+ * and the twiddle factors, bit-reversal permutations and Bluestein chirps are computed once per length and cached.
+ */
+public final class FFT {
+
+    // Tables cached per transform length
+    private static final Map<Integer, double[]> TWIDDLES = new ConcurrentHashMap<>();
+    private static final Map<Integer, int[]> REVERSALS = new ConcurrentHashMap<>();
+    private static final Map<Integer, Bluestein> BLUESTEINS = new ConcurrentHashMap<>();
+
+
+    private FFT() {
+    }
+
+
+
+    // Complex transforms
+    /**
+     * Computes the discrete Fourier transform of a complex vector.
+     *
+     * @param x The vector to transform, of any length
+     * @return The spectrum of x, with as many elements as x
+     */
+    public static ComplexVector transform(ComplexVector x) {
+        ComplexVector result = new ComplexVector(x.getLength());
+        System.arraycopy(x.data(), 0, result.data(), 0, x.data().length);
+        forward(result.data(), x.getLength());
+        return result;
+    }
+
+
+    /**
+     * Computes the inverse discrete Fourier transform of a complex spectrum.
+     *
+     * @param X The spectrum to transform back, of any length
+     * @return The vector whose spectrum is X, with as many elements as X
+     */
+    public static ComplexVector inverse(ComplexVector X) {
+        ComplexVector result = new ComplexVector(X.getLength());
+        System.arraycopy(X.data(), 0, result.data(), 0, X.data().length);
+        backward(result.data(), X.getLength());
+        return result;
+    }
+
+
+    /**
+     * Replaces a complex vector by its discrete Fourier transform, without allocating a result.
+     *
+     * @param x The vector to transform in place
+     */
+    public static void transformInPlace(ComplexVector x) {
+        forward(x.data(), x.getLength());
+    }
+
+
+    /**
+     * Replaces a complex spectrum by its inverse discrete Fourier transform, without allocating a result.
+     *
+     * @param X The spectrum to transform back in place
+     */
+    public static void inverseInPlace(ComplexVector X) {
+        backward(X.data(), X.getLength());
+    }
+
+
+
+    // Real transforms
+    /**
+     * Computes the discrete Fourier transform of a real vector.
+     * The spectrum of a real vector is conjugate-symmetric, X[n - k] = conj(X[k]), so only its first n / 2 + 1 elements are returned.
+     * For even lengths the transform packs the even and odd entries into one complex vector of half the length,
+     * which takes about half the work of a complex transform.
+     *
+     * @param x The real vector to transform
+     * @return The elements 0 to n / 2 of the spectrum of x
+     */
+    public static ComplexVector realTransform(Vector x) {
+        double[] values = x.array();
+        int offset = x.offset();
+        int n = x.length();
+        if (n == 0) {
+            return new ComplexVector();
+        }
+        ComplexVector result = new ComplexVector(n / 2 + 1);
+        double[] spectrum = result.data();
+
+        if (n % 2 != 0) {
+            // Odd lengths cannot be packed, so take the complex transform and keep its first half
+            double[] work = new double[2 * n];
+            for (int j = 0; j < n; j++) {
+                work[2 * j] = values[offset + j];
+            }
+            forward(work, n);
+            System.arraycopy(work, 0, spectrum, 0, spectrum.length);
+            return result;
+        }
+
+        // Transform z[j] = x[2j] + i x[2j + 1], whose spectrum holds those of the even and the odd entries
+        int half = n / 2;
+        double[] z = x.getElements();
+        forward(z, half);
+
+        // Split the two spectra, X[k] = E[k] + w^k O[k] with w = e^(-2 pi i / n)
+        double[] w = twiddles(n);
+        for (int k = 0; k <= half; k++) {
+            int p = 2 * (k % half);
+            int q = 2 * ((half - k) % half);
+            double zr = z[p], zi = z[p + 1];
+            double cr = z[q], ci = -z[q + 1];    // conj(Z[half - k])
+            double er = 0.5 * (zr + cr), ei = 0.5 * (zi + ci);
+            double or = 0.5 * (zi - ci), oi = -0.5 * (zr - cr);
+            double wr = w[2 * k], wi = w[2 * k + 1];
+            spectrum[2 * k] = er + wr * or - wi * oi;
+            spectrum[2 * k + 1] = ei + wr * oi + wi * or;
+        }
+        return result;
+    }
+
+
+    /**
+     * Computes the real vector of length n whose spectrum starts with the given elements, inverting realTransform.
+     * The missing half of the spectrum is taken to be conjugate-symmetric, and imaginary parts that a real vector
+     * cannot produce are ignored.
+     *
+     * @param spectrum The elements 0 to n / 2 of the spectrum
+     * @param n The length of the real vector
+     * @return The real vector whose spectrum starts with the given elements
+     * @throws IllegalArgumentException If the spectrum does not have n / 2 + 1 elements, or none when n is 0
+     */
+    public static Vector inverseRealTransform(ComplexVector spectrum, int n) {
+        if (n == 0 && spectrum.getLength() == 0) {
+            return new Vector();
+        }
+        if (spectrum.getLength() != n / 2 + 1) {
+            throw new IllegalArgumentException("The spectrum of a real vector of length n must have n / 2 + 1 elements.");
+        }
+        double[] X = spectrum.data();
+
+        if (n % 2 != 0) {
+            // Rebuild the conjugate-symmetric spectrum and take the complex inverse
+            double[] work = new double[2 * n];
+            System.arraycopy(X, 0, work, 0, X.length);
+            for (int k = n / 2 + 1; k < n; k++) {
+                work[2 * k] = X[2 * (n - k)];
+                work[2 * k + 1] = -X[2 * (n - k) + 1];
+            }
+            backward(work, n);
+            double[] result = new double[n];
+            for (int j = 0; j < n; j++) {
+                result[j] = work[2 * j];
+            }
+            return new Vector(result);
+        }
+
+        // Merge the spectra of the even and the odd entries into that of z[j] = x[2j] + i x[2j + 1]
+        int half = n / 2;
+        double[] w = twiddles(n);
+        double[] z = new double[n];
+        for (int k = 0; k < half; k++) {
+            double xr = X[2 * k], xi = X[2 * k + 1];
+            double cr = X[2 * (half - k)], ci = -X[2 * (half - k) + 1];    // conj(X[half - k])
+            double er = 0.5 * (xr + cr), ei = 0.5 * (xi + ci);
+            double dr = 0.5 * (xr - cr), di = 0.5 * (xi - ci);
+            double wr = w[2 * k], wi = -w[2 * k + 1];                       // conj(w^k)
+            double or = dr * wr - di * wi, oi = dr * wi + di * wr;
+            z[2 * k] = er - oi;
+            z[2 * k + 1] = ei + or;
+        }
+        backward(z, half);
+        return new Vector(z);
+    }
+
+
+
+    // Convolution
+    /**
+     * Computes the linear convolution of two real vectors, c[k] = sum over j of a[j] b[k - j], through their spectra.
+     * This takes O(n log n) time instead of the O(n^2) of the direct sum.
+     *
+     * @param a The first vector
+     * @param b The second vector
+     * @return The convolution of a and b, with a.length + b.length - 1 elements
+     */
+    public static Vector convolve(Vector a, Vector b) {
+        int lengthA = a.length(), lengthB = b.length();
+        if (lengthA == 0 || lengthB == 0) {
+            return new Vector();
+        }
+        int length = lengthA + lengthB - 1;
+        int n = nextPowerOfTwo(length);
+
+        ComplexVector spectrumA = realTransform(Vector.wrap(padded(a, n)));
+        ComplexVector spectrumB = realTransform(Vector.wrap(padded(b, n)));
+        multiplyPointwise(spectrumA.data(), spectrumB.data());
+        double[] full = inverseRealTransform(spectrumA, n).data();
+
+        double[] result = new double[length];
+        System.arraycopy(full, 0, result, 0, length);
+        return new Vector(result);
+    }
+
+
+    /**
+     * Computes the linear convolution of two complex vectors, c[k] = sum over j of a[j] b[k - j], through their spectra.
+     *
+     * @param a The first vector
+     * @param b The second vector
+     * @return The convolution of a and b, with a.getLength() + b.getLength() - 1 elements
+     */
+    public static ComplexVector convolve(ComplexVector a, ComplexVector b) {
+        if (a.getLength() == 0 || b.getLength() == 0) {
+            return new ComplexVector();
+        }
+        int length = a.getLength() + b.getLength() - 1;
+        int n = nextPowerOfTwo(length);
+
+        double[] spectrumA = padded(a.data(), 2 * n);
+        double[] spectrumB = padded(b.data(), 2 * n);
+        radix2(spectrumA, n);
+        radix2(spectrumB, n);
+        multiplyPointwise(spectrumA, spectrumB);
+        backward(spectrumA, n);
+
+        ComplexVector result = new ComplexVector(length);
+        System.arraycopy(spectrumA, 0, result.data(), 0, 2 * length);
+        return result;
+    }
+
+
+    /**
+     * Clears the tables cached for the transform lengths used so far.
+     */
+    public static void clearCache() {
+        TWIDDLES.clear();
+        REVERSALS.clear();
+        BLUESTEINS.clear();
+    }
+
+
+
+    // Kernels on interleaved arrays
+    /**
+     * Replaces the first n interleaved complex values of a by their discrete Fourier transform.
+     *
+     * @param a The interleaved array, real part of element k at 2k and imaginary part at 2k + 1
+     * @param n The number of complex elements to transform
+     */
+    static void forward(double[] a, int n) {
+        if (n <= 1) {
+            return;
+        }
+        if ((n & (n - 1)) == 0) {
+            radix2(a, n);
+        } else {
+            bluestein(a, n);
+        }
+    }
+
+
+    /**
+     * Replaces the first n interleaved complex values of a by their inverse discrete Fourier transform,
+     * computed as conj(transform(conj(a))) / n.
+     *
+     * @param a The interleaved array, real part of element k at 2k and imaginary part at 2k + 1
+     * @param n The number of complex elements to transform
+     */
+    static void backward(double[] a, int n) {
+        if (n == 0) {
+            return;
+        }
+        conjugate(a, n);
+        forward(a, n);
+        double scale = 1.0 / n;
+        for (int k = 0; k < 2 * n; k += 2) {
+            a[k] *= scale;
+            a[k + 1] *= -scale;
+        }
+    }
+
+
+    // In-place iterative radix-2 transform of a power-of-two length n
+    private static void radix2(double[] a, int n) {
+        // Put the elements in bit-reversed order, so that every stage combines neighbouring blocks
+        int[] reversal = REVERSALS.computeIfAbsent(n, FFT::bitReversal);
+        for (int i = 0; i < n; i++) {
+            int j = reversal[i];
+            if (i < j) {
+                double re = a[2 * i], im = a[2 * i + 1];
+                a[2 * i] = a[2 * j];
+                a[2 * i + 1] = a[2 * j + 1];
+                a[2 * j] = re;
+                a[2 * j + 1] = im;
+            }
+        }
+
+        // Butterflies: each stage merges pairs of transforms of length half into transforms of length 2 * half
+        double[] w = twiddles(n);
+        for (int half = 1; half < n; half <<= 1) {
+            int step = n / (2 * half);    // Stride through the twiddle table of length n
+            for (int start = 0; start < n; start += 2 * half) {
+                for (int k = 0; k < half; k++) {
+                    double wr = w[2 * k * step], wi = w[2 * k * step + 1];
+                    int p = 2 * (start + k);
+                    int q = p + 2 * half;
+                    double tr = a[q] * wr - a[q + 1] * wi;
+                    double ti = a[q] * wi + a[q + 1] * wr;
+                    a[q] = a[p] - tr;
+                    a[q + 1] = a[p + 1] - ti;
+                    a[p] += tr;
+                    a[p + 1] += ti;
+                }
+            }
+        }
+    }
+
+
+    // In-place transform of any length n with Bluestein's algorithm:
+    // since jk = (j^2 + k^2 - (k - j)^2) / 2, the transform is a chirp times the convolution of chirped x with the conjugate chirp
+    private static void bluestein(double[] a, int n) {
+        Bluestein plan = BLUESTEINS.computeIfAbsent(n, Bluestein::new);
+        double[] chirp = plan.chirp;
+        int m = plan.length;
+
+        double[] work = new double[2 * m];
+        for (int k = 0; k < 2 * n; k += 2) {
+            work[k] = a[k] * chirp[k] - a[k + 1] * chirp[k + 1];
+            work[k + 1] = a[k] * chirp[k + 1] + a[k + 1] * chirp[k];
+        }
+        radix2(work, m);
+        multiplyPointwise(work, plan.kernel);
+        backward(work, m);
+        for (int k = 0; k < 2 * n; k += 2) {
+            a[k] = work[k] * chirp[k] - work[k + 1] * chirp[k + 1];
+            a[k + 1] = work[k] * chirp[k + 1] + work[k + 1] * chirp[k];
+        }
+    }
+
+
+    // Returns the twiddle factors w^k = e^(-2 pi i k / n) for k = 0 to n / 2, interleaved, computed once per length
+    private static double[] twiddles(int n) {
+        return TWIDDLES.computeIfAbsent(n, length -> {
+            double[] w = new double[2 * (length / 2 + 1)];
+            for (int k = 0; k <= length / 2; k++) {
+                double angle = -2 * Math.PI * k / length;
+                w[2 * k] = Math.cos(angle);
+                w[2 * k + 1] = Math.sin(angle);
+            }
+            return w;
+        });
+    }
+
+
+    // Returns the bit-reversal permutation of a power-of-two length n
+    private static int[] bitReversal(int n) {
+        int[] reversal = new int[n];
+        int bits = Integer.numberOfTrailingZeros(n);
+        for (int i = 0; i < n; i++) {
+            reversal[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        return reversal;
+    }
+
+
+    // Multiplies the interleaved complex values of a by those of b, element by element
+    private static void multiplyPointwise(double[] a, double[] b) {
+        for (int k = 0; k < a.length; k += 2) {
+            double re = a[k] * b[k] - a[k + 1] * b[k + 1];
+            a[k + 1] = a[k] * b[k + 1] + a[k + 1] * b[k];
+            a[k] = re;
+        }
+    }
+
+
+    private static void conjugate(double[] a, int n) {
+        for (int k = 1; k < 2 * n; k += 2) {
+            a[k] = -a[k];
+        }
+    }
+
+
+    private static double[] padded(double[] values, int length) {
+        double[] result = new double[length];
+        System.arraycopy(values, 0, result, 0, values.length);
+        return result;
+    }
+
+
+    private static double[] padded(Vector x, int length) {
+        double[] result = new double[length];
+        System.arraycopy(x.array(), x.offset(), result, 0, x.length());
+        return result;
+    }
+
+
+    private static int nextPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+
+
+    /**
+     * The tables of Bluestein's algorithm for one transform length n:
+     * the chirp e^(-pi i k^2 / n) and the transform of its conjugate, laid out for a circular convolution of power-of-two length.
+     */
+    private static class Bluestein {
+
+        private final int length;         // Power-of-two length of the convolution, at least 2n - 1
+        private final double[] chirp;     // Interleaved e^(-pi i k^2 / n) for k = 0 to n - 1
+        private final double[] kernel;    // Interleaved transform of the conjugate chirp, wrapped around for negative indices
+
+        Bluestein(int n) {
+            this.length = nextPowerOfTwo(2 * n - 1);
+            this.chirp = new double[2 * n];
+            this.kernel = new double[2 * length];
+            for (int k = 0; k < n; k++) {
+                // Reduce k^2 modulo 2n first, so the angle stays accurate for large k
+                double angle = -Math.PI * ((long) k * k % (2L * n)) / n;
+                chirp[2 * k] = Math.cos(angle);
+                chirp[2 * k + 1] = Math.sin(angle);
+                kernel[2 * k] = chirp[2 * k];
+                kernel[2 * k + 1] = -chirp[2 * k + 1];
+                if (k > 0) {
+                    kernel[2 * (length - k)] = chirp[2 * k];
+                    kernel[2 * (length - k) + 1] = -chirp[2 * k + 1];
+                }
+            }
+            radix2(kernel, length);
+        }
+    }
+
+
+}
@@ -0,0 +1,179 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Solves general (nonsymmetric) systems Ax = b with the restarted generalized minimal residual method, GMRES(m).
+ * Each cycle builds an orthonormal basis of up to m Krylov vectors with the Arnoldi process and picks the
+ * combination of them that minimizes the residual, so the residual never grows within a cycle.
+ * Memory grows with the restart length m, after which the method starts over from the current solution.
+ * The preconditioner, if any, is applied on the right, so the recorded residuals are those of the original system.
+ */
+public class GMRESSolver extends IterativeSolver {
+
+    // Default settings
+    public static final int DEFAULT_RESTART = 30;
+
+    // Instance variables
+    private int restart;    // Number of Krylov vectors built before the method restarts
+
+
+    // Constructors
+    /**
+     * Constructs a GMRES solver with the default restart length, tolerance and iteration limit.
+     */
+    public GMRESSolver() {
+        this(DEFAULT_RESTART, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+
+    /**
+     * Constructs a GMRES solver with the given restart length and stopping criteria.
+     *
+     * @param restart The number of Krylov vectors built before the method restarts
+     * @param tolerance The relative residual at which the iteration stops
+     * @param maxIterations The maximum number of iterations per solve, counting every Krylov vector
+     * @throws IllegalArgumentException If the restart length or the iteration limit is less than 1, or the tolerance is negative
+     */
+    public GMRESSolver(int restart, double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+        setRestart(restart);
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Returns the number of Krylov vectors built before the method restarts.
+     *
+     * @return The restart length of this solver
+     */
+    public int getRestart() {
+        return restart;
+    }
+
+    /**
+     * Sets the number of Krylov vectors built before the method restarts.
+     * Longer cycles converge in fewer iterations but store more vectors and cost more per iteration.
+     *
+     * @param restart The new restart length
+     * @throws IllegalArgumentException If the restart length is less than 1
+     */
+    public void setRestart(int restart) {
+        if (restart < 1) {
+            throw new IllegalArgumentException("Restart length must be at least 1.");
+        }
+        this.restart = restart;
+    }
+
+
+
+    @Override
+    void iterate(LinearOperator A, Vector b, Vector x, double bNorm) {
+        int size = b.length();
+        int m = Math.min(restart, size);
+        double[] xValues = x.data();
+
+        // Arnoldi basis, Hessenberg matrix (column j in h[j]), Givens rotations and the rotated residual
+        Vector[] basis = new Vector[m + 1];
+        for (int i = 0; i <= m; i++) {
+            basis[i] = workVector(size);
+        }
+        double[][] h = new double[m][m + 1];
+        double[] cos = new double[m];
+        double[] sin = new double[m];
+        double[] g = new double[m + 1];
+        Vector z = workVector(size);
+        Vector w = workVector(size);
+
+        Vector r = basis[0];
+        residual(A, b, x, r);
+        double beta = norm(r.data());
+        if (record(beta / bNorm)) {
+            return;
+        }
+
+        while (true) {
+            // Start a cycle from the normalized residual
+            double[] v0 = basis[0].data();
+            for (int i = 0; i < size; i++) {
+                v0[i] /= beta;
+            }
+            Arrays.fill(g, 0.0);
+            g[0] = beta;
+
+            int j = 0;
+            boolean done = false;
+            while (j < m && !done) {
+                // Extend the basis with A M^-1 v_j, orthogonalized by modified Gram-Schmidt
+                precondition(basis[j], z);
+                A.apply(z, w);
+                double[] wValues = w.data();
+                double[] column = h[j];
+                for (int i = 0; i <= j; i++) {
+                    double[] vi = basis[i].data();
+                    column[i] = dot(wValues, vi);
+                    axpy(-column[i], vi, wValues);
+                }
+                double subdiagonal = norm(wValues);
+                column[j + 1] = subdiagonal;
+                if (subdiagonal != 0) {
+                    double[] next = basis[j + 1].data();
+                    for (int i = 0; i < size; i++) {
+                        next[i] = wValues[i] / subdiagonal;
+                    }
+                }
+
+                // Apply the previous rotations to the new column, then zero its subdiagonal entry
+                for (int i = 0; i < j; i++) {
+                    double temp = cos[i] * column[i] + sin[i] * column[i + 1];
+                    column[i + 1] = -sin[i] * column[i] + cos[i] * column[i + 1];
+                    column[i] = temp;
+                }
+                double radius = Math.hypot(column[j], column[j + 1]);
+                cos[j] = radius == 0 ? 1 : column[j] / radius;
+                sin[j] = radius == 0 ? 0 : column[j + 1] / radius;
+                column[j] = radius;
+                column[j + 1] = 0;
+                g[j + 1] = -sin[j] * g[j];
+                g[j] = cos[j] * g[j];
+
+                // |g[j + 1]| is the residual norm of the best combination of the basis so far,
+                // and a zero subdiagonal means the Krylov space is invariant and holds the exact solution
+                boolean converged = record(Math.abs(g[j + 1]) / bNorm);
+                j++;
+                done = converged || subdiagonal == 0 || getIterations() >= getMaxIterations();
+            }
+
+            // Solve the triangular least-squares system Hy = g and update x += M^-1 (V y)
+            double[] y = new double[j];
+            for (int i = j - 1; i >= 0; i--) {
+                double sum = g[i];
+                for (int k = i + 1; k < j; k++) {
+                    sum -= h[k][i] * y[k];
+                }
+                y[i] = h[i][i] != 0 ? sum / h[i][i] : 0;
+            }
+            double[] update = w.data();
+            Arrays.fill(update, 0.0);
+            for (int i = 0; i < j; i++) {
+                axpy(y[i], basis[i].data(), update);
+            }
+            precondition(w, z);
+            axpy(1.0, z.data(), xValues);
+
+            if (hasConverged() || getIterations() >= getMaxIterations() || j < m) {
+                return;
+            }
+
+            // Restart from the true residual
+            residual(A, b, x, basis[0]);
+            beta = norm(basis[0].data());
+            if (beta == 0) {
+                return;
+            }
+        }
+    }
+
+
+}
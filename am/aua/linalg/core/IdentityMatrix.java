@@ -4,7 +4,7 @@ package am.aua.linalg.core;
  * The IdentityMatrix class represents an identity matrix.
  * An identity matrix is a square matrix in which all the elements of the main diagonal are ones,
  * and all other elements are zeros.
- * It extends the DiagonalMatrix class.
+ * It extends the DiagonalMatrix class, stores only its diagonal, and cannot be changed into a different matrix.
  */
 public class IdentityMatrix extends DiagonalMatrix{
 
@@ -16,7 +16,7 @@ public class IdentityMatrix extends DiagonalMatrix{
      * @param size the size of the identity matrix (number of rows and columns)
     */    
     public IdentityMatrix(int size) {
-        super(size, initializeDiagonal(size));
+        super(initializeDiagonal(size), size);
     }
 
 
@@ -28,5 +28,80 @@ public class IdentityMatrix extends DiagonalMatrix{
         }
         return diagonal;
 }
+
+
+    /**
+     * Sets the value of a specific entry, which must keep the matrix equal to the identity.
+     *
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     * @throws UnsupportedOperationException If the value would change the identity matrix
+     */
+    @Override
+    public void setEntry(int i, int j, double value) {
+        if (getEntry(i, j) != value) {
+            throw new UnsupportedOperationException("The entries of an identity matrix cannot be changed.");
+        }
+    }
+
+
+    /**
+     * Sets the values of this matrix, which must be the identity matrix of the same size.
+     *
+     * @param array The 2D array containing the new values
+     * @throws UnsupportedOperationException If the array is not the identity matrix of the same size
+     */
+    @Override
+    public void setValue(double[][] array) {
+        if (!equals(new Matrix(array))) {
+            throw new UnsupportedOperationException("The entries of an identity matrix cannot be changed.");
+        }
+    }
+
+
+    @Override
+    public IdentityMatrix clone() {
+        return (IdentityMatrix) super.clone();
+    }
+
+
+
+    // Methods
+    @Override
+    public IdentityMatrix transpose() {
+        return new IdentityMatrix(getSize());
+    }
+
+
+    @Override
+    public double det() {
+        return 1;
+    }
+
+
+    @Override
+    public IdentityMatrix inverse() {
+        return new IdentityMatrix(getSize());
+    }
+
+
+    @Override
+    public IdentityMatrix power(int n) {
+        return new IdentityMatrix(getSize());
+    }
+
+
+    @Override
+    public Matrix solve(Matrix B) {
+        return multiply(B);
+    }
+
+
+    @Override
+    Matrix rightDivide(Matrix A) {
+        return A.clone();
+    }
     
 }
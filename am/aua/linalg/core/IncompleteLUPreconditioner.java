@@ -0,0 +1,114 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the incomplete LU preconditioner with no fill-in, ILU(0).
+ * Gaussian elimination is carried out only on the entries that are stored in A, so L and U together
+ * have the sparsity pattern of A and fit in the same memory, while LU stays close to A.
+ * Applying it costs one forward and one back substitution, i.e. about one matrix-vector product.
+ */
+public class IncompleteLUPreconditioner implements Preconditioner {
+
+    // Instance variables
+    private final int size;            // Size of the factored matrix
+    private final int[] pointers;      // Row pointers of the pattern of A
+    private final int[] indices;       // Column indices of the pattern of A
+    private final double[] factors;    // L below the diagonal (unit diagonal implied) and U on and above it
+    private final int[] diagonal;      // Index of the entry (i, i) of every row in indices and factors
+
+
+    // Constructor
+    /**
+     * Computes the ILU(0) factorization of the given square matrix.
+     * Dense matrices are converted to CSR first, so their pattern is that of their non-zero entries.
+     *
+     * @param A The square matrix to precondition
+     * @throws IllegalArgumentException If A is not square or a diagonal entry is not stored
+     * @throws UnsupportedOperationException If a zero pivot appears during the factorization
+     */
+    public IncompleteLUPreconditioner(Matrix A) {
+        this.size = A.getNumOfRows();
+        if (A.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        CSRMatrix csr = A instanceof SparseMatrix ? ((SparseMatrix) A).toCSR() : new CSRMatrix(A);
+        this.pointers = csr.pointerData().clone();
+        this.indices = csr.indexData().clone();
+        this.factors = csr.valueData().clone();
+
+        // Locate the diagonal of every row
+        this.diagonal = new int[size];
+        for (int i = 0; i < size; i++) {
+            int k = Arrays.binarySearch(indices, pointers[i], pointers[i + 1], i);
+            if (k < 0) {
+                throw new IllegalArgumentException("ILU(0) requires every diagonal entry to be stored.");
+            }
+            diagonal[i] = k;
+        }
+
+        // Eliminate row by row (IKJ order), only updating entries that are part of the pattern
+        int[] position = new int[size];    // Index of entry (i, j) of the current row, or -1 if it is not stored
+        Arrays.fill(position, -1);
+        for (int i = 0; i < size; i++) {
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                position[indices[p]] = p;
+            }
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                int k = indices[p];
+                double factor = factors[p] / factors[diagonal[k]];
+                factors[p] = factor;
+                for (int q = diagonal[k] + 1; q < pointers[k + 1]; q++) {
+                    int at = position[indices[q]];
+                    if (at >= 0) {
+                        factors[at] -= factor * factors[q];
+                    }
+                }
+            }
+            if (factors[diagonal[i]] == 0) {
+                throw new UnsupportedOperationException("Zero pivot in the incomplete LU factorization.");
+            }
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                position[indices[p]] = -1;
+            }
+        }
+    }
+
+
+
+    /**
+     * Solves LUz = r by forward and back substitution.
+     *
+     * @param r The vector to precondition
+     * @param z The vector that receives (LU)^-1 r
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the size of the matrix
+     */
+    @Override
+    public void apply(Vector r, Vector z) {
+        if (r.length() != size || z.length() != size) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        double[] input = r.array(), output = z.array();
+        int in = r.offset(), out = z.offset();
+
+        // Forward substitution with the unit lower triangle
+        for (int i = 0; i < size; i++) {
+            double sum = input[in + i];
+            for (int p = pointers[i]; p < diagonal[i]; p++) {
+                sum -= factors[p] * output[out + indices[p]];
+            }
+            output[out + i] = sum;
+        }
+
+        // Back substitution with the upper triangle
+        for (int i = size - 1; i >= 0; i--) {
+            double sum = output[out + i];
+            for (int p = diagonal[i] + 1; p < pointers[i + 1]; p++) {
+                sum -= factors[p] * output[out + indices[p]];
+            }
+            output[out + i] = sum / factors[diagonal[i]];
+        }
+    }
+
+
+}
@@ -0,0 +1,272 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents an iterative (Krylov subspace) solver for the linear system Ax = b.
+ * Instead of factoring A, an iterative solver only multiplies vectors by A, so it works on large sparse matrices
+ * whose factors would not fit in memory, and on matrix-free LinearOperators such as lazy products. It stops once the relative residual ||b - Ax|| / ||b|| falls below
+ * the tolerance or the iteration limit is reached, and an optional preconditioner speeds up convergence.
+ * After every solve the solver keeps the number of iterations, whether it converged and the residual history.
+ */
+public abstract class IterativeSolver {
+
+    // Default settings
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    // Instance variables
+    private double tolerance;                 // Relative residual at which the iteration stops
+    private int maxIterations;                // Maximum number of iterations per solve
+    private Preconditioner preconditioner;    // Approximate inverse of A applied at every iteration, or null for none
+
+    // Telemetry of the last solve
+    private int iterations;                   // Number of iterations performed
+    private boolean converged;                // Whether the tolerance was reached
+    private double[] residualHistory;         // Relative residual before the first iteration and after every iteration
+    private int historySize;                  // Number of recorded residuals
+
+
+    // Constructor
+    /**
+     * Constructs an iterative solver with the given stopping criteria and no preconditioner.
+     *
+     * @param tolerance The relative residual at which the iteration stops
+     * @param maxIterations The maximum number of iterations per solve
+     * @throws IllegalArgumentException If the tolerance is negative or the iteration limit is less than 1
+     */
+    IterativeSolver(double tolerance, int maxIterations) {
+        setTolerance(tolerance);
+        setMaxIterations(maxIterations);
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Returns the relative residual at which the iteration stops.
+     *
+     * @return The tolerance of this solver
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the relative residual ||b - Ax|| / ||b|| at which the iteration stops.
+     *
+     * @param tolerance The new tolerance
+     * @throws IllegalArgumentException If the tolerance is negative
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance cannot be negative.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Returns the maximum number of iterations per solve.
+     *
+     * @return The iteration limit of this solver
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Sets the maximum number of iterations per solve.
+     *
+     * @param maxIterations The new iteration limit
+     * @throws IllegalArgumentException If the iteration limit is less than 1
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Iteration limit must be at least 1.");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Returns the preconditioner applied at every iteration.
+     *
+     * @return The preconditioner of this solver, or null if there is none
+     */
+    public Preconditioner getPreconditioner() {
+        return preconditioner;
+    }
+
+    /**
+     * Sets the preconditioner applied at every iteration.
+     *
+     * @param preconditioner The new preconditioner, or null to solve without one
+     */
+    public void setPreconditioner(Preconditioner preconditioner) {
+        this.preconditioner = preconditioner;
+    }
+
+    /**
+     * Returns the number of iterations performed by the last solve.
+     *
+     * @return The number of iterations of the last solve
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Checks whether the last solve reached the tolerance.
+     *
+     * @return true if the last solve converged, false if it stopped at the iteration limit or broke down
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /**
+     * Returns the relative residual ||b - Ax|| / ||b|| reached by the last solve.
+     *
+     * @return The final relative residual, or NaN if nothing has been solved yet
+     */
+    public double getRelativeResidual() {
+        return historySize > 0 ? residualHistory[historySize - 1] : Double.NaN;
+    }
+
+    /**
+     * Returns the relative residual before the first iteration and after every iteration of the last solve.
+     *
+     * @return A copy of the residual history of the last solve
+     */
+    public double[] getResidualHistory() {
+        return historySize > 0 ? Arrays.copyOf(residualHistory, historySize) : new double[0];
+    }
+
+
+
+    // Solve
+    /**
+     * Solves the system Ax = b starting from the zero vector.
+     *
+     * @param A The square matrix or operator of the system
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The approximate solution x; check hasConverged() to see whether it meets the tolerance
+     * @throws IllegalArgumentException If A is not square or the length of b does not match its size
+     */
+    public Vector solve(LinearOperator A, Vector b) {
+        return solve(A, b, null);
+    }
+
+
+    /**
+     * Solves the system Ax = b starting from the given initial guess.
+     *
+     * @param A The square matrix or operator of the system
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @param x0 The initial guess, or null to start from the zero vector
+     * @return The approximate solution x; check hasConverged() to see whether it meets the tolerance
+     * @throws IllegalArgumentException If A is not square or the lengths of b and x0 do not match its size
+     */
+    public Vector solve(LinearOperator A, Vector b, Vector x0) {
+        int size = A.getNumOfRows();
+        if (A.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Operator must be square.");
+        }
+        if (b.length() != size || (x0 != null && x0.length() != size)) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+
+        Vector x = x0 != null ? new Vector(x0) : new Vector(new double[size]);
+        this.iterations = 0;
+        this.converged = false;
+        this.residualHistory = new double[Math.min(maxIterations, 1024) + 1];
+        this.historySize = 0;
+
+        // The zero vector solves a homogeneous system exactly
+        double bNorm = VectorKernels.norm(b.array(), b.offset(), size);
+        if (bNorm == 0) {
+            Arrays.fill(x.data(), 0.0);
+            record(0.0);
+            return x;
+        }
+
+        iterate(A, b, x, bNorm);
+        return x;
+    }
+
+
+    /**
+     * Runs the iteration of this method, updating x in place.
+     * Implementations call record once with the initial residual and once after every iteration,
+     * and stop when it returns true or after getMaxIterations() iterations.
+     *
+     * @param A The square matrix or operator of the system
+     * @param b The right-hand side vector, which may be a slice, so it is only read through residual
+     * @param x The initial guess, overwritten with the solution
+     * @param bNorm The norm of b, which is not zero
+     */
+    abstract void iterate(LinearOperator A, Vector b, Vector x, double bNorm);
+
+
+
+    // Helpers
+    /**
+     * Records the relative residual of an iteration and checks it against the tolerance.
+     * Every call after the first one counts as an iteration.
+     *
+     * @param relativeResidual The residual norm divided by the norm of b
+     * @return true if the tolerance has been reached, false otherwise
+     */
+    boolean record(double relativeResidual) {
+        if (historySize > 0) {
+            iterations++;
+        }
+        if (historySize == residualHistory.length) {
+            residualHistory = Arrays.copyOf(residualHistory, historySize * 2);
+        }
+        residualHistory[historySize++] = relativeResidual;
+        converged = relativeResidual <= tolerance;
+        return converged;
+    }
+
+
+    // Computes z = M^-1 r with the preconditioner, or copies r if there is none
+    void precondition(Vector r, Vector z) {
+        if (preconditioner != null) {
+            preconditioner.apply(r, z);
+        } else {
+            System.arraycopy(r.data(), 0, z.data(), 0, r.data().length);
+        }
+    }
+
+
+    // Computes r = b - Ax, where b may be a slice and r is a work vector
+    static void residual(LinearOperator A, Vector b, Vector x, Vector r) {
+        A.apply(x, r);
+        double[] rValues = r.data();
+        VectorKernels.subtract(b.array(), b.offset(), rValues, 0, rValues, 0, rValues.length);
+    }
+
+
+    // Returns a new zero vector of the given length
+    static Vector workVector(int length) {
+        return Vector.wrap(new double[length]);
+    }
+
+
+    static double dot(double[] x, double[] y) {
+        return VectorKernels.dot(x, y);
+    }
+
+
+    static double norm(double[] x) {
+        return VectorKernels.norm(x);
+    }
+
+
+    // Computes y += a * x
+    static void axpy(double a, double[] x, double[] y) {
+        VectorKernels.axpy(a, x, y);
+    }
+
+
+}
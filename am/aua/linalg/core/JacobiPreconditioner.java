@@ -0,0 +1,58 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents the Jacobi (diagonal) preconditioner, M = diag(A).
+ * It costs one division per entry to build and one multiplication per entry to apply,
+ * and helps most on matrices whose rows are badly scaled relative to each other.
+ */
+public class JacobiPreconditioner implements Preconditioner {
+
+    // Instance variables
+    private final double[] inverseDiagonal;    // 1 / A(i, i) for every row i
+
+
+    // Constructor
+    /**
+     * Constructs the Jacobi preconditioner of the given square matrix.
+     *
+     * @param A The square matrix to precondition
+     * @throws IllegalArgumentException If A is not square or has a zero on its diagonal
+     */
+    public JacobiPreconditioner(Matrix A) {
+        int size = A.getNumOfRows();
+        if (A.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        }
+        this.inverseDiagonal = new double[size];
+        for (int i = 0; i < size; i++) {
+            double d = A.getEntry(i, i);
+            if (d == 0) {
+                throw new IllegalArgumentException("Jacobi preconditioning requires a non-zero diagonal.");
+            }
+            inverseDiagonal[i] = 1.0 / d;
+        }
+    }
+
+
+
+    /**
+     * Divides every entry of r by the matching diagonal entry of A.
+     *
+     * @param r The vector to precondition
+     * @param z The vector that receives M^-1 r
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the size of the matrix
+     */
+    @Override
+    public void apply(Vector r, Vector z) {
+        if (r.length() != inverseDiagonal.length || z.length() != inverseDiagonal.length) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        double[] input = r.array(), output = z.array();
+        int in = r.offset(), out = z.offset();
+        for (int i = 0; i < inverseDiagonal.length; i++) {
+            output[out + i] = input[in + i] * inverseDiagonal[i];
+        }
+    }
+
+
+}
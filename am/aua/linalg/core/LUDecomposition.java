@@ -0,0 +1,371 @@
+package am.aua.linalg.core;
+
+/**
+ * Represents the LU decomposition of a square matrix with partial pivoting, PA = LU,
+ * where P is a row permutation, L is unit lower triangular and U is upper triangular.
+ * Once computed, the decomposition gives the determinant, the inverse and the solution of linear systems in O(n^3) or less.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry or setValue.
+ */
+public class LUDecomposition implements MatrixDecomposition {
+
+    // Instance variables
+    private final SquareMatrix source;    // The decomposed matrix
+    private final int sourceModCount;     // Modification count of the source when it was decomposed
+    private final int size;          // Size of the decomposed matrix
+    private final double[] lu;       // Row-major array holding L below the diagonal (unit diagonal implied) and U on and above it
+    private final int[] pivot;       // pivot[i] is the row of the original matrix that ended up in row i
+    private final int pivotSign;     // +1 or -1, the sign of the permutation P
+    private final boolean singular;  // Whether a pivot was zero relative to the size of the entries of its column
+
+
+    // Constructor
+    /**
+     * Computes the LU decomposition of the given square matrix using Gaussian elimination with partial pivoting.
+     * At every step the row with the largest entry in the pivot column is swapped into place.
+     *
+     * @param M The square matrix to decompose
+     */
+    public LUDecomposition(SquareMatrix M) {
+        this.source = M;
+        this.sourceModCount = M.getModCount();
+        this.size = M.getNumOfRows();
+        this.lu = M.data().clone();
+        this.pivot = new int[size];
+        for (int i = 0; i < size; i++) {
+            pivot[i] = i;
+        }
+
+        // A pivot is treated as zero when it is below this multiple of the largest entry of its column in M.
+        // Scaling a column of M scales the pivot of that column by the same factor, so badly scaled
+        // but invertible matrices are not mistaken for singular ones
+        double[] columnMax = columnMaxAbs(lu, size);
+        double relativeTolerance = size * Math.ulp(1.0);
+
+        int sign = 1;
+        boolean isSingular = false;
+        for (int k = 0; k < size; k++) {
+            // Find the pivot row
+            int p = k;
+            double max = Math.abs(lu[k * size + k]);
+            for (int i = k + 1; i < size; i++) {
+                double candidate = Math.abs(lu[i * size + k]);
+                if (candidate > max) {
+                    max = candidate;
+                    p = i;
+                }
+            }
+
+            // Swap rows if necessary to bring the pivot to the current row
+            if (p != k) {
+                for (int j = 0; j < size; j++) {
+                    double temp = lu[p * size + j];
+                    lu[p * size + j] = lu[k * size + j];
+                    lu[k * size + j] = temp;
+                }
+                int temp = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = temp;
+                sign = -sign;
+            }
+
+            double pivotValue = lu[k * size + k];
+            if (max <= relativeTolerance * columnMax[k]) {
+                isSingular = true;
+                if (pivotValue == 0) {
+                    continue; // Nothing to eliminate in this column
+                }
+            }
+
+            // Eliminate the entries below the pivot, storing the multipliers in place of the zeros
+            int pivotRow = k * size;
+            for (int i = k + 1; i < size; i++) {
+                int row = i * size;
+                double factor = lu[row + k] / pivotValue;
+                lu[row + k] = factor;
+                if (factor != 0) {
+                    for (int j = k + 1; j < size; j++) {
+                        lu[row + j] -= factor * lu[pivotRow + j];
+                    }
+                }
+            }
+        }
+
+        this.pivotSign = sign;
+        this.singular = isSingular;
+    }
+
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry or setValue since it was decomposed.
+     * A stale decomposition no longer describes its matrix and refuses to be used.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether the decomposed matrix is singular.
+     *
+     * @return true if a pivot was zero relative to the size of the entries of its column, false otherwise
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the unit lower triangular factor L.
+     *
+     * @return The lower triangular factor
+     */
+    public LowerTriangularMatrix getL() {
+        double[] values = new double[size * (size + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                values[index++] = lu[i * size + j];
+            }
+            values[index++] = 1.0;
+        }
+        return new LowerTriangularMatrix(values, size);
+    }
+
+    /**
+     * Returns the upper triangular factor U.
+     *
+     * @return The upper triangular factor
+     */
+    public UpperTriangularMatrix getU() {
+        double[] values = new double[size * (size + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i; j < size; j++) {
+                values[index++] = lu[i * size + j];
+            }
+        }
+        return new UpperTriangularMatrix(values, size);
+    }
+
+    /**
+     * Returns the row permutation: entry i is the row of the original matrix that was moved to row i.
+     *
+     * @return A copy of the pivot indices
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+
+
+    // Methods
+
+    // Determinant
+    /**
+     * Computes the determinant of the decomposed matrix as the signed product of the diagonal of U.
+     *
+     * The product is returned even if the matrix was found to be singular, in which case it is zero or close to it.
+     *
+     * @return The determinant
+     * @throws IllegalStateException If the decomposed matrix has been modified since it was decomposed
+     */
+    public double det() {
+        requireCurrent();
+        double determinant = pivotSign;
+        for (int i = 0; i < size; i++) {
+            determinant *= lu[i * size + i];
+        }
+        return determinant;
+    }
+
+
+    // Solve
+    /**
+     * Solves the system AX = B, where A is the decomposed matrix, by forward and back substitution.
+     *
+     * @param B The right-hand side, with as many rows as A
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as A
+     * @throws UnsupportedOperationException If A is singular
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Matrix solve(Matrix B) {
+        if (B.getNumOfRows() != size) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int numCols = B.getNumOfColumns();
+        return new Matrix(solve(B.data(), numCols), size, numCols);
+    }
+
+
+    /**
+     * Solves the system Ax = b, where A is the decomposed matrix, by forward and back substitution.
+     *
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of A
+     * @throws UnsupportedOperationException If A is singular
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Vector solve(Vector b) {
+        double[] values = b.getElements();
+        if (values.length != size) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        return Vector.wrap(solve(values, 1));
+    }
+
+
+    // Division
+    /**
+     * Computes B times the inverse of the decomposed matrix A by solving XA = B, without forming the inverse.
+     *
+     * @param B The matrix to divide, with as many columns as A
+     * @return The solution X = B * A^-1
+     * @throws IllegalArgumentException If B does not have as many columns as A
+     * @throws UnsupportedOperationException If A is singular
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Matrix divide(Matrix B) {
+        if (B.getNumOfColumns() != size) {
+            throw new IllegalArgumentException("Matrix column dimensions must agree.");
+        }
+        requireNonsingular();
+
+        int numRows = B.getNumOfRows();
+        double[] b = B.data();
+        double[] x = new double[numRows * size];
+        double[] work = new double[size];
+
+        // Since A = P^T L U, each row x of X satisfies (x P^T) L U = b
+        for (int r = 0; r < numRows; r++) {
+            System.arraycopy(b, r * size, work, 0, size);
+
+            // Solve zU = b, walking the rows of U
+            for (int j = 0; j < size; j++) {
+                int rowJ = j * size;
+                double z = work[j] / lu[rowJ + j];
+                work[j] = z;
+                if (z != 0) {
+                    for (int i = j + 1; i < size; i++) {
+                        work[i] -= z * lu[rowJ + i];
+                    }
+                }
+            }
+
+            // Solve yL = z, walking the rows of L from the bottom
+            for (int j = size - 1; j >= 0; j--) {
+                int rowJ = j * size;
+                double y = work[j];
+                if (y != 0) {
+                    for (int i = 0; i < j; i++) {
+                        work[i] -= y * lu[rowJ + i];
+                    }
+                }
+            }
+
+            // Undo the permutation: x = yP
+            int rowX = r * size;
+            for (int i = 0; i < size; i++) {
+                x[rowX + pivot[i]] = work[i];
+            }
+        }
+
+        return new Matrix(x, numRows, size);
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse of the decomposed matrix by solving AX = I.
+     *
+     * @return The inverse of the decomposed matrix
+     * @throws UnsupportedOperationException If the matrix is singular and does not have an inverse
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public SquareMatrix inverse() {
+        double[] identity = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            identity[i * size + i] = 1.0;
+        }
+        return new SquareMatrix(solve(identity, size), size);
+    }
+
+
+    // Solves AX = B for a row-major right-hand side with numCols columns and returns X as a new row-major array
+    private double[] solve(double[] b, int numCols) {
+        requireNonsingular();
+
+        // Apply the row permutation: X = PB
+        double[] x = new double[size * numCols];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(b, pivot[i] * numCols, x, i * numCols, numCols);
+        }
+
+        // Forward substitution: solve LY = PB
+        for (int k = 0; k < size; k++) {
+            int rowK = k * numCols;
+            for (int i = k + 1; i < size; i++) {
+                double factor = lu[i * size + k];
+                if (factor != 0) {
+                    int rowI = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowI + j] -= factor * x[rowK + j];
+                    }
+                }
+            }
+        }
+
+        // Back substitution: solve UX = Y
+        for (int k = size - 1; k >= 0; k--) {
+            int rowK = k * numCols;
+            double diagonal = lu[k * size + k];
+            for (int j = 0; j < numCols; j++) {
+                x[rowK + j] /= diagonal;
+            }
+            for (int i = 0; i < k; i++) {
+                double factor = lu[i * size + k];
+                if (factor != 0) {
+                    int rowI = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowI + j] -= factor * x[rowK + j];
+                    }
+                }
+            }
+        }
+
+        return x;
+    }
+
+
+    private void requireNonsingular() {
+        requireCurrent();
+        if (singular) {
+            throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+        }
+    }
+
+
+    private void requireCurrent() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+    }
+
+
+    // Returns the largest absolute value in each column of a row-major size x size array
+    private static double[] columnMaxAbs(double[] values, int size) {
+        double[] max = new double[size];
+        for (int i = 0; i < size; i++) {
+            int row = i * size;
+            for (int j = 0; j < size; j++) {
+                max[j] = Math.max(max[j], Math.abs(values[row + j]));
+            }
+        }
+        return max;
+    }
+
+
+}
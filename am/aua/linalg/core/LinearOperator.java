@@ -0,0 +1,70 @@
+package am.aua.linalg.core;
+
+/**
+ * The LinearOperator interface describes a linear map only through its action on vectors, y = Ax and y = A^T x.
+ * Every Matrix is a linear operator, but an operator does not need stored entries: sums, products, transposes
+ * and multiples of operators can be applied without ever forming the resulting matrix (see LinearOperators).
+ * Iterative solvers and eigenvalue iterations only need this interface, so they run on such matrix-free operators.
+ */
+public interface LinearOperator {
+
+    /**
+     * Returns the number of rows of the operator, i.e. the length of its output vectors.
+     *
+     * @return The number of rows
+     */
+    int getNumOfRows();
+
+    /**
+     * Returns the number of columns of the operator, i.e. the length of its input vectors.
+     *
+     * @return The number of columns
+     */
+    int getNumOfColumns();
+
+    /**
+     * Applies the operator to a vector and writes the result into a preallocated vector, y = Ax.
+     *
+     * @param x The input vector, with getNumOfColumns() elements
+     * @param y The vector that receives Ax, with getNumOfRows() elements and different from x
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the dimensions of the operator
+     */
+    void apply(Vector x, Vector y);
+
+    /**
+     * Applies the transpose of the operator to a vector and writes the result into a preallocated vector, y = A^T x.
+     *
+     * @param x The input vector, with getNumOfRows() elements
+     * @param y The vector that receives A^T x, with getNumOfColumns() elements and different from x
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the dimensions of the operator
+     */
+    void applyTranspose(Vector x, Vector y);
+
+    /**
+     * Applies the operator to a vector and returns the result, Ax.
+     *
+     * @param x The input vector, with getNumOfColumns() elements
+     * @return The vector Ax
+     * @throws IllegalArgumentException If the length of x does not match the number of columns of the operator
+     */
+    default Vector apply(Vector x) {
+        Vector y = new Vector(new double[getNumOfRows()]);
+        apply(x, y);
+        return y;
+    }
+
+    /**
+     * Applies the transpose of the operator to a vector and returns the result, A^T x.
+     *
+     * @param x The input vector, with getNumOfRows() elements
+     * @return The vector A^T x
+     * @throws IllegalArgumentException If the length of x does not match the number of rows of the operator
+     */
+    default Vector applyTranspose(Vector x) {
+        Vector y = new Vector(new double[getNumOfColumns()]);
+        applyTranspose(x, y);
+        return y;
+    }
+
+
+}
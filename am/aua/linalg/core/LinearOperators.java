@@ -0,0 +1,250 @@
+package am.aua.linalg.core;
+
+/**
+ * The LinearOperators class combines linear operators lazily.
+ * The sum, product, transpose and multiple of operators are themselves operators that apply their parts
+ * one after the other, so A * B^T can be handed to a solver without forming the product matrix:
+ * applying it costs one product with B^T and one with A, and no storage beyond a few vectors.
+ * Combined operators keep their scratch vectors between calls, one set per thread, so they can be shared between threads
+ * as long as the operators they combine can.
+ */
+public final class LinearOperators {
+
+    private LinearOperators() {
+    }
+
+
+
+    // Sum
+    /**
+     * Returns the operator A + B, applied as Ax + Bx.
+     *
+     * @param A The first operator
+     * @param B The second operator, with the dimensions of A
+     * @return The lazy sum of A and B
+     * @throws IllegalArgumentException If the operators have different dimensions
+     */
+    public static LinearOperator sum(LinearOperator A, LinearOperator B) {
+        if (A.getNumOfRows() != B.getNumOfRows() || A.getNumOfColumns() != B.getNumOfColumns()) {
+            throw new IllegalArgumentException("Cannot add operators with different dimensions.");
+        }
+        return new Sum(A, B);
+    }
+
+
+    // Product
+    /**
+     * Returns the operator AB, applied as A(Bx).
+     *
+     * @param A The left operator
+     * @param B The right operator, with as many rows as A has columns
+     * @return The lazy product of A and B
+     * @throws IllegalArgumentException If the number of columns of A is not equal to the number of rows of B
+     */
+    public static LinearOperator product(LinearOperator A, LinearOperator B) {
+        if (A.getNumOfColumns() != B.getNumOfRows()) {
+            throw new IllegalArgumentException("Cannot multiply operators with incompatible dimensions.");
+        }
+        return new Product(A, B);
+    }
+
+
+    // Transpose
+    /**
+     * Returns the operator A^T, which swaps apply and applyTranspose of A.
+     *
+     * @param A The operator to transpose
+     * @return The transpose view of A, or the original operator if A is itself a transpose view
+     */
+    public static LinearOperator transpose(LinearOperator A) {
+        if (A instanceof Transpose) {
+            return ((Transpose) A).operator;
+        }
+        return new Transpose(A);
+    }
+
+
+    // Scaled
+    /**
+     * Returns the operator aA, applied as a(Ax).
+     *
+     * @param A The operator to scale
+     * @param a The scalar value to multiply by
+     * @return The lazy multiple of A
+     */
+    public static LinearOperator scaled(LinearOperator A, Scalar a) {
+        return new Scaled(A, a.getValue());
+    }
+
+
+
+    // Scales every entry of y by a, in place even when y is a slice
+    private static void scale(Vector y, double a) {
+        VectorKernels.scale(a, y.array(), y.offset(), y.array(), y.offset(), y.length());
+    }
+
+
+    // Adds x to y entry by entry, in place even when y is a slice
+    private static void addTo(Vector x, Vector y) {
+        VectorKernels.axpy(1.0, x.array(), x.offset(), y.array(), y.offset(), y.length());
+    }
+
+
+
+    /**
+     * The lazy sum A + B, which applies both operators and adds the results.
+     */
+    private static class Sum implements LinearOperator {
+
+        private final LinearOperator A;
+        private final LinearOperator B;
+        private final ThreadLocal<Vector> scratch;             // Holds Bx, one per thread
+        private final ThreadLocal<Vector> transposeScratch;    // Holds B^T x, one per thread
+
+        Sum(LinearOperator A, LinearOperator B) {
+            this.A = A;
+            this.B = B;
+            this.scratch = ThreadLocal.withInitial(() -> Vector.wrap(new double[A.getNumOfRows()]));
+            this.transposeScratch = ThreadLocal.withInitial(() -> Vector.wrap(new double[A.getNumOfColumns()]));
+        }
+
+        @Override
+        public int getNumOfRows() {
+            return A.getNumOfRows();
+        }
+
+        @Override
+        public int getNumOfColumns() {
+            return A.getNumOfColumns();
+        }
+
+        @Override
+        public void apply(Vector x, Vector y) {
+            Vector bx = scratch.get();
+            A.apply(x, y);
+            B.apply(x, bx);
+            addTo(bx, y);
+        }
+
+        @Override
+        public void applyTranspose(Vector x, Vector y) {
+            Vector btx = transposeScratch.get();
+            A.applyTranspose(x, y);
+            B.applyTranspose(x, btx);
+            addTo(btx, y);
+        }
+    }
+
+
+    /**
+     * The lazy product AB, which applies B and then A; its transpose applies A^T and then B^T.
+     */
+    private static class Product implements LinearOperator {
+
+        private final LinearOperator A;
+        private final LinearOperator B;
+        private final ThreadLocal<Vector> scratch;    // Holds Bx or A^T x, both of length B.getNumOfRows(), one per thread
+
+        Product(LinearOperator A, LinearOperator B) {
+            this.A = A;
+            this.B = B;
+            this.scratch = ThreadLocal.withInitial(() -> Vector.wrap(new double[B.getNumOfRows()]));
+        }
+
+        @Override
+        public int getNumOfRows() {
+            return A.getNumOfRows();
+        }
+
+        @Override
+        public int getNumOfColumns() {
+            return B.getNumOfColumns();
+        }
+
+        @Override
+        public void apply(Vector x, Vector y) {
+            Vector bx = scratch.get();
+            B.apply(x, bx);
+            A.apply(bx, y);
+        }
+
+        @Override
+        public void applyTranspose(Vector x, Vector y) {
+            Vector atx = scratch.get();
+            A.applyTranspose(x, atx);
+            B.applyTranspose(atx, y);
+        }
+    }
+
+
+    /**
+     * The transpose view A^T, which swaps the two actions of A.
+     */
+    private static class Transpose implements LinearOperator {
+
+        private final LinearOperator operator;
+
+        Transpose(LinearOperator operator) {
+            this.operator = operator;
+        }
+
+        @Override
+        public int getNumOfRows() {
+            return operator.getNumOfColumns();
+        }
+
+        @Override
+        public int getNumOfColumns() {
+            return operator.getNumOfRows();
+        }
+
+        @Override
+        public void apply(Vector x, Vector y) {
+            operator.applyTranspose(x, y);
+        }
+
+        @Override
+        public void applyTranspose(Vector x, Vector y) {
+            operator.apply(x, y);
+        }
+    }
+
+
+    /**
+     * The lazy multiple aA, which applies A and scales the result.
+     */
+    private static class Scaled implements LinearOperator {
+
+        private final LinearOperator A;
+        private final double a;
+
+        Scaled(LinearOperator A, double a) {
+            this.A = A;
+            this.a = a;
+        }
+
+        @Override
+        public int getNumOfRows() {
+            return A.getNumOfRows();
+        }
+
+        @Override
+        public int getNumOfColumns() {
+            return A.getNumOfColumns();
+        }
+
+        @Override
+        public void apply(Vector x, Vector y) {
+            A.apply(x, y);
+            scale(y, a);
+        }
+
+        @Override
+        public void applyTranspose(Vector x, Vector y) {
+            A.applyTranspose(x, y);
+            scale(y, a);
+        }
+    }
+
+
+}
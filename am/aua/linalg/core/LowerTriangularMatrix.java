@@ -1,6 +1,16 @@
 package am.aua.linalg.core;
 
+/* 
+* Represents a lower triangular matrix, which is a special type of square matrix
+* where all elements above the main diagonal are zero.
+* Only the lower triangle is stored, packed row by row into n(n+1)/2 values,
+* and determinants, inverses, solves and products exploit the zero upper half.
+*/
 public class LowerTriangularMatrix extends SquareMatrix{
+
+    // Instance variables
+    private double[] packed;    // Row i holds the entries (i, 0) .. (i, i), starting at index i(i+1)/2
+
     
     /**
      * Constructs a lower triangular matrix with the specified size and values.
@@ -11,17 +21,258 @@ public class LowerTriangularMatrix extends SquareMatrix{
      * @throws IllegalArgumentException If the number of elements provided does not match the expected number for a lower triangular matrix
     */
     public LowerTriangularMatrix(int size, double... values) {
-        super(size);
+        super(null, size);
         if (values.length != size * (size + 1) / 2) {
             throw new IllegalArgumentException("Invalid number of elements for a lower triangular matrix.");
         }
 
+        // The values are already packed row by row
+        this.packed = values.clone();
+    }
+
+
+    /**
+     * Constructs a lower triangular matrix that takes ownership of the given packed array without copying it.
+     * 
+     * @param packed The lower triangle packed row by row, n(n+1)/2 values
+     * @param size The size of the lower triangular matrix (number of rows/columns)
+     */
+    LowerTriangularMatrix(double[] packed, int size) {
+        super(null, size);
+        this.packed = packed;
+    }
+
+
+
+    // Accessors and Mutators
+    @Override
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= getSize() || column < 0 || column >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        return column > row ? 0 : packed[row * (row + 1) / 2 + column];
+    }
+
+
+    /**
+     * Sets the value of a specific entry in the lower triangle of the matrix.
+     * 
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     * @throws IllegalArgumentException If a non-zero value is set above the diagonal
+     */
+    @Override
+    public void setEntry(int i, int j, double value) {
+        if (i < 0 || i >= getSize() || j < 0 || j >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        if (j > i) {
+            if (value != 0) {
+                throw new IllegalArgumentException("Entries above the diagonal of a lower triangular matrix must be zero.");
+            }
+            return;
+        }
+        packed[i * (i + 1) / 2 + j] = value;
+        modified();
+    }
+
+
+    /**
+     * Sets the values of this matrix using the provided 2D array.
+     * 
+     * @param array The square 2D array containing the new values, zero above the diagonal
+     * @throws IllegalArgumentException If the array does not have the size of this matrix or has non-zero entries above the diagonal
+     */
+    @Override
+    public void setValue(double[][] array) {
+        int size = getSize();
+        if (array.length != size) {
+            throw new IllegalArgumentException("Array does not match the size of the matrix");
+        }
+        double[] newPacked = new double[size * (size + 1) / 2];
+        for (int i = 0; i < size; i++) {
+            if (array[i].length != size) {
+                throw new IllegalArgumentException("Array does not match the size of the matrix");
+            }
+            for (int j = i + 1; j < size; j++) {
+                if (array[i][j] != 0) {
+                    throw new IllegalArgumentException("Entries above the diagonal of a lower triangular matrix must be zero.");
+                }
+            }
+            System.arraycopy(array[i], 0, newPacked, i * (i + 1) / 2, i + 1);
+        }
+        this.packed = newPacked;
+        modified();
+    }
+
+
+    @Override
+    double[] copyData() {
+        int size = getSize();
+        double[] dense = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(packed, i * (i + 1) / 2, dense, i * size, i + 1);
+        }
+        return dense;
+    }
+
+
+    // Returns the packed array backing this matrix without copying it
+    double[] packedData() {
+        return packed;
+    }
+
+
+    @Override
+    public LowerTriangularMatrix clone() {
+        LowerTriangularMatrix clonedMatrix = (LowerTriangularMatrix) super.clone();
+        clonedMatrix.packed = this.packed.clone();
+        return clonedMatrix;
+    }
+
+
+
+    // Methods
+
+    // Transpose
+    /**
+     * Transposes this matrix; the transpose of a lower triangular matrix is upper triangular.
+     * 
+     * @return The transpose of this matrix
+     */
+    @Override
+    public UpperTriangularMatrix transpose() {
+        int size = getSize();
+        double[] transposed = new double[packed.length];
         int index = 0;
         for (int i = 0; i < size; i++) {
-            for (int j = 0; j <= i; j++) {
-                setEntry(i, j, values[index]);
-                index++;
+            for (int j = i; j < size; j++) {
+                transposed[index++] = packed[j * (j + 1) / 2 + i];
             }
         }
+        return new UpperTriangularMatrix(transposed, size);
+    }
+
+
+    // Determinant
+    /**
+     * Computes the determinant as the product of the diagonal entries, in O(n) time.
+     * 
+     * @return The determinant of this matrix
+     */
+    @Override
+    public double det() {
+        double determinant = 1;
+        for (int i = 0; i < getSize(); i++) {
+            determinant *= packed[i * (i + 1) / 2 + i];
+        }
+        return determinant;
     }
+
+
+    // Solve
+    /**
+     * Solves the linear system AX = B by forward substitution, in O(n^2) time per column of B.
+     * 
+     * @param B The right-hand side, with as many rows as this matrix
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Matrix solve(Matrix B) {
+        if (B.getNumOfRows() != getSize()) {
+            throw new IllegalArgumentException("Cannot solve the system: Incompatible dimensions.");
+        }
+        int numCols = B.getNumOfColumns();
+        return new Matrix(forwardSubstitution(B.copyData(), numCols), getSize(), numCols);
+    }
+
+    /**
+     * Solves the linear system Ax = b by forward substitution, in O(n^2) time.
+     * 
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Vector solve(Vector b) {
+        double[] values = b.getElements();
+        if (values.length != getSize()) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        return Vector.wrap(forwardSubstitution(values, 1));
+    }
+
+
+    // Computes A * L^-1 by solving L^T X^T = A^T with back substitution
+    @Override
+    Matrix rightDivide(Matrix A) {
+        return transpose().solve(A.transpose()).transpose();
+    }
+
+
+    // Solves LX = B in place for a row-major right-hand side with numCols columns
+    private double[] forwardSubstitution(double[] x, int numCols) {
+        int size = getSize();
+        for (int i = 0; i < size; i++) {
+            int rowL = i * (i + 1) / 2;
+            int rowX = i * numCols;
+            for (int k = 0; k < i; k++) {
+                double factor = packed[rowL + k];
+                if (factor != 0) {
+                    int rowK = k * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowX + j] -= factor * x[rowK + j];
+                    }
+                }
+            }
+            double diagonal = packed[rowL + i];
+            if (diagonal == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            for (int j = 0; j < numCols; j++) {
+                x[rowX + j] /= diagonal;
+            }
+        }
+        return x;
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse, which is again lower triangular, in O(n^3 / 3) time.
+     * 
+     * @return The inverse of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero and the matrix does not have an inverse
+     */
+    @Override
+    public LowerTriangularMatrix inverse() {
+        int size = getSize();
+        double[] inverse = new double[packed.length];
+
+        for (int i = 0; i < size; i++) {
+            int rowL = i * (i + 1) / 2;
+            double diagonal = packed[rowL + i];
+            if (diagonal == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            inverse[rowL + i] = 1 / diagonal;
+
+            // Entry (i, j) of the inverse is -(sum of L(i, k) * X(k, j) for j <= k < i) / L(i, i)
+            for (int j = 0; j < i; j++) {
+                double sum = 0;
+                for (int k = j; k < i; k++) {
+                    sum += packed[rowL + k] * inverse[k * (k + 1) / 2 + j];
+                }
+                inverse[rowL + j] = -sum / diagonal;
+            }
+        }
+        return new LowerTriangularMatrix(inverse, size);
+    }
+
+
 }
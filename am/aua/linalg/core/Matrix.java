@@ -1,15 +1,23 @@
 package am.aua.linalg.core;
 
+import java.util.Arrays;
+
 /**
  * Represents a matrix with a specific number of rows and columns.
  * This class provides basic operations for matrices such as addition, multiplication, and so on.
+ * Every Matrix is also a LinearOperator, so it can be combined lazily with other operators and handed to iterative solvers.
  */
-public class Matrix implements Cloneable { 
+public class Matrix implements Cloneable, LinearOperator { 
+
+    // Tile size of the cache-blocked transpose
+    private static final int TRANSPOSE_BLOCK = 32;
 
     // Instance variables
     private int numOfRows;       // Number of rows in the matrix
     private int numOfColumns;    // Number of columns in the matrix
-    private double[][] value;    // 2D array to store the matrix elements
+    private double[] value;      // Row-major array of the matrix elements, entry (i, j) is stored at i * numOfColumns + j,
+                                 // or null for subclasses that keep their entries in a compact storage of their own
+    private int modCount;        // Number of times the entries were changed through a mutator, used to detect stale factorizations
     
 
     // Constructors   
@@ -24,7 +32,7 @@ public class Matrix implements Cloneable {
 
         this.numOfRows = rows;
         this.numOfColumns = cols;
-        this.value = new double[rows][cols];
+        this.value = new double[rows * cols];
     }
    
     
@@ -44,8 +52,6 @@ public class Matrix implements Cloneable {
         }
         
         // Initialize matrix with provided array
-        this.numOfRows = array.length;
-        this.numOfColumns = array[0].length;
         setValue(array);
     }
 
@@ -65,16 +71,26 @@ public class Matrix implements Cloneable {
         if (allValuesInARow.length != numOfRows*numOfColumns){
             throw new IllegalArgumentException("Cannot construct such a matrix");
         }
-        this.value = new double[numOfRows][numOfColumns];
-        int index = 0;
-        for (int i = 0; i < numOfRows; i++) {
-            for (int j = 0; j < numOfColumns; j++) {
-                this.value[i][j] = allValuesInARow[index];
-                index++;
-            }
-        }
+        // The values are already in row-major order
+        this.value = allValuesInARow.clone();
+        this.numOfRows = numOfRows;
+        this.numOfColumns = numOfColumns;
+    }
+
+
+    /**
+     * Constructs a new Matrix object that takes ownership of the given row-major array without copying it.
+     * Used internally so that computed results are not copied a second time.
+     * Subclasses with a compact storage of their own pass null and override getEntry, setEntry, setValue and copyData.
+     *
+     * @param value The row-major array of numOfRows * numOfColumns elements, or null
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     */
+    Matrix(double[] value, int numOfRows, int numOfColumns) {
         this.numOfRows = numOfRows;
         this.numOfColumns = numOfColumns;
+        this.value = value;
     }
  
  
@@ -90,12 +106,7 @@ public class Matrix implements Cloneable {
         this.numOfRows = M.numOfRows;
         this.numOfColumns = M.numOfColumns;
 
-        this.value = new double[M.getNumOfRows()][M.getNumOfColumns()]; 
-        for (int i = 0; i < M.getNumOfRows(); i++) {
-            for (int j = 0; j < M.getNumOfColumns(); j++) {
-                this.value[i][j] = M.getValue()[i][j];
-            }
-        }              
+        this.value = M.copyData();
     }
 
 
@@ -111,13 +122,10 @@ public class Matrix implements Cloneable {
      */
     public double[][] getValue() {
         
-        int numRows = this.value.length;
-        int numColumns = this.value[0].length;        
-        double[][] copy = new double[numRows][numColumns];        
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numColumns; j++) {
-                copy[i][j] = this.value[i][j];
-            }
+        double[] value = data();
+        double[][] copy = new double[numOfRows][numOfColumns];        
+        for (int i = 0; i < numOfRows; i++) {
+            System.arraycopy(value, i * numOfColumns, copy[i], 0, numOfColumns);
         }              
         return copy;
     }
@@ -140,14 +148,80 @@ public class Matrix implements Cloneable {
             }
         }
     
-        // Create a new array and copy the values
-        double[][] newArray = new double[rows][cols];
+        // Create a new row-major array and copy the values
+        double[] newArray = new double[rows * cols];
         for (int i = 0; i < rows; i++) {
-            System.arraycopy(array[i], 0, newArray[i], 0, cols);
+            System.arraycopy(array[i], 0, newArray, i * cols, cols);
         }
     
         // Assign the new array to the value field
         this.value = newArray;
+        this.numOfRows = rows;
+        this.numOfColumns = cols;
+        this.modCount++;
+    }
+
+
+    /**
+     * Returns the entries of this Matrix as a row-major array, without copying them when possible.
+     * Entry (i, j) is stored at index i * getNumOfColumns() + j.
+     * Used internally by the computational kernels, which must treat it as read-only and not keep a reference to it.
+     * Matrices with a compact storage return a freshly materialized array.
+     *
+     * @return The row-major entries of this Matrix
+     */
+    double[] data() {
+        return this.value != null ? this.value : copyData();
+    }
+
+
+    /**
+     * Returns a new row-major array holding the entries of this Matrix.
+     * Subclasses with a compact storage override it to unpack their entries directly.
+     *
+     * @return A dense row-major copy of the entries of this Matrix
+     */
+    double[] copyData() {
+        if (this.value != null) {
+            return this.value.clone();
+        }
+        double[] dense = new double[numOfRows * numOfColumns];
+        for (int i = 0; i < numOfRows; i++) {
+            for (int j = 0; j < numOfColumns; j++) {
+                dense[i * numOfColumns + j] = getEntry(i, j);
+            }
+        }
+        return dense;
+    }
+
+
+    /**
+     * Checks whether this Matrix keeps its entries in a dense row-major array.
+     *
+     * @return true if the entries are stored densely, false if a subclass uses a compact storage
+     */
+    boolean hasDenseStorage() {
+        return this.value != null;
+    }
+
+
+    /**
+     * Records that the entries of this Matrix were changed, so that factorizations computed from it become stale.
+     * Subclasses with a compact storage call it from their mutators.
+     */
+    void modified() {
+        this.modCount++;
+    }
+
+
+    /**
+     * Returns the number of times the entries of this Matrix were changed through setEntry or setValue.
+     * Factorizations record it to notice when the matrix they were computed from has been modified.
+     *
+     * @return The modification count of this Matrix
+     */
+    int getModCount() {
+        return this.modCount;
     }
 
     
@@ -157,9 +231,13 @@ public class Matrix implements Cloneable {
      * @param row The row index of the entry
      * @param column The column index of the entry
      * @return The value of the specified entry
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
      */   
     public double getEntry(int row, int column){
-        return this.value[row][column];
+        if (row < 0 || row >= numOfRows || column < 0 || column >= numOfColumns) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        return this.value[row * numOfColumns + column];
     }
 
 
@@ -177,7 +255,8 @@ public class Matrix implements Cloneable {
             throw new IndexOutOfBoundsException("Invalid matrix indices");
         }
         
-        this.value[i][j] = value;
+        this.value[i * numOfColumns + j] = value;
+        this.modCount++;
     }
   
 
@@ -216,10 +295,10 @@ public class Matrix implements Cloneable {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < this.value.length; i++) {
+        for (int i = 0; i < numOfRows; i++) {
             sb.append("[ "); // Start of the row
-            for (int j = 0; j < this.value[i].length; j++) {
-                sb.append(this.value[i][j]).append(" ");
+            for (int j = 0; j < numOfColumns; j++) {
+                sb.append(getEntry(i, j)).append(" ");
             }
             sb.append("]").append("\n"); // End of the row
         }
@@ -240,11 +319,11 @@ public class Matrix implements Cloneable {
         }
     
         // Compare each element
-        for (int i = 0; i < this.numOfRows; i++) {
-            for (int j = 0; j < this.numOfColumns; j++) {
-                if (this.value[i][j] != M.value[i][j]) {
-                    return false;
-                }
+        double[] a = this.data();
+        double[] b = M.data();
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return false;
             }
         }
         return true; // Matrices are equal
@@ -260,9 +339,8 @@ public class Matrix implements Cloneable {
     public Matrix clone() {
         try {
             Matrix clonedMatrix = (Matrix) super.clone();
-            clonedMatrix.value = this.value.clone(); 
-            for (int i = 0; i < this.numOfRows; i++) {
-                clonedMatrix.value[i] = this.value[i].clone(); 
+            if (this.value != null) {
+                clonedMatrix.value = this.value.clone(); 
             }
             return clonedMatrix;
         } catch (CloneNotSupportedException e) {
@@ -292,19 +370,20 @@ public class Matrix implements Cloneable {
             
         }
 
-        int numRows = A.getNumOfRows();
-        int numCols = A.getNumOfColumns();
-        double[][] result = new double[numRows][numCols];
+        // Sparse operands are merged without expanding them
+        if (A instanceof SparseMatrix || B instanceof SparseMatrix) {
+            return SparseMatrix.add(A, B, 1.0);
+        }
+
+        double[] a = A.data();
+        double[] b = B.data();
+        double[] result = new double[a.length];
 
         // Add corresponding elements of x and y matrices
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                result[i][j] = A.value[i][j] + B.value[i][j];
-            }
-        }
+        VectorKernels.add(a, b, result);
 
         // Create and return the result matrix
-        return new Matrix(result);
+        return new Matrix(result, A.getNumOfRows(), A.getNumOfColumns());
     }
 
     
@@ -320,6 +399,22 @@ public class Matrix implements Cloneable {
     }
 
 
+    /**
+     * Adds two matrices together and writes the result into a preallocated matrix instead of allocating one.
+     * The output may be one of the operands, in which case the operation happens in place.
+     * 
+     * @param A The first Matrix to be added
+     * @param B The second Matrix to be added
+     * @param out The Matrix that receives A + B, with the dimensions of A and dense storage
+     * @return The output matrix out
+     * @throws IllegalArgumentException If the matrices have different dimensions
+     * @throws UnsupportedOperationException If out is a matrix with a compact storage
+     */
+    public static Matrix add(Matrix A, Matrix B, Matrix out) {
+        return combine(A, B, 1.0, out);
+    }
+
+
 
     // Subtract
     /**
@@ -337,19 +432,20 @@ public class Matrix implements Cloneable {
             
         }
 
-        int numRows = A.getNumOfRows();
-        int numCols = A.getNumOfColumns();
-        double[][] result = new double[numRows][numCols];
-
-        // Add corresponding elements of x and y matrices
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                result[i][j] = A.value[i][j] - B.value[i][j];
-            }
+        // Sparse operands are merged without expanding them
+        if (A instanceof SparseMatrix || B instanceof SparseMatrix) {
+            return SparseMatrix.add(A, B, -1.0);
         }
 
+        double[] a = A.data();
+        double[] b = B.data();
+        double[] result = new double[a.length];
+
+        // Subtract corresponding elements of x and y matrices
+        VectorKernels.subtract(a, b, result);
+
         // Create and return the result matrix
-        return new Matrix(result);
+        return new Matrix(result, A.getNumOfRows(), A.getNumOfColumns());
     }
 
     /**
@@ -364,6 +460,22 @@ public class Matrix implements Cloneable {
     }
 
 
+    /**
+    * Subtracts one matrix from another and writes the result into a preallocated matrix instead of allocating one.
+    * The output may be one of the operands, in which case the operation happens in place.
+    * 
+    * @param A The Matrix from which to subtract
+    * @param B The Matrix to subtract
+    * @param out The Matrix that receives A - B, with the dimensions of A and dense storage
+    * @return The output matrix out
+    * @throws IllegalArgumentException If the matrices have different dimensions
+    * @throws UnsupportedOperationException If out is a matrix with a compact storage
+    */
+    public static Matrix subtract(Matrix A, Matrix B, Matrix out) {
+        return combine(A, B, -1.0, out);
+    }
+
+
 
 
     // Scalar multiplication
@@ -376,17 +488,18 @@ public class Matrix implements Cloneable {
     */
     public static Matrix scalarMultiply(Matrix M , Scalar a){
         
-        int numRows = M.getNumOfRows();
-        int numCols = M.getNumOfColumns();
-        double[][] result = new double[numRows][numCols];
+        // Sparse matrices only scale their stored entries
+        if (M instanceof SparseMatrix) {
+            return M.scalarMultiply(a);
+        }
 
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                result[i][j] = M.value[i][j] * a.getValue();
-            }
-        }  
+        double[] m = M.data();
+        double scalar = a.getValue();
+        double[] result = new double[m.length];
+
+        VectorKernels.scale(scalar, m, result);
         
-        return new Matrix(result);
+        return new Matrix(result, M.getNumOfRows(), M.getNumOfColumns());
 
     }
 
@@ -401,11 +514,41 @@ public class Matrix implements Cloneable {
     }
 
 
+    /**
+     * Multiplies a matrix by a scalar value and writes the result into a preallocated matrix instead of allocating one.
+     * The output may be M itself, in which case the operation happens in place.
+     * 
+     * @param M The Matrix to be multiplied
+     * @param a The scalar value to multiply by
+     * @param out The Matrix that receives aM, with the dimensions of M and dense storage
+     * @return The output matrix out
+     * @throws IllegalArgumentException If out has different dimensions from M
+     * @throws UnsupportedOperationException If out is a matrix with a compact storage
+    */
+    public static Matrix scalarMultiply(Matrix M, Scalar a, Matrix out) {
+        double[] result = outputData(out, M.getNumOfRows(), M.getNumOfColumns());
+        double scalar = a.getValue();
+
+        if (M instanceof SparseMatrix) {
+            Arrays.fill(result, 0.0);
+            ((SparseMatrix) M).scatter(result, scalar);
+        } else {
+            VectorKernels.scale(scalar, M.data(), result);
+        }
+
+        out.modified();
+        return out;
+    }
+
+
     
     
     // Multiplication
     /**
      * Multiplies two matrices and returns the result.
+     * The kernel is chosen from the structure of the operands: identity and diagonal factors take linear or quadratic time,
+     * triangular factors skip their zero half, and the result keeps the most specific type,
+     * e.g. the product of two lower triangular matrices is a LowerTriangularMatrix.
      * 
      * @param A The first Matrix to be multiplied
      * @param B The second Matrix to be multiplied
@@ -419,24 +562,8 @@ public class Matrix implements Cloneable {
             
         }
     
-        int numRowsA = A.getNumOfRows();
-        int numColsA = A.getNumOfColumns();
-        int numColsB = B.getNumOfColumns();
-        double[][] result = new double[numRowsA][numColsB];
-    
-        // Perform matrix multiplication
-        for (int i = 0; i < numRowsA; i++) {
-            for (int j = 0; j < numColsB; j++) {
-                double sum = 0;
-                for (int k = 0; k < numColsA; k++) {
-                    sum += A.getEntry(i, k) * B.getEntry(k, j);
-                }
-                result[i][j] = sum;
-            }
-        }
-    
-        // Create and return the result matrix
-        return new Matrix(result);
+        // Pick the kernel from the structure of the operands
+        return MatrixMultiplication.multiply(A, B);
     }
     
 
@@ -452,6 +579,283 @@ public class Matrix implements Cloneable {
     }
 
 
+    /**
+     * Multiplies two matrices and writes the result into a preallocated matrix instead of allocating one.
+     * Two general matrices are multiplied straight into the storage of out.
+     * 
+     * @param A The first Matrix to be multiplied
+     * @param B The second Matrix to be multiplied
+     * @param out The Matrix that receives AB, with as many rows as A, as many columns as B and dense storage
+     * @return The output matrix out
+     * @throws IllegalArgumentException If the number of columns of A is not equal to the number of rows of B,
+     *                                  if out has the wrong dimensions, or if out is A or B
+     * @throws UnsupportedOperationException If out is a matrix with a compact storage
+    */
+    public static Matrix multiply(Matrix A, Matrix B, Matrix out) {
+        if (A.getNumOfColumns() != B.getNumOfRows()) {
+            throw new IllegalArgumentException("Cannot multiply matrices with incompatible dimensions.");
+        }
+        if (out == A || out == B) {
+            throw new IllegalArgumentException("The result matrix must be different from the operands.");
+        }
+        double[] result = outputData(out, A.getNumOfRows(), B.getNumOfColumns());
+
+        MatrixMultiplication.multiply(A, B, result);
+        out.modified();
+        return out;
+    }
+
+
+
+    // In-place arithmetic
+    /**
+     * Adds another Matrix to this Matrix in place, without allocating a result.
+     * 
+     * @param O The Matrix to be added to this Matrix
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this Matrix
+     * @throws UnsupportedOperationException If this Matrix has a compact storage
+     */
+    public void addInPlace(Matrix O) {
+        combine(this, O, 1.0, this);
+    }
+
+
+    /**
+     * Subtracts another Matrix from this Matrix in place, without allocating a result.
+     * 
+     * @param O The Matrix to subtract from this Matrix
+     * @throws IllegalArgumentException If the input matrix has different dimensions from this Matrix
+     * @throws UnsupportedOperationException If this Matrix has a compact storage
+     */
+    public void subtractInPlace(Matrix O) {
+        combine(this, O, -1.0, this);
+    }
+
+
+    /**
+     * Multiplies every entry of this Matrix by a scalar value in place, without allocating a result.
+     * 
+     * @param a The scalar value to multiply by
+     * @throws UnsupportedOperationException If this Matrix has a compact storage
+     */
+    public void scaleInPlace(Scalar a) {
+        scalarMultiply(this, a, this);
+    }
+
+
+    /**
+     * Adds a multiple of another Matrix to this Matrix in place, this = this + aX, without allocating a result.
+     * Sparse matrices only visit their stored entries.
+     * 
+     * @param a The scalar value to multiply X by
+     * @param X The Matrix to be scaled and added
+     * @throws IllegalArgumentException If X has different dimensions from this Matrix
+     * @throws UnsupportedOperationException If this Matrix has a compact storage
+     */
+    public void axpy(Scalar a, Matrix X) {
+        combine(this, X, a.getValue(), this);
+    }
+
+
+    // Writes A + factor * B into out, which may be A or B
+    private static Matrix combine(Matrix A, Matrix B, double factor, Matrix out) {
+        if (A.getNumOfRows() != B.getNumOfRows() || A.getNumOfColumns() != B.getNumOfColumns()) {
+            throw new IllegalArgumentException("Cannot add matrices with different dimensions.");
+        }
+        double[] result = outputData(out, A.getNumOfRows(), A.getNumOfColumns());
+
+        if (out == B) {
+            // B is read from the output itself, so both operands are combined in one pass
+            VectorKernels.addScaled(A.data(), factor, result, result);
+        } else {
+            if (out != A) {
+                if (A instanceof SparseMatrix) {
+                    Arrays.fill(result, 0.0);
+                    ((SparseMatrix) A).scatter(result, 1.0);
+                } else {
+                    System.arraycopy(A.data(), 0, result, 0, result.length);
+                }
+            }
+            if (B instanceof SparseMatrix) {
+                ((SparseMatrix) B).scatter(result, factor);
+            } else {
+                VectorKernels.axpy(factor, B.data(), result);
+            }
+        }
+
+        out.modified();
+        return out;
+    }
+
+
+    // Returns the dense storage of a matrix that receives the result of an operation, after checking its dimensions
+    private static double[] outputData(Matrix out, int numRows, int numCols) {
+        if (out.value == null) {
+            throw new UnsupportedOperationException("The result matrix must have dense storage.");
+        }
+        if (out.numOfRows != numRows || out.numOfColumns != numCols) {
+            throw new IllegalArgumentException("The result matrix has the wrong dimensions.");
+        }
+        return out.value;
+    }
+
+
+
+    // Vector multiplication
+    /**
+     * Multiplies a matrix by a vector and returns the result.
+     * 
+     * @param A The Matrix to be multiplied
+     * @param x The Vector to multiply by, with as many elements as A has columns
+     * @return The vector Ax
+     * @throws IllegalArgumentException If the length of x is not equal to the number of columns of A
+    */
+    public static Vector multiply(Matrix A, Vector x) {
+        Vector result = Vector.wrap(new double[A.getNumOfRows()]);
+        A.multiply(x, result);
+        return result;
+    }
+
+
+    /**
+     * Multiplies this Matrix by a vector and returns the result.
+     * 
+     * @param x The Vector to multiply by, with as many elements as this Matrix has columns
+     * @return The vector Ax
+     * @throws IllegalArgumentException If the length of x is not equal to the number of columns of this Matrix
+    */
+    public Vector multiply(Vector x) {
+        return multiply(this, x);
+    }
+
+
+    /**
+     * Multiplies this Matrix by a vector and writes the result into a preallocated vector, without allocating.
+     * This is the form to use inside iterative methods, which apply the same matrix to a new vector at every step.
+     * Dense and CSR matrices above the parallel threshold of MatrixMultiplication are split into row blocks computed in parallel.
+     * 
+     * @param x The Vector to multiply by, with as many elements as this Matrix has columns
+     * @param result The Vector that receives Ax, with as many elements as this Matrix has rows
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the dimensions of this Matrix,
+     *                                  or if result is the same vector as x
+    */
+    public void multiply(Vector x, Vector result) {
+        if (x == result) {
+            throw new IllegalArgumentException("The result vector must be different from the input vector.");
+        }
+        if (x.length() != numOfColumns) {
+            throw new IllegalArgumentException("Vector length must match the number of columns of the matrix.");
+        }
+        if (result.length() != numOfRows) {
+            throw new IllegalArgumentException("Result vector length must match the number of rows of the matrix.");
+        }
+        MatrixMultiplication.multiply(this, x.array(), x.offset(), result.array(), result.offset());
+    }
+
+
+    /**
+     * Multiplies this Matrix by several vectors at once and returns the results.
+     * The batch is computed as a single matrix product, so the entries of this Matrix are read once for all the vectors.
+     * 
+     * @param xs The Vectors to multiply by, each with as many elements as this Matrix has columns
+     * @return The vectors A xs[0], A xs[1], ... in the same order
+     * @throws IllegalArgumentException If the length of any vector is not equal to the number of columns of this Matrix
+    */
+    public Vector[] multiply(Vector[] xs) {
+        Vector[] results = new Vector[xs.length];
+        for (int v = 0; v < xs.length; v++) {
+            results[v] = new Vector(new double[numOfRows]);
+        }
+        multiply(xs, results);
+        return results;
+    }
+
+
+    /**
+     * Multiplies this Matrix by several vectors at once and writes the results into preallocated vectors.
+     * 
+     * @param xs The Vectors to multiply by, each with as many elements as this Matrix has columns
+     * @param results The Vectors that receive A xs[0], A xs[1], ..., each with as many elements as this Matrix has rows
+     * @throws IllegalArgumentException If the number of input and result vectors differ,
+     *                                  or if the length of any vector does not match the dimensions of this Matrix
+    */
+    public void multiply(Vector[] xs, Vector[] results) {
+        if (xs.length != results.length) {
+            throw new IllegalArgumentException("The number of result vectors must match the number of input vectors.");
+        }
+        double[][] inputs = new double[xs.length][];
+        double[][] outputs = new double[results.length][];
+        int[] inputOffsets = new int[xs.length];
+        int[] outputOffsets = new int[results.length];
+        for (int v = 0; v < xs.length; v++) {
+            if (xs[v].length() != numOfColumns) {
+                throw new IllegalArgumentException("Vector length must match the number of columns of the matrix.");
+            }
+            if (results[v].length() != numOfRows) {
+                throw new IllegalArgumentException("Result vector length must match the number of rows of the matrix.");
+            }
+            inputs[v] = xs[v].array();
+            inputOffsets[v] = xs[v].offset();
+            outputs[v] = results[v].array();
+            outputOffsets[v] = results[v].offset();
+        }
+        MatrixMultiplication.multiply(this, inputs, inputOffsets, outputs, outputOffsets);
+    }
+
+
+
+    // Linear operator
+    /**
+     * Applies this Matrix to a vector, writing Ax into a preallocated vector. Same as multiply(x, y).
+     * 
+     * @param x The Vector to multiply by, with as many elements as this Matrix has columns
+     * @param y The Vector that receives Ax, with as many elements as this Matrix has rows
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the dimensions of this Matrix,
+     *                                  or if y is the same vector as x
+    */
+    @Override
+    public void apply(Vector x, Vector y) {
+        multiply(x, y);
+    }
+
+
+    /**
+     * Applies the transpose of this Matrix to a vector, writing A^T x into a preallocated vector without forming the transpose.
+     * 
+     * @param x The Vector to multiply by, with as many elements as this Matrix has rows
+     * @param y The Vector that receives A^T x, with as many elements as this Matrix has columns
+     * @throws IllegalArgumentException If the lengths of the vectors do not match the dimensions of this Matrix,
+     *                                  or if y is the same vector as x
+    */
+    @Override
+    public void applyTranspose(Vector x, Vector y) {
+        if (x == y) {
+            throw new IllegalArgumentException("The result vector must be different from the input vector.");
+        }
+        if (x.length() != numOfRows) {
+            throw new IllegalArgumentException("Vector length must match the number of rows of the matrix.");
+        }
+        if (y.length() != numOfColumns) {
+            throw new IllegalArgumentException("Result vector length must match the number of columns of the matrix.");
+        }
+        MatrixMultiplication.multiplyTranspose(this, x.array(), x.offset(), y.array(), y.offset());
+    }
+
+
+
+    // Lazy evaluation
+    /**
+     * Starts a lazily evaluated formula on this Matrix, e.g. A.lazy().multiply(B).multiply(C).add(D).evaluate().
+     * The formula is evaluated only on evaluate(), with sums and multiples fused into one pass and products done in the cheapest order.
+     * The Matrix is not copied, so changes made to it before evaluation are seen by the formula.
+     *
+     * @return An expression standing for this Matrix
+     */
+    public MatrixExpression lazy() {
+        return MatrixExpression.of(this);
+    }
+
+
 
 
 
@@ -465,17 +869,60 @@ public class Matrix implements Cloneable {
     public Matrix transpose() {
         int numRows = this.getNumOfColumns(); // Number of rows in the transpose will be equal to number of columns in the original matrix
         int numCols = this.getNumOfRows(); // Number of columns in the transpose will be equal to number of rows in the original matrix
-        double[][] result = new double[numRows][numCols];
+        double[] result = new double[numRows * numCols];
+        transpose(this.data(), result, numRows, numCols);
     
-        // Transpose the matrix
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                result[i][j] = this.getEntry(j, i); // Swap rows and columns for the transpose
+        // Create and return the transpose matrix
+        return new Matrix(result, numRows, numCols);
+    }
+
+
+    /**
+     * Transposes this Matrix and writes the result into a preallocated matrix instead of allocating one.
+     * A square Matrix can be transposed in place by passing itself as the output.
+     * 
+     * @param out The Matrix that receives the transpose, with as many rows as this Matrix has columns and dense storage
+     * @return The output matrix out
+     * @throws IllegalArgumentException If out has the wrong dimensions
+     * @throws UnsupportedOperationException If out is a matrix with a compact storage
+     */
+    public Matrix transpose(Matrix out) {
+        int numRows = this.getNumOfColumns();
+        int numCols = this.getNumOfRows();
+        double[] result = outputData(out, numRows, numCols);
+
+        if (out == this) {
+            // Square and in place: swap the entries across the diagonal
+            for (int i = 0; i < numRows; i++) {
+                for (int j = i + 1; j < numCols; j++) {
+                    double temp = result[i * numCols + j];
+                    result[i * numCols + j] = result[j * numCols + i];
+                    result[j * numCols + i] = temp;
+                }
+            }
+        } else {
+            transpose(this.data(), result, numRows, numCols);
+        }
+
+        out.modified();
+        return out;
+    }
+
+
+    // Writes the transpose of the numCols x numRows row-major array value into result
+    static void transpose(double[] value, double[] result, int numRows, int numCols) {
+        // Transpose the matrix tile by tile, so both the reads and the writes stay within a few cache lines
+        for (int ii = 0; ii < numRows; ii += TRANSPOSE_BLOCK) {
+            int iEnd = Math.min(ii + TRANSPOSE_BLOCK, numRows);
+            for (int jj = 0; jj < numCols; jj += TRANSPOSE_BLOCK) {
+                int jEnd = Math.min(jj + TRANSPOSE_BLOCK, numCols);
+                for (int i = ii; i < iEnd; i++) {
+                    for (int j = jj; j < jEnd; j++) {
+                        result[i * numCols + j] = value[j * numRows + i]; // Swap rows and columns for the transpose
+                    }
+                }
             }
         }
-    
-        // Create and return the transpose matrix
-        return new Matrix(result);
     }
 
     
@@ -492,11 +939,12 @@ public class Matrix implements Cloneable {
      * @return The row echelon form (REF) of the input matrix
      */
     public static Matrix ref(Matrix M) {
-        // Create a copy of the input matrix
-        Matrix refMatrix = M.clone();
+        // Create a copy of the input matrix, with dense storage so the rows can be reduced in place
+        Matrix refMatrix = M.hasDenseStorage() ? M.clone() : new Matrix(M.copyData(), M.getNumOfRows(), M.getNumOfColumns());
 
         int numRows = refMatrix.getNumOfRows();
         int numCols = refMatrix.getNumOfColumns();
+        double[] value = refMatrix.value;
         int lead = 0;
 
         // Iterate through each row
@@ -519,29 +967,31 @@ public class Matrix implements Cloneable {
             }
 
             // Swap rows if necessary to bring the pivot to the current row
-            double[] temp = refMatrix.value[i];
-            refMatrix.value[i] = refMatrix.value[r];
-            refMatrix.value[r] = temp;
+            int pivotRow = r * numCols;
+            if (i != r) {
+                swapRows(value, i * numCols, pivotRow, numCols);
+            }
 
             // Scale the current row so that the pivot becomes 1
-            double pivotValue = refMatrix.value[r][lead];
-            for (int j = 0; j < numCols; j++) {
-                refMatrix.value[r][j] /= pivotValue;
+            double pivotValue = value[pivotRow + lead];
+            for (int j = pivotRow; j < pivotRow + numCols; j++) {
+                value[j] /= pivotValue;
                 // Correct -0 values to 0
-                if (Math.abs(refMatrix.value[r][j]) == 0) {
-                    refMatrix.value[r][j] = 0;
+                if (Math.abs(value[j]) == 0) {
+                    value[j] = 0;
                 }
             }
 
             // Eliminate other entries in the current column
             for (int i2 = 0; i2 < numRows; i2++) {
                 if (i2 != r) {
-                    double scaleFactor = refMatrix.value[i2][lead];
+                    int row = i2 * numCols;
+                    double scaleFactor = value[row + lead];
                     for (int j = 0; j < numCols; j++) {
-                        refMatrix.value[i2][j] -= scaleFactor * refMatrix.value[r][j];
+                        value[row + j] -= scaleFactor * value[pivotRow + j];
                         // Correct -0 values to 0
-                        if (Math.abs(refMatrix.value[i2][j]) == 0) {
-                            refMatrix.value[i2][j] = 0;
+                        if (Math.abs(value[row + j]) == 0) {
+                            value[row + j] = 0;
                         }
                     }
                 }
@@ -553,6 +1003,16 @@ public class Matrix implements Cloneable {
         return refMatrix;
     }
 
+
+    // Swaps two rows of length numCols that start at the given offsets of a row-major array
+    private static void swapRows(double[] value, int first, int second, int numCols) {
+        for (int j = 0; j < numCols; j++) {
+            double temp = value[first + j];
+            value[first + j] = value[second + j];
+            value[second + j] = temp;
+        }
+    }
+
     
       
 
@@ -573,6 +1033,7 @@ public class Matrix implements Cloneable {
     
         int numRows = refMatrix.getNumOfRows();
         int numCols = refMatrix.getNumOfColumns();
+        double[] value = refMatrix.value;
         int lead = 0;
     
         // Iterate through each row (from bottom to top)
@@ -592,15 +1053,17 @@ public class Matrix implements Cloneable {
     
             // If a pivot column is found, make the leading entry the only non-zero entry in its column
             if (i >= 0) {
-                double pivotValue = refMatrix.getEntry(i, lead);
-                for (int j = 0; j < numCols; j++) {
-                    refMatrix.setEntry(i, j, refMatrix.getEntry(i, j) / pivotValue);
+                int pivotRow = i * numCols;
+                double pivotValue = value[pivotRow + lead];
+                for (int j = pivotRow; j < pivotRow + numCols; j++) {
+                    value[j] /= pivotValue;
                 }
                 for (int i2 = 0; i2 < numRows; i2++) {
                     if (i2 != i) {
-                        double scaleFactor = refMatrix.getEntry(i2, lead);
+                        int row = i2 * numCols;
+                        double scaleFactor = value[row + lead];
                         for (int j = 0; j < numCols; j++) {
-                            refMatrix.setEntry(i2, j, refMatrix.getEntry(i2, j) - scaleFactor * refMatrix.getEntry(i, j));
+                            value[row + j] -= scaleFactor * value[pivotRow + j];
                         }
                     }
                 }
@@ -611,7 +1074,137 @@ public class Matrix implements Cloneable {
     
         return refMatrix;
     }
-    
+
+
+
+    // QR decomposition
+    /**
+     * Computes the QR decomposition of this matrix with blocked Householder reflections, without column pivoting.
+     *
+     * @return The QR decomposition of this matrix
+     */
+    public QRDecomposition qr() {
+        return new QRDecomposition(this);
+    }
+
+
+    /**
+     * Computes the QR decomposition of this matrix, with column pivoting if requested.
+     * Pivoting is slower but reveals the numerical rank and handles rank-deficient matrices.
+     *
+     * @param pivoting Whether to use column pivoting
+     * @return The QR decomposition of this matrix
+     */
+    public QRDecomposition qr(boolean pivoting) {
+        return new QRDecomposition(this, pivoting);
+    }
+
+
+    // Least squares
+    /**
+     * Finds the vector x that minimizes ||Ax - b|| through the QR decomposition of A, without forming A^T A.
+     * The decomposition is computed without pivoting first, and again with pivoting if A turns out to be rank deficient,
+     * in which case the basic solution is returned.
+     *
+     * @param A The matrix, usually with more rows than columns
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The least-squares solution x
+     * @throws IllegalArgumentException If the length of b does not match the number of rows of A
+     */
+    public static Vector solveLeastSquares(Matrix A, Vector b) {
+        QRDecomposition qr = new QRDecomposition(A);
+        if (!qr.isFullRank()) {
+            qr = new QRDecomposition(A, true);
+        }
+        return qr.solve(b);
+    }
+
+
+    /**
+     * Finds the vector x that minimizes ||Ax - b||, where A is this matrix.
+     *
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The least-squares solution x
+     * @throws IllegalArgumentException If the length of b does not match the number of rows of this matrix
+     */
+    public Vector solveLeastSquares(Vector b) {
+        return Matrix.solveLeastSquares(this, b);
+    }
+
+
+
+    // Singular value decomposition
+    /**
+     * Computes the thin singular value decomposition of this matrix, with its singular vectors.
+     *
+     * @return The singular value decomposition of this matrix
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public SingularValueDecomposition svd() {
+        return new SingularValueDecomposition(this);
+    }
+
+
+    /**
+     * Computes the Moore-Penrose pseudo-inverse of this matrix from its singular value decomposition.
+     * Unlike the inverse, it exists for every matrix, including rectangular and singular ones;
+     * for a matrix of full column rank, pinv() b is the least-squares solution of Ax = b.
+     *
+     * @return The pseudo-inverse, with the dimensions of the transpose of this matrix
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public Matrix pinv() {
+        return svd().pinv();
+    }
+
+
+    /**
+     * Returns the numerical rank of this matrix, the number of singular values above max(m, n) * eps * the largest one.
+     * Only the singular values are computed, without the singular vectors.
+     *
+     * @return The numerical rank of this matrix
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public int rank() {
+        return new SingularValueDecomposition(this, false).getRank();
+    }
+
+
+    /**
+     * Returns the number of singular values of this matrix above the given tolerance.
+     *
+     * @param tolerance The value at or below which a singular value counts as zero
+     * @return The numerical rank of this matrix for the given tolerance
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public int rank(double tolerance) {
+        return new SingularValueDecomposition(this, false).getRank(tolerance);
+    }
+
+
+    /**
+     * Returns the 2-norm condition number of this matrix, the ratio of its largest to its smallest singular value.
+     * Only the singular values are computed, without the singular vectors.
+     *
+     * @return The condition number, infinite if this matrix is rank deficient
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public double cond() {
+        return new SingularValueDecomposition(this, false).cond();
+    }
+
+
+    /**
+     * Computes the best approximation of rank k of this matrix, from its k largest singular values and their vectors.
+     *
+     * @param k The rank of the approximation
+     * @return The approximation of rank at most k, with the dimensions of this matrix
+     * @throws IllegalArgumentException If k is negative or larger than the smaller dimension of this matrix
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public Matrix lowRankApproximation(int k) {
+        return svd().lowRankApproximation(k);
+    }
 
 
 
@@ -0,0 +1,55 @@
+package am.aua.linalg.core;
+
+/**
+ * The MatrixDecomposition interface defines the operations shared by the factorizations of a square matrix.
+ * A factorization is computed once and then reused for any number of determinants, solves and divisions.
+ */
+public interface MatrixDecomposition {
+
+    /**
+     * Checks whether the decomposed matrix has been modified since it was decomposed.
+     *
+     * @return true if the decomposition no longer describes its matrix, false otherwise
+     */
+    boolean isStale();
+
+    /**
+     * Computes the determinant of the decomposed matrix.
+     *
+     * @return The determinant of the decomposed matrix
+     */
+    double det();
+
+    /**
+     * Solves the system AX = B, where A is the decomposed matrix.
+     *
+     * @param B The right-hand side, with as many rows as A
+     * @return The solution X
+     */
+    Matrix solve(Matrix B);
+
+    /**
+     * Solves the system Ax = b, where A is the decomposed matrix.
+     *
+     * @param b The right-hand side vector, with as many elements as A has rows
+     * @return The solution x
+     */
+    Vector solve(Vector b);
+
+    /**
+     * Computes B times the inverse of the decomposed matrix A by solving XA = B.
+     *
+     * @param B The matrix to divide, with as many columns as A
+     * @return The solution X = B * A^-1
+     */
+    Matrix divide(Matrix B);
+
+    /**
+     * Computes the inverse of the decomposed matrix.
+     *
+     * @return The inverse of the decomposed matrix
+     */
+    SquareMatrix inverse();
+
+
+}
@@ -0,0 +1,457 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents a lazily evaluated matrix formula, built from Matrix.lazy() and the methods of this class.
+ * Nothing is computed until evaluate() is called; until then the formula is only recorded as a tree, which lets it be rearranged:
+ * <ul>
+ *     <li>sums, differences and scalar multiples collapse into one linear combination, evaluated in a single pass
+ *         over the entries without any intermediate matrix;</li>
+ *     <li>chains of products are flattened and multiplied in the order that needs the fewest scalar operations
+ *         (matrix-chain ordering), e.g. A(Bx) rather than (AB)x when x has few columns;</li>
+ *     <li>transposes are pushed down to the leaves, (AB)^T = B^T A^T.</li>
+ * </ul>
+ * The leaves refer to their matrices without copying them, so a matrix changed before evaluation is read with its new entries.
+ */
+public abstract class MatrixExpression {
+
+    // Number of entries of the result computed together by the fused element-wise loop, sized to stay in L1
+    private static final int FUSION_BLOCK = 1024;
+
+    // Instance variables
+    private final int numOfRows;       // Number of rows of the result
+    private final int numOfColumns;    // Number of columns of the result
+
+
+    // Constructor
+    MatrixExpression(int numOfRows, int numOfColumns) {
+        this.numOfRows = numOfRows;
+        this.numOfColumns = numOfColumns;
+    }
+
+
+    /**
+     * Returns an expression that stands for the given matrix.
+     *
+     * @param M The matrix
+     * @return A leaf expression referring to M
+     */
+    public static MatrixExpression of(Matrix M) {
+        return new Leaf(M);
+    }
+
+
+
+    // Accessors
+    /**
+     * Retrieves the number of rows of the result of this expression.
+     *
+     * @return The number of rows of the result
+     */
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    /**
+     * Retrieves the number of columns of the result of this expression.
+     *
+     * @return The number of columns of the result
+     */
+    public int getNumOfColumns() {
+        return numOfColumns;
+    }
+
+
+
+    // Building
+    /**
+     * Records the sum of this expression and another one.
+     *
+     * @param O The expression to add
+     * @return The expression this + O
+     * @throws IllegalArgumentException If the expressions have different dimensions
+     */
+    public MatrixExpression add(MatrixExpression O) {
+        return combine(O, 1.0);
+    }
+
+    /**
+     * Records the sum of this expression and a matrix.
+     *
+     * @param O The matrix to add
+     * @return The expression this + O
+     * @throws IllegalArgumentException If the dimensions differ
+     */
+    public MatrixExpression add(Matrix O) {
+        return add(of(O));
+    }
+
+    /**
+     * Records the difference of this expression and another one.
+     *
+     * @param O The expression to subtract
+     * @return The expression this - O
+     * @throws IllegalArgumentException If the expressions have different dimensions
+     */
+    public MatrixExpression subtract(MatrixExpression O) {
+        return combine(O, -1.0);
+    }
+
+    /**
+     * Records the difference of this expression and a matrix.
+     *
+     * @param O The matrix to subtract
+     * @return The expression this - O
+     * @throws IllegalArgumentException If the dimensions differ
+     */
+    public MatrixExpression subtract(Matrix O) {
+        return subtract(of(O));
+    }
+
+    /**
+     * Records the product of this expression and a scalar value.
+     *
+     * @param a The scalar value to multiply by
+     * @return The expression a * this
+     */
+    public MatrixExpression scalarMultiply(Scalar a) {
+        Combination terms = Combination.of(this);
+        double[] coefficients = terms.coefficients.clone();
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] *= a.getValue();
+        }
+        return new Combination(coefficients, terms.operands);
+    }
+
+    /**
+     * Records the product of this expression and another one.
+     *
+     * @param O The expression to multiply by
+     * @return The expression this * O
+     * @throws IllegalArgumentException If the number of columns of this expression is not equal to the number of rows of O
+     */
+    public MatrixExpression multiply(MatrixExpression O) {
+        if (numOfColumns != O.numOfRows) {
+            throw new IllegalArgumentException("Cannot multiply matrices with incompatible dimensions.");
+        }
+        MatrixExpression[] left = factors(this);
+        MatrixExpression[] right = factors(O);
+        MatrixExpression[] chain = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, chain, left.length, right.length);
+        return new Product(chain);
+    }
+
+    /**
+     * Records the product of this expression and a matrix.
+     *
+     * @param O The matrix to multiply by
+     * @return The expression this * O
+     * @throws IllegalArgumentException If the number of columns of this expression is not equal to the number of rows of O
+     */
+    public MatrixExpression multiply(Matrix O) {
+        return multiply(of(O));
+    }
+
+    /**
+     * Records the transpose of this expression.
+     *
+     * @return The expression this^T
+     */
+    public abstract MatrixExpression transpose();
+
+
+    // Records this + sign * O as a single linear combination
+    private MatrixExpression combine(MatrixExpression O, double sign) {
+        if (numOfRows != O.numOfRows || numOfColumns != O.numOfColumns) {
+            throw new IllegalArgumentException("Cannot add matrices with different dimensions.");
+        }
+        Combination left = Combination.of(this);
+        Combination right = Combination.of(O);
+        int n = left.operands.length;
+        double[] coefficients = Arrays.copyOf(left.coefficients, n + right.operands.length);
+        MatrixExpression[] operands = Arrays.copyOf(left.operands, n + right.operands.length);
+        for (int i = 0; i < right.operands.length; i++) {
+            coefficients[n + i] = sign * right.coefficients[i];
+            operands[n + i] = right.operands[i];
+        }
+        return new Combination(coefficients, operands);
+    }
+
+
+    // Returns the factors of a product, or the expression itself if it is not a product
+    private static MatrixExpression[] factors(MatrixExpression E) {
+        return E instanceof Product ? ((Product) E).factors : new MatrixExpression[] { E };
+    }
+
+
+
+    // Evaluation
+    /**
+     * Evaluates the expression and returns its value as a new matrix.
+     *
+     * @return The value of this expression
+     */
+    public Matrix evaluate() {
+        return compute();
+    }
+
+
+    /**
+     * Computes the value of this expression.
+     * Leaves return their own matrix, which callers must treat as read-only.
+     *
+     * @return The value of this expression
+     */
+    abstract Matrix compute();
+
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+
+    // Returns the formula of this expression, e.g. "(2.0 * A + B)"
+    abstract String describe();
+
+
+
+    /**
+     * A matrix at a leaf of the tree.
+     */
+    private static class Leaf extends MatrixExpression {
+
+        private final Matrix matrix;
+
+        Leaf(Matrix matrix) {
+            super(matrix.getNumOfRows(), matrix.getNumOfColumns());
+            this.matrix = matrix;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return new Transposed(this);
+        }
+
+        @Override
+        public Matrix evaluate() {
+            return matrix.clone();
+        }
+
+        @Override
+        Matrix compute() {
+            return matrix;
+        }
+
+        @Override
+        String describe() {
+            return "M" + matrix.getNumOfRows() + "x" + matrix.getNumOfColumns();
+        }
+    }
+
+
+    /**
+     * The transpose of a leaf; transposes of other nodes are pushed down to their leaves.
+     */
+    private static class Transposed extends MatrixExpression {
+
+        private final Leaf operand;
+
+        Transposed(Leaf operand) {
+            super(operand.getNumOfColumns(), operand.getNumOfRows());
+            this.operand = operand;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            return operand;
+        }
+
+        @Override
+        Matrix compute() {
+            return operand.compute().transpose();
+        }
+
+        @Override
+        String describe() {
+            return operand.describe() + "^T";
+        }
+    }
+
+
+    /**
+     * A linear combination c0 * E0 + c1 * E1 + ..., none of whose operands is itself a combination.
+     * All the operands are evaluated first and then combined entry by entry in a single fused pass.
+     */
+    private static class Combination extends MatrixExpression {
+
+        private final double[] coefficients;
+        private final MatrixExpression[] operands;
+
+        Combination(double[] coefficients, MatrixExpression[] operands) {
+            super(operands[0].getNumOfRows(), operands[0].getNumOfColumns());
+            this.coefficients = coefficients;
+            this.operands = operands;
+        }
+
+        // Views any expression as a combination, a single operand with coefficient 1 if it is not one already
+        static Combination of(MatrixExpression E) {
+            if (E instanceof Combination) {
+                return (Combination) E;
+            }
+            return new Combination(new double[] { 1.0 }, new MatrixExpression[] { E });
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            MatrixExpression[] transposed = new MatrixExpression[operands.length];
+            for (int i = 0; i < operands.length; i++) {
+                transposed[i] = operands[i].transpose();
+            }
+            return new Combination(coefficients.clone(), transposed);
+        }
+
+        @Override
+        Matrix compute() {
+            int numRows = getNumOfRows();
+            int numCols = getNumOfColumns();
+            Matrix[] values = new Matrix[operands.length];
+            boolean allSparse = true;
+            for (int i = 0; i < operands.length; i++) {
+                values[i] = operands[i].compute();
+                allSparse &= values[i] instanceof SparseMatrix;
+            }
+
+            // Sparse operands are combined with the sparse kernels instead of being expanded
+            if (allSparse) {
+                Matrix result = Matrix.scalarMultiply(values[0], new Scalar(coefficients[0]));
+                for (int i = 1; i < values.length; i++) {
+                    result = Matrix.add(result, Matrix.scalarMultiply(values[i], new Scalar(coefficients[i])));
+                }
+                return result;
+            }
+
+            double[][] arrays = new double[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                arrays[i] = values[i].data();
+            }
+
+            // Fused pass: each block of the result stays in cache while every operand is added to it
+            double[] result = new double[numRows * numCols];
+            for (int start = 0; start < result.length; start += FUSION_BLOCK) {
+                int end = Math.min(start + FUSION_BLOCK, result.length);
+                double c0 = coefficients[0];
+                double[] a0 = arrays[0];
+                for (int k = start; k < end; k++) {
+                    result[k] = c0 * a0[k];
+                }
+                for (int i = 1; i < arrays.length; i++) {
+                    double c = coefficients[i];
+                    double[] a = arrays[i];
+                    for (int k = start; k < end; k++) {
+                        result[k] += c * a[k];
+                    }
+                }
+            }
+            return new Matrix(result, numRows, numCols);
+        }
+
+        @Override
+        String describe() {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < operands.length; i++) {
+                double c = coefficients[i];
+                if (i > 0) {
+                    sb.append(c < 0 ? " - " : " + ");
+                    c = Math.abs(c);
+                } else if (c < 0) {
+                    sb.append("-");
+                    c = -c;
+                }
+                if (c != 1) {
+                    sb.append(c).append(" * ");
+                }
+                sb.append(operands[i].describe());
+            }
+            return sb.append(")").toString();
+        }
+    }
+
+
+    /**
+     * A chain of at least two factors, none of which is itself a product.
+     * The factors are evaluated first and then multiplied in the cheapest order.
+     */
+    private static class Product extends MatrixExpression {
+
+        private final MatrixExpression[] factors;
+
+        Product(MatrixExpression[] factors) {
+            super(factors[0].getNumOfRows(), factors[factors.length - 1].getNumOfColumns());
+            this.factors = factors;
+        }
+
+        @Override
+        public MatrixExpression transpose() {
+            MatrixExpression[] transposed = new MatrixExpression[factors.length];
+            for (int i = 0; i < factors.length; i++) {
+                transposed[factors.length - 1 - i] = factors[i].transpose();
+            }
+            return new Product(transposed);
+        }
+
+        @Override
+        Matrix compute() {
+            int n = factors.length;
+            Matrix[] values = new Matrix[n];
+            long[] dims = new long[n + 1];    // Factor i is dims[i] x dims[i + 1]
+            for (int i = 0; i < n; i++) {
+                values[i] = factors[i].compute();
+                dims[i] = values[i].getNumOfRows();
+            }
+            dims[n] = values[n - 1].getNumOfColumns();
+
+            // Matrix-chain ordering: cost[i][j] is the fewest multiply-adds for factors i..j, split[i][j] where to split them
+            long[][] cost = new long[n][n];
+            int[][] split = new int[n][n];
+            for (int length = 2; length <= n; length++) {
+                for (int i = 0; i + length - 1 < n; i++) {
+                    int j = i + length - 1;
+                    cost[i][j] = Long.MAX_VALUE;
+                    for (int k = i; k < j; k++) {
+                        long candidate = cost[i][k] + cost[k + 1][j] + dims[i] * dims[k + 1] * dims[j + 1];
+                        if (candidate < cost[i][j]) {
+                            cost[i][j] = candidate;
+                            split[i][j] = k;
+                        }
+                    }
+                }
+            }
+            return multiply(values, split, 0, n - 1);
+        }
+
+        // Multiplies factors i..j in the order recorded by the split table
+        private static Matrix multiply(Matrix[] values, int[][] split, int i, int j) {
+            if (i == j) {
+                return values[i];
+            }
+            int k = split[i][j];
+            return Matrix.multiply(multiply(values, split, i, k), multiply(values, split, k + 1, j));
+        }
+
+        @Override
+        String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < factors.length; i++) {
+                if (i > 0) {
+                    sb.append(" * ");
+                }
+                sb.append(factors[i].describe());
+            }
+            return sb.toString();
+        }
+    }
+
+
+}
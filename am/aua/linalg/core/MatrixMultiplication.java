@@ -0,0 +1,1033 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The MatrixMultiplication class is the engine behind Matrix.multiply and SquareMatrix.multiply.
+ * It first dispatches on the structure of the operands (identity, diagonal, sparse, lower or upper triangular, or general),
+ * so that structured products skip their zero entries and keep the most specific result type.
+ * General products are multiplied as flat row-major arrays with a cache-blocked kernel: the loops run in i-k-j order,
+ * the right operand is split into tiles sized for the L1/L2 caches and packed into contiguous rows,
+ * and a micro-kernel updates four result rows together while streaming one packed row of the right operand.
+ * Large products are additionally split into tiles of the result that are computed in parallel on a ForkJoinPool.
+ */
+public final class MatrixMultiplication {
+
+    // Tile sizes
+    static final int DEPTH_BLOCK = 256;   // Shared dimension per tile, keeps the packed B tile in L2
+    static final int COLUMN_BLOCK = 512;  // Columns of B (and C) per tile, keeps one packed B row in L1
+    static final int MICRO_ROWS = 4;      // Rows of C updated together by the micro-kernel
+
+
+    // Parallel settings
+    private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    private static volatile long parallelThreshold = 128L * 128 * 128;
+    private static ForkJoinPool pool;
+
+
+    private MatrixMultiplication() {
+    }
+
+
+
+    // Parallelism
+    /**
+     * Returns the number of worker threads used for large products.
+     *
+     * @return The parallelism level of the multiplication engine
+     */
+    public static int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of worker threads used for large products.
+     * A level of 1 keeps every multiplication on the calling thread.
+     * Products already running, or about to start, on the previous pool finish there;
+     * that pool is not shut down, and its idle worker threads expire on their own.
+     *
+     * @param level The new parallelism level
+     * @throws IllegalArgumentException If the level is less than 1
+     */
+    public static synchronized void setParallelism(int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("Parallelism level must be at least 1.");
+        }
+        if (level != parallelism) {
+            // A caller may already hold the old pool, so it is only dropped and a new one is created on the next use
+            pool = null;
+        }
+        parallelism = level;
+    }
+
+    /**
+     * Returns the minimum number of scalar multiply-adds (rows x depth x columns) for which a product is split across threads.
+     *
+     * @return The parallel threshold of the multiplication engine
+     */
+    public static long getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the minimum number of scalar multiply-adds (rows x depth x columns) for which a product is split across threads.
+     * Smaller products stay on the sequential path, where the cost of forking would outweigh the work.
+     *
+     * @param threshold The new parallel threshold
+     * @throws IllegalArgumentException If the threshold is negative
+     */
+    public static void setParallelThreshold(long threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold cannot be negative.");
+        }
+        parallelThreshold = threshold;
+    }
+
+
+    private static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+
+
+    // Multiplication
+    /**
+     * Multiplies two matrices with the cheapest kernel for their structure and returns the most specific result type.
+     * An identity operand is skipped, a diagonal operand scales rows or columns, sparse operands only visit their stored entries,
+     * triangular operands skip their zero half, and two lower (or two upper) triangular matrices give a packed triangular product.
+     * Only products of two general matrices go through the cache-blocked kernel.
+     * The dimensions are expected to have been checked by the caller.
+     *
+     * @param A The left operand
+     * @param B The right operand, with as many rows as A has columns
+     * @return The product AB, as a SquareMatrix or one of its structured subclasses when both operands are square
+     */
+    static Matrix multiply(Matrix A, Matrix B) {
+        Structure left = structureOf(A);
+        Structure right = structureOf(B);
+        boolean square = A instanceof SquareMatrix && B instanceof SquareMatrix;
+
+        // The identity leaves the other operand unchanged
+        if (left == Structure.IDENTITY) {
+            return B.clone();
+        }
+        if (right == Structure.IDENTITY) {
+            return A.clone();
+        }
+
+        // A diagonal operand scales the rows or columns of the other one and keeps its structure
+        if (left == Structure.DIAGONAL) {
+            return scaleRows(((DiagonalMatrix) A).diagonalData(), B, right, square);
+        }
+        if (right == Structure.DIAGONAL) {
+            return scaleColumns(A, ((DiagonalMatrix) B).diagonalData(), left, square);
+        }
+
+        // Sparse operands only visit their stored entries, and the product of two sparse matrices stays sparse
+        if (left == Structure.SPARSE && right == Structure.SPARSE) {
+            return sparseTimesSparse(((SparseMatrix) A).toCSR(), ((SparseMatrix) B).toCSR());
+        }
+        if (left == Structure.SPARSE) {
+            double[] c = sparseTimesDense(((SparseMatrix) A).toCSR(), B.data(), B.getNumOfColumns());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), false);
+        }
+        if (right == Structure.SPARSE) {
+            double[] c = denseTimesSparse(A.data(), ((SparseMatrix) B).toCSR(), A.getNumOfRows());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), false);
+        }
+
+        // Triangular operands only touch their non-zero half
+        if (left == Structure.LOWER && right == Structure.LOWER) {
+            int size = A.getNumOfRows();
+            return new LowerTriangularMatrix(
+                    lowerTimesLower(((LowerTriangularMatrix) A).packedData(), ((LowerTriangularMatrix) B).packedData(), size), size);
+        }
+        if (left == Structure.UPPER && right == Structure.UPPER) {
+            int size = A.getNumOfRows();
+            return new UpperTriangularMatrix(
+                    upperTimesUpper(((UpperTriangularMatrix) A).packedData(), ((UpperTriangularMatrix) B).packedData(), size), size);
+        }
+        if (left == Structure.LOWER) {
+            double[] c = lowerTimesDense(((LowerTriangularMatrix) A).packedData(), B.data(), A.getNumOfRows(), B.getNumOfColumns());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), square);
+        }
+        if (left == Structure.UPPER) {
+            double[] c = upperTimesDense(((UpperTriangularMatrix) A).packedData(), B.data(), A.getNumOfRows(), B.getNumOfColumns());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), square);
+        }
+        if (right == Structure.LOWER) {
+            double[] c = denseTimesLower(A.data(), ((LowerTriangularMatrix) B).packedData(), A.getNumOfRows(), B.getNumOfColumns());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), square);
+        }
+        if (right == Structure.UPPER) {
+            double[] c = denseTimesUpper(A.data(), ((UpperTriangularMatrix) B).packedData(), A.getNumOfRows(), B.getNumOfColumns());
+            return dense(c, A.getNumOfRows(), B.getNumOfColumns(), square);
+        }
+
+        // General operands
+        double[] c = multiply(A.data(), B.data(), A.getNumOfRows(), A.getNumOfColumns(), B.getNumOfColumns());
+        return dense(c, A.getNumOfRows(), B.getNumOfColumns(), square);
+    }
+
+
+    /**
+     * Multiplies two matrices into a preallocated row-major array, overwriting its contents.
+     * Two general operands are multiplied by the cache-blocked kernel straight into c without allocating a result;
+     * structured operands are multiplied by their own kernels and the product is copied into c.
+     * The dimensions are expected to have been checked by the caller, and c must not be the storage of A or B.
+     *
+     * @param A The left operand
+     * @param B The right operand, with as many rows as A has columns
+     * @param c The array that receives the product, with room for A.getNumOfRows() * B.getNumOfColumns() entries
+     */
+    static void multiply(Matrix A, Matrix B, double[] c) {
+        if (structureOf(A) == Structure.DENSE && structureOf(B) == Structure.DENSE) {
+            Arrays.fill(c, 0.0);
+            multiply(A.data(), B.data(), c, A.getNumOfRows(), A.getNumOfColumns(), B.getNumOfColumns());
+        } else {
+            System.arraycopy(multiply(A, B).data(), 0, c, 0, c.length);
+        }
+    }
+
+
+    // Structure of a matrix as seen by the dispatch, from the most to the least specific
+    private enum Structure {
+        IDENTITY, DIAGONAL, SPARSE, LOWER, UPPER, DENSE
+    }
+
+
+    private static Structure structureOf(Matrix M) {
+        if (M instanceof IdentityMatrix) {
+            return Structure.IDENTITY;
+        }
+        if (M instanceof DiagonalMatrix) {
+            return Structure.DIAGONAL;
+        }
+        if (M instanceof SparseMatrix) {
+            return Structure.SPARSE;
+        }
+        if (M instanceof LowerTriangularMatrix) {
+            return Structure.LOWER;
+        }
+        if (M instanceof UpperTriangularMatrix) {
+            return Structure.UPPER;
+        }
+        return Structure.DENSE;
+    }
+
+
+    // Wraps a dense row-major product, keeping it a SquareMatrix when both operands were square
+    private static Matrix dense(double[] c, int numOfRows, int numOfColumns, boolean square) {
+        return square ? new SquareMatrix(c, numOfRows) : new Matrix(c, numOfRows, numOfColumns);
+    }
+
+
+    // Index of the entry (i, 0) in a packed lower triangular array
+    private static int lowerRowStart(int i) {
+        return i * (i + 1) / 2;
+    }
+
+
+    // Index of the entry (i, i) in a packed upper triangular array of the given size
+    private static int upperRowStart(int i, int size) {
+        return i * size - i * (i - 1) / 2;
+    }
+
+
+
+    // Matrix-vector multiplication
+    /**
+     * Multiplies a matrix by a vector and stores the product in y, y = Ax, choosing the kernel from the structure of A.
+     * Identity and diagonal matrices take O(n) time, sparse and triangular matrices only visit their stored entries,
+     * and dense and CSR matrices above the parallel threshold are split into row blocks computed on the ForkJoinPool.
+     * The vectors start at the given offsets, so that slices are read and written in place.
+     * The dimensions are expected to have been checked by the caller, and y must not overlap x.
+     *
+     * @param A The matrix
+     * @param x The array holding the input vector, with as many elements as A has columns
+     * @param xOffset The index of the first element of the input vector in x
+     * @param y The array receiving the output vector, with as many elements as A has rows
+     * @param yOffset The index of the first element of the output vector in y
+     */
+    static void multiply(Matrix A, double[] x, int xOffset, double[] y, int yOffset) {
+        int numRows = A.getNumOfRows();
+        int numCols = A.getNumOfColumns();
+        switch (structureOf(A)) {
+            case IDENTITY:
+                System.arraycopy(x, xOffset, y, yOffset, numRows);
+                return;
+            case DIAGONAL: {
+                double[] d = ((DiagonalMatrix) A).diagonalData();
+                for (int i = 0; i < numRows; i++) {
+                    y[yOffset + i] = d[i] * x[xOffset + i];
+                }
+                return;
+            }
+            case SPARSE: {
+                // The lines of a CSR matrix are its rows, those of a CSC matrix its columns
+                SparseMatrix S = (SparseMatrix) A;
+                if (S.isRowMajor()) {
+                    lineDots(S, x, xOffset, y, yOffset);
+                } else {
+                    lineScatter(S, x, xOffset, y, yOffset, numRows);
+                }
+                return;
+            }
+            case LOWER: {
+                double[] p = ((LowerTriangularMatrix) A).packedData();
+                for (int i = 0; i < numRows; i++) {
+                    int row = lowerRowStart(i);
+                    double sum = 0;
+                    for (int k = 0; k <= i; k++) {
+                        sum += p[row + k] * x[xOffset + k];
+                    }
+                    y[yOffset + i] = sum;
+                }
+                return;
+            }
+            case UPPER: {
+                double[] p = ((UpperTriangularMatrix) A).packedData();
+                for (int i = 0; i < numRows; i++) {
+                    int row = upperRowStart(i, numRows) - i;
+                    double sum = 0;
+                    for (int k = i; k < numRows; k++) {
+                        sum += p[row + k] * x[xOffset + k];
+                    }
+                    y[yOffset + i] = sum;
+                }
+                return;
+            }
+            default: {
+                double[] a = A.data();
+                forEachRowBlock(numRows, (long) numRows * numCols,
+                        (rowStart, rowEnd) -> denseTimesVector(a, numCols, x, xOffset, y, yOffset, rowStart, rowEnd));
+            }
+        }
+    }
+
+
+    /**
+     * Multiplies the transpose of a matrix by a vector and stores the product in y, y = A^T x, without forming the transpose.
+     * The kernels mirror those of the product with A: rows of A that were dotted with x are now scattered into y,
+     * and the columns of a CSC matrix, which are the rows of its transpose, are dotted with x in parallel row blocks.
+     * The vectors start at the given offsets, and the dimensions are expected to have been checked by the caller.
+     * y must not overlap x.
+     *
+     * @param A The matrix
+     * @param x The array holding the input vector, with as many elements as A has rows
+     * @param xOffset The index of the first element of the input vector in x
+     * @param y The array receiving the output vector, with as many elements as A has columns
+     * @param yOffset The index of the first element of the output vector in y
+     */
+    static void multiplyTranspose(Matrix A, double[] x, int xOffset, double[] y, int yOffset) {
+        int numRows = A.getNumOfRows();
+        int numCols = A.getNumOfColumns();
+        switch (structureOf(A)) {
+            case IDENTITY:
+            case DIAGONAL:
+                // Symmetric, so the transpose acts like the matrix itself
+                multiply(A, x, xOffset, y, yOffset);
+                return;
+            case SPARSE: {
+                SparseMatrix S = (SparseMatrix) A;
+                if (S.isRowMajor()) {
+                    lineScatter(S, x, xOffset, y, yOffset, numCols);
+                } else {
+                    lineDots(S, x, xOffset, y, yOffset);
+                }
+                return;
+            }
+            case LOWER: {
+                // Row i of L adds x[i] times its entries to y[0..i]
+                double[] p = ((LowerTriangularMatrix) A).packedData();
+                Arrays.fill(y, yOffset, yOffset + numCols, 0.0);
+                for (int i = 0; i < numRows; i++) {
+                    int row = lowerRowStart(i);
+                    double factor = x[xOffset + i];
+                    for (int k = 0; k <= i; k++) {
+                        y[yOffset + k] += p[row + k] * factor;
+                    }
+                }
+                return;
+            }
+            case UPPER: {
+                // Row i of U adds x[i] times its entries to y[i..n)
+                double[] p = ((UpperTriangularMatrix) A).packedData();
+                Arrays.fill(y, yOffset, yOffset + numCols, 0.0);
+                for (int i = 0; i < numRows; i++) {
+                    int row = upperRowStart(i, numRows) - i;
+                    double factor = x[xOffset + i];
+                    for (int k = i; k < numRows; k++) {
+                        y[yOffset + k] += p[row + k] * factor;
+                    }
+                }
+                return;
+            }
+            default: {
+                // Combine the rows of A weighted by x, reading A in storage order
+                double[] a = A.data();
+                Arrays.fill(y, yOffset, yOffset + numCols, 0.0);
+                for (int i = 0; i < numRows; i++) {
+                    double factor = x[xOffset + i];
+                    if (factor != 0) {
+                        int row = i * numCols;
+                        for (int j = 0; j < numCols; j++) {
+                            y[yOffset + j] += a[row + j] * factor;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Multiplies a matrix by several vectors at once, ys[v] = A xs[v].
+     * The vectors are packed as the columns of one matrix, so the batch goes through a single matrix product:
+     * dense matrices are read once per batch by the cache-blocked kernel instead of once per vector,
+     * and every stored entry of a sparse matrix is applied to the whole batch while it is in cache.
+     * Vector v starts at index xOffsets[v] of xs[v] and ys[v] at index yOffsets[v] of ys[v],
+     * and the dimensions are expected to have been checked by the caller.
+     *
+     * @param A The matrix
+     * @param xs The arrays holding the input vectors, each with as many elements as A has columns
+     * @param xOffsets The index of the first element of each input vector
+     * @param ys The arrays receiving the output vectors, each with as many elements as A has rows
+     * @param yOffsets The index of the first element of each output vector
+     */
+    static void multiply(Matrix A, double[][] xs, int[] xOffsets, double[][] ys, int[] yOffsets) {
+        int numRows = A.getNumOfRows();
+        int numCols = A.getNumOfColumns();
+        int batch = xs.length;
+        if (batch == 0) {
+            return;
+        }
+
+        double[] packed = new double[numCols * batch];
+        for (int v = 0; v < batch; v++) {
+            double[] x = xs[v];
+            int xOffset = xOffsets[v];
+            for (int j = 0; j < numCols; j++) {
+                packed[j * batch + v] = x[xOffset + j];
+            }
+        }
+
+        double[] product = multiply(A, new Matrix(packed, numCols, batch)).data();
+        for (int v = 0; v < batch; v++) {
+            double[] y = ys[v];
+            int yOffset = yOffsets[v];
+            for (int i = 0; i < numRows; i++) {
+                y[yOffset + i] = product[i * batch + v];
+            }
+        }
+    }
+
+
+    // Computes y[rowStart..rowEnd) for a dense row-major A with numCols columns
+    private static void denseTimesVector(double[] a, int numCols, double[] x, int xOffset, double[] y, int yOffset,
+                                         int rowStart, int rowEnd) {
+        for (int i = rowStart; i < rowEnd; i++) {
+            int row = i * numCols;
+            double sum = 0;
+            for (int j = 0; j < numCols; j++) {
+                sum += a[row + j] * x[xOffset + j];
+            }
+            y[yOffset + i] = sum;
+        }
+    }
+
+
+    // Sets y[m] to the dot product of line m of a sparse matrix with x, for every line, in parallel row blocks
+    // This is y = Ax for a CSR matrix and y = A^T x for a CSC matrix
+    private static void lineDots(SparseMatrix A, double[] x, int xOffset, double[] y, int yOffset) {
+        int[] pointers = A.pointerData();
+        int[] indices = A.indexData();
+        double[] values = A.valueData();
+        forEachRowBlock(pointers.length - 1, A.getNumOfNonZeros(), (lineStart, lineEnd) -> {
+            for (int m = lineStart; m < lineEnd; m++) {
+                double sum = 0;
+                for (int k = pointers[m]; k < pointers[m + 1]; k++) {
+                    sum += values[k] * x[xOffset + indices[k]];
+                }
+                y[yOffset + m] = sum;
+            }
+        });
+    }
+
+
+    // Sets y, of the given length, to the combination of the lines of a sparse matrix weighted by the entries of x
+    // This is y = Ax for a CSC matrix and y = A^T x for a CSR matrix
+    // Lines scatter into all of y, so this kernel stays on the calling thread
+    private static void lineScatter(SparseMatrix A, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int[] pointers = A.pointerData();
+        int[] indices = A.indexData();
+        double[] values = A.valueData();
+        Arrays.fill(y, yOffset, yOffset + length, 0.0);
+        for (int m = 0; m < pointers.length - 1; m++) {
+            double factor = x[xOffset + m];
+            if (factor != 0) {
+                for (int k = pointers[m]; k < pointers[m + 1]; k++) {
+                    y[yOffset + indices[k]] += values[k] * factor;
+                }
+            }
+        }
+    }
+
+
+    // Runs a kernel over the rows [0, numOfRows), split into row blocks on the pool when the work is above the parallel threshold
+    static void forEachRowBlock(int numOfRows, long work, RowKernel kernel) {
+        if (parallelism > 1 && work >= parallelThreshold && numOfRows > 1) {
+            pool().invoke(new RowBlockTask(kernel, 0, numOfRows, work, numOfRows));
+        } else {
+            kernel.compute(0, numOfRows);
+        }
+    }
+
+
+
+    // Diagonal kernels
+    // Computes DB by multiplying row i of B by d[i], in O(entries of B) time
+    private static Matrix scaleRows(double[] d, Matrix B, Structure structure, boolean square) {
+        int size = d.length;
+        switch (structure) {
+            case DIAGONAL: {
+                double[] other = ((DiagonalMatrix) B).diagonalData();
+                double[] result = new double[size];
+                for (int i = 0; i < size; i++) {
+                    result[i] = d[i] * other[i];
+                }
+                return new DiagonalMatrix(result, size);
+            }
+            case SPARSE: {
+                SparseMatrix S = (SparseMatrix) B;
+                return S.isRowMajor() ? S.scaleLines(d) : S.scalePositions(d);
+            }
+            case LOWER: {
+                double[] result = ((LowerTriangularMatrix) B).packedData().clone();
+                for (int i = 0; i < size; i++) {
+                    int row = lowerRowStart(i);
+                    for (int j = 0; j <= i; j++) {
+                        result[row + j] *= d[i];
+                    }
+                }
+                return new LowerTriangularMatrix(result, size);
+            }
+            case UPPER: {
+                double[] result = ((UpperTriangularMatrix) B).packedData().clone();
+                for (int i = 0; i < size; i++) {
+                    int row = upperRowStart(i, size);
+                    for (int j = 0; j < size - i; j++) {
+                        result[row + j] *= d[i];
+                    }
+                }
+                return new UpperTriangularMatrix(result, size);
+            }
+            default: {
+                int numCols = B.getNumOfColumns();
+                double[] result = B.copyData();
+                for (int i = 0; i < size; i++) {
+                    double factor = d[i];
+                    int row = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        result[row + j] *= factor;
+                    }
+                }
+                return dense(result, size, numCols, square);
+            }
+        }
+    }
+
+
+    // Computes AD by multiplying column j of A by d[j], in O(entries of A) time
+    private static Matrix scaleColumns(Matrix A, double[] d, Structure structure, boolean square) {
+        int size = d.length;
+        switch (structure) {
+            case SPARSE: {
+                SparseMatrix S = (SparseMatrix) A;
+                return S.isRowMajor() ? S.scalePositions(d) : S.scaleLines(d);
+            }
+            case LOWER: {
+                double[] result = ((LowerTriangularMatrix) A).packedData().clone();
+                for (int i = 0; i < size; i++) {
+                    int row = lowerRowStart(i);
+                    for (int j = 0; j <= i; j++) {
+                        result[row + j] *= d[j];
+                    }
+                }
+                return new LowerTriangularMatrix(result, size);
+            }
+            case UPPER: {
+                double[] result = ((UpperTriangularMatrix) A).packedData().clone();
+                for (int i = 0; i < size; i++) {
+                    int row = upperRowStart(i, size) - i;
+                    for (int j = i; j < size; j++) {
+                        result[row + j] *= d[j];
+                    }
+                }
+                return new UpperTriangularMatrix(result, size);
+            }
+            default: {
+                int numRows = A.getNumOfRows();
+                double[] result = A.copyData();
+                for (int i = 0; i < numRows; i++) {
+                    int row = i * size;
+                    for (int j = 0; j < size; j++) {
+                        result[row + j] *= d[j];
+                    }
+                }
+                return dense(result, numRows, size, square);
+            }
+        }
+    }
+
+
+
+    // Triangular kernels
+    // Computes the packed product of two packed lower triangular matrices: row i of the product combines rows 0 .. i
+    private static double[] lowerTimesLower(double[] p, double[] q, int size) {
+        double[] result = new double[p.length];
+        for (int i = 0; i < size; i++) {
+            int rowP = lowerRowStart(i);
+            for (int k = 0; k <= i; k++) {
+                double factor = p[rowP + k];
+                if (factor != 0) {
+                    int rowQ = lowerRowStart(k);
+                    for (int j = 0; j <= k; j++) {
+                        result[rowP + j] += factor * q[rowQ + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes the packed product of two packed upper triangular matrices: row i of the product combines rows i .. n - 1
+    private static double[] upperTimesUpper(double[] p, double[] q, int size) {
+        double[] result = new double[p.length];
+        for (int i = 0; i < size; i++) {
+            // Shifted so that entry (i, j) sits at index rowP + j
+            int rowP = upperRowStart(i, size) - i;
+            for (int k = i; k < size; k++) {
+                double factor = p[rowP + k];
+                if (factor != 0) {
+                    int rowQ = upperRowStart(k, size) - k;
+                    for (int j = k; j < size; j++) {
+                        result[rowP + j] += factor * q[rowQ + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes LB for a packed lower triangular L, skipping its zero upper half
+    private static double[] lowerTimesDense(double[] p, double[] b, int size, int numCols) {
+        double[] result = new double[size * numCols];
+        for (int i = 0; i < size; i++) {
+            int rowP = lowerRowStart(i);
+            int rowC = i * numCols;
+            for (int k = 0; k <= i; k++) {
+                double factor = p[rowP + k];
+                if (factor != 0) {
+                    int rowB = k * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        result[rowC + j] += factor * b[rowB + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes UB for a packed upper triangular U, skipping its zero lower half
+    private static double[] upperTimesDense(double[] p, double[] b, int size, int numCols) {
+        double[] result = new double[size * numCols];
+        for (int i = 0; i < size; i++) {
+            int rowP = upperRowStart(i, size) - i;
+            int rowC = i * numCols;
+            for (int k = i; k < size; k++) {
+                double factor = p[rowP + k];
+                if (factor != 0) {
+                    int rowB = k * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        result[rowC + j] += factor * b[rowB + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes AL for a packed lower triangular L: row k of L only reaches columns 0 .. k
+    private static double[] denseTimesLower(double[] a, double[] q, int numRows, int size) {
+        double[] result = new double[numRows * size];
+        for (int i = 0; i < numRows; i++) {
+            int rowA = i * size;
+            for (int k = 0; k < size; k++) {
+                double factor = a[rowA + k];
+                if (factor != 0) {
+                    int rowQ = lowerRowStart(k);
+                    for (int j = 0; j <= k; j++) {
+                        result[rowA + j] += factor * q[rowQ + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes AU for a packed upper triangular U: row k of U only reaches columns k .. n - 1
+    private static double[] denseTimesUpper(double[] a, double[] q, int numRows, int size) {
+        double[] result = new double[numRows * size];
+        for (int i = 0; i < numRows; i++) {
+            int rowA = i * size;
+            for (int k = 0; k < size; k++) {
+                double factor = a[rowA + k];
+                if (factor != 0) {
+                    int rowQ = upperRowStart(k, size) - k;
+                    for (int j = k; j < size; j++) {
+                        result[rowA + j] += factor * q[rowQ + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+
+    // Sparse kernels
+    // Computes the sparse product AB row by row (Gustavson's algorithm): row i of the product combines the rows of B
+    // selected by the entries of row i of A, accumulated in a dense work row that only the touched columns are read back from
+    private static CSRMatrix sparseTimesSparse(CSRMatrix A, CSRMatrix B) {
+        int numRows = A.getNumOfRows();
+        int numCols = B.getNumOfColumns();
+        int[] aPointers = A.pointerData(), aIndices = A.indexData();
+        int[] bPointers = B.pointerData(), bIndices = B.indexData();
+        double[] aValues = A.valueData(), bValues = B.valueData();
+
+        double[] work = new double[numCols];
+        int[] touched = new int[numCols];
+        boolean[] used = new boolean[numCols];
+
+        int[] pointers = new int[numRows + 1];
+        int[] indices = new int[Math.max(A.getNumOfNonZeros(), 16)];
+        double[] values = new double[indices.length];
+        int count = 0;
+
+        for (int i = 0; i < numRows; i++) {
+            int numTouched = 0;
+            for (int p = aPointers[i]; p < aPointers[i + 1]; p++) {
+                int k = aIndices[p];
+                double factor = aValues[p];
+                for (int q = bPointers[k]; q < bPointers[k + 1]; q++) {
+                    int j = bIndices[q];
+                    if (!used[j]) {
+                        used[j] = true;
+                        touched[numTouched++] = j;
+                    }
+                    work[j] += factor * bValues[q];
+                }
+            }
+
+            // Emit the row in ascending column order and reset the work row
+            Arrays.sort(touched, 0, numTouched);
+            if (count + numTouched > indices.length) {
+                int capacity = Math.max(indices.length * 2, count + numTouched);
+                indices = Arrays.copyOf(indices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            for (int t = 0; t < numTouched; t++) {
+                int j = touched[t];
+                if (work[j] != 0) {
+                    indices[count] = j;
+                    values[count] = work[j];
+                    count++;
+                }
+                work[j] = 0;
+                used[j] = false;
+            }
+            pointers[i + 1] = count;
+        }
+
+        return new CSRMatrix(numRows, numCols, pointers, Arrays.copyOf(indices, count), Arrays.copyOf(values, count));
+    }
+
+
+    // Computes AB for a sparse A and a dense B: row i of the product combines the rows of B selected by row i of A
+    private static double[] sparseTimesDense(CSRMatrix A, double[] b, int numCols) {
+        int numRows = A.getNumOfRows();
+        int[] pointers = A.pointerData();
+        int[] indices = A.indexData();
+        double[] values = A.valueData();
+        double[] result = new double[numRows * numCols];
+        for (int i = 0; i < numRows; i++) {
+            int rowC = i * numCols;
+            for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+                double factor = values[p];
+                int rowB = indices[p] * numCols;
+                for (int j = 0; j < numCols; j++) {
+                    result[rowC + j] += factor * b[rowB + j];
+                }
+            }
+        }
+        return result;
+    }
+
+
+    // Computes AB for a dense A and a sparse B: every entry A(i, k) adds a multiple of the stored entries of row k of B
+    private static double[] denseTimesSparse(double[] a, CSRMatrix B, int numRows) {
+        int depth = B.getNumOfRows();
+        int numCols = B.getNumOfColumns();
+        int[] pointers = B.pointerData();
+        int[] indices = B.indexData();
+        double[] values = B.valueData();
+        double[] result = new double[numRows * numCols];
+        for (int i = 0; i < numRows; i++) {
+            int rowA = i * depth;
+            int rowC = i * numCols;
+            for (int k = 0; k < depth; k++) {
+                double factor = a[rowA + k];
+                if (factor != 0) {
+                    for (int q = pointers[k]; q < pointers[k + 1]; q++) {
+                        result[rowC + indices[q]] += factor * values[q];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+
+    // Dense kernel
+    /**
+     * Multiplies two matrices given as flat row-major arrays and returns the product.
+     * The right operand is only ever read along its rows, so every inner iteration is a unit-stride access.
+     * Products above the parallel threshold are split into row/column tiles of the result and computed on a ForkJoinPool.
+     *
+     * @param a The left operand with numOfRows rows and depth columns
+     * @param b The right operand with depth rows and numOfColumns columns
+     * @param numOfRows The number of rows of a
+     * @param depth The number of columns of a, equal to the number of rows of b
+     * @param numOfColumns The number of columns of b
+     * @return The product of a and b as a flat row-major numOfRows x numOfColumns array
+     */
+    static double[] multiply(double[] a, double[] b, int numOfRows, int depth, int numOfColumns) {
+        double[] c = new double[numOfRows * numOfColumns];
+        multiply(a, b, c, numOfRows, depth, numOfColumns);
+        return c;
+    }
+
+
+    // Adds the product of a and b to c, splitting it over the ForkJoinPool above the parallel threshold
+    private static void multiply(double[] a, double[] b, double[] c, int numOfRows, int depth, int numOfColumns) {
+        long work = (long) numOfRows * depth * numOfColumns;
+        if (parallelism > 1 && work >= parallelThreshold) {
+            pool().invoke(new MultiplyTask(a, b, c, depth, numOfColumns, 0, numOfRows, 0, numOfColumns));
+        } else {
+            multiplyBlocked(a, b, c, depth, numOfColumns, 0, numOfRows, 0, numOfColumns);
+        }
+    }
+
+
+    // Computes the tile c[rowStart..rowEnd)[colStart..colEnd) with the cache-blocked loops
+    // a has depth columns, b and c have numOfColumns columns
+    private static void multiplyBlocked(double[] a, double[] b, double[] c, int depth, int numOfColumns,
+                                        int rowStart, int rowEnd, int colStart, int colEnd) {
+        // Scratch space: the packed tile of B and four accumulator rows of C
+        int tileWidth = Math.min(COLUMN_BLOCK, colEnd - colStart);
+        double[][] packedB = new double[Math.min(DEPTH_BLOCK, depth)][tileWidth];
+        double[][] accumulators = new double[MICRO_ROWS][tileWidth];
+
+        for (int kk = 0; kk < depth; kk += DEPTH_BLOCK) {
+            int kEnd = Math.min(kk + DEPTH_BLOCK, depth);
+            for (int jj = colStart; jj < colEnd; jj += COLUMN_BLOCK) {
+                int jEnd = Math.min(jj + COLUMN_BLOCK, colEnd);
+
+                // Pack the tile of B into separate rows that start at index 0
+                for (int k = kk; k < kEnd; k++) {
+                    System.arraycopy(b, k * numOfColumns + jj, packedB[k - kk], 0, jEnd - jj);
+                }
+                multiplyTile(a, packedB, c, accumulators, depth, numOfColumns, rowStart, rowEnd, kk, kEnd, jj, jEnd);
+            }
+        }
+    }
+
+
+    // Computes c[rowStart..rowEnd)[jj..jEnd) += a[rowStart..rowEnd)[kk..kEnd) * packedB
+    // The C rows are accumulated in separate arrays indexed like the packed B rows,
+    // which lets the JIT compiler prove the inner loop free of dependences and vectorize it
+    private static void multiplyTile(double[] a, double[][] packedB, double[] c, double[][] accumulators,
+                                     int depth, int numOfColumns, int rowStart, int rowEnd,
+                                     int kk, int kEnd, int jj, int jEnd) {
+        int width = jEnd - jj;
+        double[] acc0 = accumulators[0], acc1 = accumulators[1], acc2 = accumulators[2], acc3 = accumulators[3];
+        int i = rowStart;
+
+        // Micro-kernel: four rows of C share every load of a B row
+        for (; i + MICRO_ROWS <= rowEnd; i += MICRO_ROWS) {
+            int c0 = i * numOfColumns + jj, c1 = c0 + numOfColumns, c2 = c1 + numOfColumns, c3 = c2 + numOfColumns;
+            System.arraycopy(c, c0, acc0, 0, width);
+            System.arraycopy(c, c1, acc1, 0, width);
+            System.arraycopy(c, c2, acc2, 0, width);
+            System.arraycopy(c, c3, acc3, 0, width);
+
+            int a0 = i * depth, a1 = a0 + depth, a2 = a1 + depth, a3 = a2 + depth;
+            for (int k = kk; k < kEnd; k++) {
+                double s0 = a[a0 + k], s1 = a[a1 + k], s2 = a[a2 + k], s3 = a[a3 + k];
+                double[] bRow = packedB[k - kk];
+                for (int j = 0; j < width; j++) {
+                    double bkj = bRow[j];
+                    acc0[j] += s0 * bkj;
+                    acc1[j] += s1 * bkj;
+                    acc2[j] += s2 * bkj;
+                    acc3[j] += s3 * bkj;
+                }
+            }
+
+            System.arraycopy(acc0, 0, c, c0, width);
+            System.arraycopy(acc1, 0, c, c1, width);
+            System.arraycopy(acc2, 0, c, c2, width);
+            System.arraycopy(acc3, 0, c, c3, width);
+        }
+
+        // Remaining rows of the tile
+        for (; i < rowEnd; i++) {
+            int cRow = i * numOfColumns + jj;
+            System.arraycopy(c, cRow, acc0, 0, width);
+            int aRow = i * depth;
+            for (int k = kk; k < kEnd; k++) {
+                double s = a[aRow + k];
+                double[] bRow = packedB[k - kk];
+                for (int j = 0; j < width; j++) {
+                    acc0[j] += s * bRow[j];
+                }
+            }
+            System.arraycopy(acc0, 0, c, cRow, width);
+        }
+    }
+
+
+
+    /**
+     * Computes one rectangular tile of the result, splitting it in half along its longer side
+     * until the tile is small enough to be computed sequentially.
+     * Every leaf writes a disjoint part of the result, so no synchronization is needed.
+     */
+    private static class MultiplyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final double[] b;
+        private final double[] c;
+        private final int depth;
+        private final int numOfColumns;
+        private final int rowStart;
+        private final int rowEnd;
+        private final int colStart;
+        private final int colEnd;
+
+        MultiplyTask(double[] a, double[] b, double[] c, int depth, int numOfColumns,
+                     int rowStart, int rowEnd, int colStart, int colEnd) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.depth = depth;
+            this.numOfColumns = numOfColumns;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = rowEnd - rowStart;
+            int cols = colEnd - colStart;
+            long work = (long) rows * cols * depth;
+
+            // Stop splitting once the tile is below the threshold or too small to split further
+            if (work < parallelThreshold || (rows <= MICRO_ROWS && cols <= MICRO_ROWS)) {
+                multiplyBlocked(a, b, c, depth, numOfColumns, rowStart, rowEnd, colStart, colEnd);
+                return;
+            }
+
+            if (rows >= cols) {
+                int middle = rowStart + splitPoint(rows);
+                invokeAll(new MultiplyTask(a, b, c, depth, numOfColumns, rowStart, middle, colStart, colEnd),
+                          new MultiplyTask(a, b, c, depth, numOfColumns, middle, rowEnd, colStart, colEnd));
+            } else {
+                int middle = colStart + splitPoint(cols);
+                invokeAll(new MultiplyTask(a, b, c, depth, numOfColumns, rowStart, rowEnd, colStart, middle),
+                          new MultiplyTask(a, b, c, depth, numOfColumns, rowStart, rowEnd, middle, colEnd));
+            }
+        }
+
+        // Splits a length in half, rounded to a multiple of the micro-kernel height so tiles keep full register tiles
+        private static int splitPoint(int length) {
+            int half = length / 2;
+            int rounded = (half / MICRO_ROWS) * MICRO_ROWS;
+            return rounded > 0 ? rounded : half;
+        }
+    }
+
+
+
+    // Computes the rows [rowStart, rowEnd) of a row-wise kernel
+    @FunctionalInterface
+    interface RowKernel {
+        void compute(int rowStart, int rowEnd);
+    }
+
+
+    /**
+     * Runs a row-wise kernel over a range of rows, splitting the range in half
+     * until the share of the work in each half is below the parallel threshold.
+     * Every leaf writes a disjoint block of rows of the output, so no synchronization is needed.
+     */
+    private static class RowBlockTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RowKernel kernel;
+        private final int rowStart;
+        private final int rowEnd;
+        private final long work;          // Total work of the whole row range of the product
+        private final int numOfRows;      // Total number of rows of the product
+
+        RowBlockTask(RowKernel kernel, int rowStart, int rowEnd, long work, int numOfRows) {
+            this.kernel = kernel;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.work = work;
+            this.numOfRows = numOfRows;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = rowEnd - rowStart;
+            long share = work * rows / numOfRows;
+            if (share < parallelThreshold || rows < 2) {
+                kernel.compute(rowStart, rowEnd);
+                return;
+            }
+            int middle = rowStart + rows / 2;
+            invokeAll(new RowBlockTask(kernel, rowStart, middle, work, numOfRows),
+                      new RowBlockTask(kernel, middle, rowEnd, work, numOfRows));
+        }
+    }
+
+
+}
@@ -0,0 +1,391 @@
+package am.aua.linalg.core;
+
+import java.util.Random;
+
+/**
+ * Computes a few eigenpairs of a large operator without decomposing it, touching it only through matrix-vector products.
+ * The Lanczos method finds the k eigenvalues of largest magnitude of a symmetric operator from a Krylov basis
+ * of a few dozen vectors, and the power method finds the single dominant eigenvalue of any operator.
+ * Both work on sparse matrices and lazy operators alike, at a cost of one product per iteration instead of the O(n^3)
+ * of a full EigenDecomposition. The Lanczos basis is kept fully orthogonal, which costs O(nm) memory for m iterations
+ * but prevents the spurious copies of converged eigenvalues that plain Lanczos produces.
+ */
+public class PartialEigenSolver {
+
+    // Default settings
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 300;
+
+    // Fixed seed of the starting vectors, so that repeated runs give identical results
+    private static final long SEED = 20240517L;
+
+    // Instance variables
+    private double tolerance;       // Residual of an eigenpair, relative to its eigenvalue, at which it counts as converged
+    private int maxIterations;      // Maximum number of operator applications per run
+
+    // Telemetry of the last run
+    private int iterations;           // Number of operator applications
+    private boolean converged;        // Whether all the requested eigenpairs reached the tolerance
+    private double[] eigenvalues;     // Eigenvalues found, in decreasing order of magnitude
+    private Vector[] eigenvectors;    // Unit eigenvectors of the eigenvalues found
+
+
+    // Constructors
+    /**
+     * Constructs a solver with the default tolerance and iteration limit.
+     */
+    public PartialEigenSolver() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+
+    /**
+     * Constructs a solver with the given stopping criteria.
+     *
+     * @param tolerance The residual ||Ax - lambda x|| relative to |lambda| at which an eigenpair counts as converged
+     * @param maxIterations The maximum number of operator applications per run
+     * @throws IllegalArgumentException If the tolerance is negative or the iteration limit is less than 1
+     */
+    public PartialEigenSolver(double tolerance, int maxIterations) {
+        setTolerance(tolerance);
+        setMaxIterations(maxIterations);
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Returns the relative residual at which an eigenpair counts as converged.
+     *
+     * @return The tolerance of this solver
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets the relative residual at which an eigenpair counts as converged.
+     *
+     * @param tolerance The new tolerance
+     * @throws IllegalArgumentException If the tolerance is negative
+     */
+    public void setTolerance(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Returns the maximum number of operator applications per run.
+     *
+     * @return The iteration limit of this solver
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Sets the maximum number of operator applications per run.
+     *
+     * @param maxIterations The new iteration limit
+     * @throws IllegalArgumentException If the iteration limit is less than 1
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Maximum number of iterations must be at least 1.");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Returns the number of operator applications of the last run.
+     *
+     * @return The iteration count of the last run
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Checks whether all the eigenpairs requested in the last run reached the tolerance.
+     *
+     * @return true if the last run converged, false otherwise
+     */
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    /**
+     * Returns the eigenvalues found by the last run, in decreasing order of magnitude.
+     *
+     * @return A copy of the eigenvalues, empty before the first run
+     */
+    public double[] getEigenvalues() {
+        return eigenvalues == null ? new double[0] : eigenvalues.clone();
+    }
+
+    /**
+     * Returns the unit eigenvectors found by the last run, in the order of getEigenvalues().
+     *
+     * @return Copies of the eigenvectors, empty before the first run
+     */
+    public Vector[] getEigenvectors() {
+        if (eigenvectors == null) {
+            return new Vector[0];
+        }
+        Vector[] copies = new Vector[eigenvectors.length];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = new Vector(eigenvectors[i]);
+        }
+        return copies;
+    }
+
+
+
+    // Lanczos
+    /**
+     * Computes the k eigenvalues of largest magnitude of a symmetric operator, and their eigenvectors, with the Lanczos method.
+     * The operator is applied to an orthonormal Krylov basis that grows by one vector per iteration; the eigenvalues of
+     * the small tridiagonal projection of A onto the basis (the Ritz values) approach the extreme eigenvalues of A first.
+     * The run stops once the k Ritz pairs of largest magnitude have residuals within the tolerance.
+     *
+     * @param A The symmetric operator
+     * @param k The number of eigenpairs wanted
+     * @return The k eigenvalues of largest magnitude, in decreasing order of magnitude
+     * @throws IllegalArgumentException If A is not square, or k is not between 1 and the size of A
+     */
+    public double[] lanczos(LinearOperator A, int k) {
+        int n = requireSquare(A);
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("The number of eigenpairs must be between 1 and the size of the operator.");
+        }
+        int maxSteps = Math.min(n, Math.max(maxIterations, k));
+        Random random = new Random(SEED);
+
+        double[][] basis = new double[maxSteps][];
+        double[] alpha = new double[maxSteps];
+        double[] beta = new double[maxSteps];    // beta[j] couples basis vectors j and j + 1
+        Vector q = new Vector(new double[n]);
+        Vector w = new Vector(new double[n]);
+
+        basis[0] = randomUnitVector(n, random, basis, 0);
+        iterations = 0;
+        converged = false;
+        Ritz ritz = null;
+
+        int m = 0;    // Size of the basis
+        while (m < maxSteps) {
+            // Extend the basis: w = A q_m, orthogonalized against all previous vectors (twice, for stability)
+            System.arraycopy(basis[m], 0, q.data(), 0, n);
+            A.apply(q, w);
+            iterations++;
+            double[] wValues = w.data();
+            alpha[m] = dot(basis[m], wValues);
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i <= m; i++) {
+                    double projection = dot(basis[i], wValues);
+                    axpy(-projection, basis[i], wValues);
+                }
+            }
+            beta[m] = norm(wValues);
+            m++;
+
+            // Check the Ritz pairs every few steps once there are enough of them
+            boolean last = m == maxSteps;
+            if (m >= k && (m % 5 == 0 || last || beta[m - 1] == 0)) {
+                ritz = new Ritz(alpha, beta, m);
+                if (ritz.converged(k, beta[m - 1], tolerance)) {
+                    converged = true;
+                    break;
+                }
+            }
+            if (last) {
+                break;
+            }
+
+            if (beta[m - 1] <= Math.ulp(1.0) * Math.abs(alpha[m - 1])) {
+                // The basis spans an invariant subspace, so continue from a new vector orthogonal to it
+                beta[m - 1] = 0;
+                basis[m] = randomUnitVector(n, random, basis, m);
+            } else {
+                double[] next = new double[n];
+                for (int i = 0; i < n; i++) {
+                    next[i] = wValues[i] / beta[m - 1];
+                }
+                basis[m] = next;
+            }
+        }
+
+        if (ritz == null || ritz.size != m) {
+            ritz = new Ritz(alpha, beta, m);
+        }
+
+        // Ritz vectors x = Q s, in decreasing order of magnitude of their eigenvalues
+        int[] order = ritz.largestFirst(k);
+        eigenvalues = new double[k];
+        eigenvectors = new Vector[k];
+        for (int i = 0; i < k; i++) {
+            int r = order[i];
+            eigenvalues[i] = ritz.values[r];
+            double[] x = new double[n];
+            double[] s = ritz.vectors[r];
+            for (int j = 0; j < m; j++) {
+                axpy(s[j], basis[j], x);
+            }
+            double length = norm(x);
+            for (int j = 0; j < n; j++) {
+                x[j] /= length;
+            }
+            eigenvectors[i] = new Vector(x);
+        }
+        return eigenvalues.clone();
+    }
+
+
+
+    // Power iteration
+    /**
+     * Computes the dominant eigenvalue of an operator, the one of largest magnitude, and its eigenvector with the power method.
+     * Each iteration applies A to the current vector and normalizes it; the error shrinks by the ratio of the two largest
+     * eigenvalue magnitudes per step, so this is only fast when the dominant eigenvalue is well separated.
+     * The operator does not need to be symmetric, but its dominant eigenvalue must be real and unique in magnitude.
+     *
+     * @param A The operator
+     * @return The dominant eigenvalue, as the Rayleigh quotient of the final vector
+     * @throws IllegalArgumentException If A is not square
+     */
+    public double powerIteration(LinearOperator A) {
+        int n = requireSquare(A);
+        Vector x = new Vector(randomUnitVector(n, new Random(SEED), null, 0));
+        Vector y = new Vector(new double[n]);
+        double[] xValues = x.data();
+        double[] yValues = y.data();
+
+        iterations = 0;
+        converged = false;
+        double lambda = 0;
+        while (iterations < maxIterations) {
+            A.apply(x, y);
+            iterations++;
+            lambda = dot(xValues, yValues);
+
+            // Residual ||Ax - lambda x|| of the current pair
+            double residual = 0;
+            for (int i = 0; i < n; i++) {
+                double d = yValues[i] - lambda * xValues[i];
+                residual += d * d;
+            }
+            double yNorm = norm(yValues);
+            if (Math.sqrt(residual) <= tolerance * Math.abs(lambda) || yNorm == 0) {
+                converged = true;
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                xValues[i] = yValues[i] / yNorm;
+            }
+        }
+
+        eigenvalues = new double[] { lambda };
+        eigenvectors = new Vector[] { new Vector(xValues) };
+        return lambda;
+    }
+
+
+
+    // Helpers
+    private static int requireSquare(LinearOperator A) {
+        if (A.getNumOfRows() != A.getNumOfColumns()) {
+            throw new IllegalArgumentException("Eigenvalues are only defined for square operators.");
+        }
+        return A.getNumOfRows();
+    }
+
+
+    // Returns a random unit vector orthogonal to the first count vectors of basis
+    private static double[] randomUnitVector(int n, Random random, double[][] basis, int count) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian();
+        }
+        for (int i = 0; i < count; i++) {
+            axpy(-dot(basis[i], v), basis[i], v);
+        }
+        double length = norm(v);
+        for (int i = 0; i < n; i++) {
+            v[i] /= length;
+        }
+        return v;
+    }
+
+
+    private static double dot(double[] x, double[] y) {
+        return VectorKernels.dot(x, y);
+    }
+
+
+    private static double norm(double[] x) {
+        return VectorKernels.norm(x);
+    }
+
+
+    // y = y + a x
+    private static void axpy(double a, double[] x, double[] y) {
+        VectorKernels.axpy(a, x, y);
+    }
+
+
+
+    /**
+     * The eigenpairs of the m x m tridiagonal projection T of the operator onto the Lanczos basis.
+     */
+    private static class Ritz {
+
+        private final int size;
+        private final double[] values;      // Ritz values in ascending order
+        private final double[][] vectors;   // vectors[r] holds the coordinates in the basis of the Ritz vector of values[r]
+
+        Ritz(double[] alpha, double[] beta, int m) {
+            this.size = m;
+            this.values = new double[m];
+            double[] e = new double[m];
+            System.arraycopy(alpha, 0, values, 0, m);
+            for (int i = 1; i < m; i++) {
+                e[i] = beta[i - 1];
+            }
+            this.vectors = new double[m][m];
+            for (int i = 0; i < m; i++) {
+                vectors[i][i] = 1.0;
+            }
+            EigenDecomposition.tql2(values, e, vectors);
+        }
+
+        // Indices of the k Ritz values of largest magnitude, largest first
+        int[] largestFirst(int k) {
+            int[] order = new int[k];
+            int low = 0, high = size - 1;
+            for (int i = 0; i < k; i++) {
+                if (Math.abs(values[high]) >= Math.abs(values[low])) {
+                    order[i] = high--;
+                } else {
+                    order[i] = low++;
+                }
+            }
+            return order;
+        }
+
+        // Whether the k largest Ritz pairs have residuals within the tolerance; the residual of the
+        // pair (theta, Q s) is |beta_m s[m - 1]|, so it is known without forming the Ritz vector
+        boolean converged(int k, double lastBeta, double tolerance) {
+            for (int r : largestFirst(k)) {
+                double residual = Math.abs(lastBeta * vectors[r][size - 1]);
+                if (residual > tolerance * Math.abs(values[r])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+}
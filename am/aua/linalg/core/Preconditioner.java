@@ -0,0 +1,19 @@
+package am.aua.linalg.core;
+
+/**
+ * The Preconditioner interface defines an approximate inverse M^-1 of a matrix A that an iterative solver
+ * applies at every iteration. A good preconditioner is cheap to apply and makes M^-1 A close to the identity,
+ * which cuts the number of iterations needed to converge.
+ */
+public interface Preconditioner {
+
+    /**
+     * Applies the preconditioner to a vector, z = M^-1 r, writing the result into a preallocated vector.
+     *
+     * @param r The vector to precondition
+     * @param z The vector that receives M^-1 r, with the length of r and different from it
+     */
+    void apply(Vector r, Vector z);
+
+
+}
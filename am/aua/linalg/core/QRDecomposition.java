@@ -0,0 +1,815 @@
+package am.aua.linalg.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the QR decomposition of an m x n matrix, AP = QR, where Q is an m x m orthogonal matrix,
+ * R is an m x n upper triangular (trapezoidal) matrix and P is a column permutation, which is the identity unless pivoting is requested.
+ * Q is never formed: it is kept as the Householder reflectors H_0 H_1 ... that produced R, grouped into blocks
+ * of the compact WY form I - V T V^T, so that applying Q to a matrix streams over the rows a block at a time.
+ * This makes the decomposition suited to tall and skinny matrices, whose least-squares problems it solves without forming A^T A.
+ * With column pivoting the column of largest remaining norm is moved forward at every step, so the diagonal of R
+ * decreases in magnitude and reveals the numerical rank of A.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry or setValue.
+ */
+public class QRDecomposition {
+
+    // Number of reflectors grouped into one block of the compact WY form
+    private static final int BLOCK_SIZE = 32;
+
+    // Rows per partial sum when the products V^T C of a block are accumulated in parallel
+    private static final int CHUNK_ROWS = 1024;
+
+    // Rows of a panel visited together, so that the panel columns involved fit in cache
+    private static final int PANEL_CHUNK_ROWS = 256;
+
+    // Relative size of a downdated column norm below which it is recomputed from the column (as in LAPACK's xGEQP3)
+    private static final double NORM_RECOMPUTE = Math.sqrt(Math.ulp(1.0));
+
+    // Instance variables
+    private final Matrix source;          // The decomposed matrix
+    private final int sourceModCount;     // Modification count of the source when it was decomposed
+    private final int numOfRows;          // m, the number of rows of the decomposed matrix
+    private final int numOfColumns;       // n, the number of columns of the decomposed matrix
+    private final double[] qr;            // Row-major m x n array holding R on and above the diagonal and the reflectors below it
+    private final double[] tau;           // Scalar factors of the reflectors, H_k = I - tau[k] v_k v_k^T
+    private final int[] pivot;            // pivot[j] is the column of the original matrix that ended up in column j
+    private final boolean pivoting;       // Whether columns were pivoted
+    private final int[] blockStarts;      // Index of the first reflector of every block, followed by the number of reflectors
+    private final double[][] blockT;      // Upper triangular factor T of every block, row-major
+
+
+    // Constructors
+    /**
+     * Computes the QR decomposition of the given matrix without column pivoting.
+     *
+     * @param A The matrix to decompose
+     */
+    public QRDecomposition(Matrix A) {
+        this(A, false);
+    }
+
+
+    /**
+     * Computes the QR decomposition of the given matrix with blocked Householder reflections.
+     * Without pivoting, the reflectors of each block of columns are computed first, recursively on a contiguous copy of the block,
+     * and then applied to the remaining columns in one pass as a matrix product. With pivoting, the column of largest remaining norm is swapped forward
+     * at every step; the remaining columns are then updated lazily, so that only one row of them is brought up to date per step.
+     *
+     * @param A The matrix to decompose
+     * @param pivoting Whether to use column pivoting
+     */
+    public QRDecomposition(Matrix A, boolean pivoting) {
+        this.source = A;
+        this.sourceModCount = A.getModCount();
+        this.numOfRows = A.getNumOfRows();
+        this.numOfColumns = A.getNumOfColumns();
+        this.qr = A.copyData();
+        this.pivoting = pivoting;
+        int n = numOfColumns, p = Math.min(numOfRows, n);
+        this.tau = new double[p];
+        this.pivot = new int[n];
+        for (int j = 0; j < n; j++) {
+            pivot[j] = j;
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        List<double[]> factors = new ArrayList<>();
+        if (pivoting) {
+            factorPivoted(starts, factors);
+        } else {
+            factorBlocked(starts, factors);
+        }
+
+        this.blockStarts = new int[starts.size() + 1];
+        for (int b = 0; b < starts.size(); b++) {
+            blockStarts[b] = starts.get(b);
+        }
+        blockStarts[starts.size()] = p;
+        this.blockT = factors.toArray(new double[0][]);
+    }
+
+
+
+    // Factorization
+    // Factors the matrix block by block without pivoting, recording the first reflector and the factor T of every block.
+    // Each block of columns is copied into a column-major panel, so that the reflectors are computed on contiguous columns,
+    // and then the remaining columns are updated as a whole in parallel: C = C - V (T^T (V^T C))
+    private void factorBlocked(List<Integer> starts, List<double[]> factors) {
+        int m = numOfRows, n = numOfColumns, p = Math.min(m, n);
+        double[] panel = new double[m * Math.min(BLOCK_SIZE, p)];
+        for (int k0 = 0; k0 < p; k0 += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, p - k0), kEnd = k0 + count, length = m - k0;
+            for (int i = 0; i < length; i++) {
+                int row = (k0 + i) * n + k0;
+                for (int t = 0; t < count; t++) {
+                    panel[t * length + i] = qr[row + t];
+                }
+            }
+            double[] T = factorPanel(panel, length, k0, 0, count);
+            for (int i = 0; i < length; i++) {
+                int row = (k0 + i) * n + k0;
+                for (int t = 0; t < count; t++) {
+                    qr[row + t] = panel[t * length + i];
+                }
+            }
+            if (kEnd < n) {
+                double[] w = reflectorProducts(k0, count, qr, n, kEnd, n - kEnd);
+                multiplyTriangular(T, count, w, n - kEnd, true);
+                subtractReflectors(k0, count, w, n - kEnd, 0, qr, n, kEnd, n - kEnd, k0);
+            }
+            starts.add(k0);
+            factors.add(T);
+        }
+    }
+
+
+    // Computes the count reflectors of the panel columns starting at t0 and returns their factor T.
+    // The panel holds the rows from k0 on of a block of columns, column-major with columns of the given length.
+    // The left half is factored first, its reflectors are applied to the right half as one block, the right half is factored,
+    // and the two factors are merged as T = [T1, -T1 (V1^T V2) T2; 0, T2]
+    private double[] factorPanel(double[] panel, int length, int k0, int t0, int count) {
+        if (count == 1) {
+            double tauK = reflect(panel, t0 * length + t0, 1, length - t0);
+            tau[k0 + t0] = tauK;
+            return new double[] { tauK };
+        }
+        int half = count / 2, rest = count - half;
+        double[] T1 = factorPanel(panel, length, k0, t0, half);
+
+        // Right half: C = C - V1 (T1^T (V1^T C))
+        double[] w = panelProducts(panel, length, t0, half, t0 + half, rest, false);
+        multiplyTriangular(T1, half, w, rest, true);
+        for (int chunkStart = t0; chunkStart < length; chunkStart += PANEL_CHUNK_ROWS) {
+            int chunkEnd = Math.min(length, chunkStart + PANEL_CHUNK_ROWS);
+            for (int u = 0; u < rest; u++) {
+                int column = (t0 + half + u) * length;
+                for (int t = 0; t < half; t++) {
+                    double factor = w[t * rest + u];
+                    int reflector = (t0 + t) * length;
+                    for (int i = Math.max(chunkStart, t0 + t + 1); i < chunkEnd; i++) {
+                        panel[column + i] -= factor * panel[reflector + i];
+                    }
+                }
+            }
+        }
+        for (int u = 0; u < rest; u++) {
+            for (int t = 0; t < half; t++) {
+                panel[(t0 + half + u) * length + t0 + t] -= w[t * rest + u];
+            }
+        }
+
+        double[] T2 = factorPanel(panel, length, k0, t0 + half, rest);
+
+        double[] y = panelProducts(panel, length, t0, half, t0 + half, rest, true);
+
+        // Merge the factors
+        double[] T = new double[count * count];
+        for (int t = 0; t < half; t++) {
+            System.arraycopy(T1, t * half + t, T, t * count + t, half - t);
+        }
+        for (int u = 0; u < rest; u++) {
+            System.arraycopy(T2, u * rest + u, T, (half + u) * count + half + u, rest - u);
+        }
+        double[] z = new double[half * rest];    // Y T2
+        for (int t = 0; t < half; t++) {
+            for (int u = 0; u < rest; u++) {
+                double sum = 0;
+                for (int v = 0; v <= u; v++) {
+                    sum += y[t * rest + v] * T2[v * rest + u];
+                }
+                z[t * rest + u] = sum;
+            }
+        }
+        for (int t = 0; t < half; t++) {
+            for (int u = 0; u < rest; u++) {
+                double sum = 0;
+                for (int s = t; s < half; s++) {
+                    sum += T1[t * half + s] * z[s * rest + u];
+                }
+                T[t * count + half + u] = -sum;
+            }
+        }
+        return T;
+    }
+
+
+    // Returns V^T C as a count x width row-major array, where V holds the count panel reflectors starting at t0
+    // and C the width panel columns starting at c0: as they are stored, or as the reflectors they hold if reflectors is set.
+    // The rows are visited in chunks, so that the columns involved stay in cache while all their products are summed
+    private static double[] panelProducts(double[] panel, int length, int t0, int count, int c0, int width, boolean reflectors) {
+        double[] w = new double[count * width];
+        for (int chunkStart = t0; chunkStart < length; chunkStart += PANEL_CHUNK_ROWS) {
+            int chunkEnd = Math.min(length, chunkStart + PANEL_CHUNK_ROWS);
+            for (int t = 0; t < count; t++) {
+                int reflector = (t0 + t) * length;
+                for (int u = 0; u < width; u++) {
+                    int column = (c0 + u) * length;
+                    int start = Math.max(chunkStart, (reflectors ? c0 + u : t0 + t) + 1);
+                    double sum = 0;
+                    for (int i = start; i < chunkEnd; i++) {
+                        sum += panel[reflector + i] * panel[column + i];
+                    }
+                    w[t * width + u] += sum;
+                }
+            }
+        }
+        // The unit diagonal of the reflectors; the reflectors of C start below those of V
+        for (int t = 0; t < count; t++) {
+            for (int u = 0; u < width; u++) {
+                w[t * width + u] += reflectors ? panel[(t0 + t) * length + c0 + u] : panel[(c0 + u) * length + t0 + t];
+            }
+        }
+        return w;
+    }
+
+
+    // Factors the matrix with column pivoting, recording the first reflector and the factor T of every block.
+    // A block ends early when a column norm has to be recomputed, since that needs its column to be up to date
+    private void factorPivoted(List<Integer> starts, List<double[]> factors) {
+        int m = numOfRows, n = numOfColumns, p = Math.min(m, n);
+
+        // Column norms: the current estimate, and the value it was last computed exactly
+        double[] norms = new double[n];
+        for (int i = 0; i < m; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                norms[j] += qr[row + j] * qr[row + j];
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            norms[j] = Math.sqrt(norms[j]);
+        }
+        double[] exactNorms = norms.clone();
+        boolean[] recompute = new boolean[n];
+
+        // Row t of f holds column t of F, where the columns of the block so far are A - V F^T
+        double[] f = new double[BLOCK_SIZE * n];
+        double[] products = new double[BLOCK_SIZE];
+
+        int k0 = 0;
+        while (k0 < p) {
+            int blockSize = Math.min(BLOCK_SIZE, p - k0);
+            Arrays.fill(f, 0, blockSize * n, 0.0);
+            boolean endBlock = false;
+
+            int done = 0;
+            while (done < blockSize && !endBlock) {
+                int l = done, k = k0 + l;
+
+                int best = k;
+                for (int j = k + 1; j < n; j++) {
+                    if (norms[j] > norms[best]) {
+                        best = j;
+                    }
+                }
+                if (best != k) {
+                    swapColumns(qr, n, m, best, k);
+                    swapColumns(f, n, l, best, k);
+                    swap(norms, best, k);
+                    swap(exactNorms, best, k);
+                    int temp = pivot[best];
+                    pivot[best] = pivot[k];
+                    pivot[k] = temp;
+                }
+
+                // Bring column k up to date below the diagonal (the rows above it were updated row by row)
+                if (l > 0) {
+                    for (int i = k; i < m; i++) {
+                        int row = i * n;
+                        double sum = 0;
+                        for (int t = 0; t < l; t++) {
+                            sum += qr[row + k0 + t] * f[t * n + k];
+                        }
+                        qr[row + k] -= sum;
+                    }
+                }
+
+                double tauK = reflect(qr, k * n + k, n, m - k);
+                tau[k] = tauK;
+
+                // Column l of F for the columns after k that are kept up to date: tau (A^T v - F (V^T v))
+                if (tauK != 0 && k + 1 < n) {
+                    int fRow = l * n;
+                    Arrays.fill(products, 0, l, 0.0);
+                    for (int i = k; i < m; i++) {
+                        int row = i * n;
+                        double v = i == k ? 1.0 : qr[row + k];
+                        for (int t = 0; t < l; t++) {
+                            products[t] += qr[row + k0 + t] * v;
+                        }
+                        for (int j = k + 1; j < n; j++) {
+                            f[fRow + j] += v * qr[row + j];
+                        }
+                    }
+                    for (int t = 0; t < l; t++) {
+                        double product = products[t];
+                        if (product != 0) {
+                            for (int j = k + 1; j < n; j++) {
+                                f[fRow + j] -= product * f[t * n + j];
+                            }
+                        }
+                    }
+                    for (int j = k + 1; j < n; j++) {
+                        f[fRow + j] *= tauK;
+                    }
+                }
+
+                // Bring row k up to date; no later reflector of the block touches it, so it is final
+                int rowK = k * n;
+                for (int j = k + 1; j < n; j++) {
+                    double sum = f[l * n + j];
+                    for (int t = 0; t < l; t++) {
+                        sum += qr[rowK + k0 + t] * f[t * n + j];
+                    }
+                    qr[rowK + j] -= sum;
+                }
+
+                // Remove row k from the norms of the remaining columns
+                for (int j = k + 1; j < n; j++) {
+                    if (norms[j] != 0) {
+                        double ratio = Math.abs(qr[rowK + j]) / norms[j];
+                        double remaining = Math.max(0.0, (1 + ratio) * (1 - ratio));
+                        double relative = norms[j] / exactNorms[j];
+                        if (remaining * relative * relative <= NORM_RECOMPUTE) {
+                            // Too much cancellation: recompute from the column once it is up to date
+                            recompute[j] = true;
+                            endBlock = true;
+                        } else {
+                            norms[j] *= Math.sqrt(remaining);
+                        }
+                    }
+                }
+                done++;
+            }
+
+            // The rows up to kEnd are final, the rest of the remaining columns are A - V F^T
+            int kEnd = k0 + done;
+            if (kEnd < n) {
+                subtractReflectors(k0, done, f, n, kEnd, qr, n, kEnd, n - kEnd, kEnd);
+            }
+            for (int j = kEnd; j < n; j++) {
+                if (recompute[j]) {
+                    double sum = 0;
+                    for (int i = kEnd; i < m; i++) {
+                        sum += qr[i * n + j] * qr[i * n + j];
+                    }
+                    norms[j] = Math.sqrt(sum);
+                    exactNorms[j] = norms[j];
+                    recompute[j] = false;
+                }
+            }
+            starts.add(k0);
+            factors.add(triangularFactor(k0, done));
+            k0 = kEnd;
+        }
+    }
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry or setValue since it was decomposed.
+     * A stale decomposition no longer describes its matrix and refuses to be used.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether this decomposition was computed with column pivoting.
+     *
+     * @return true if the columns were pivoted, false otherwise
+     */
+    public boolean isPivoting() {
+        return pivoting;
+    }
+
+    /**
+     * Returns the column permutation: entry j is the column of the original matrix that was moved to column j.
+     *
+     * @return A copy of the pivot indices, the identity permutation without pivoting
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+
+
+    // Methods
+
+    // Factors
+    /**
+     * Returns the upper triangular factor R, with min(m, n) rows and n columns.
+     *
+     * @return The factor R of the thin decomposition
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public Matrix getR() {
+        requireCurrent();
+        int p = Math.min(numOfRows, numOfColumns), n = numOfColumns;
+        double[] r = new double[p * n];
+        for (int i = 0; i < p; i++) {
+            System.arraycopy(qr, i * n + i, r, i * n + i, n - i);
+        }
+        return new Matrix(r, p, n);
+    }
+
+
+    /**
+     * Returns the first min(m, n) columns of the orthogonal factor Q, the thin Q with AP = QR for the thin R.
+     * It is formed by applying the reflectors to the leading columns of the identity, block by block.
+     *
+     * @return The m x min(m, n) factor Q, whose columns are orthonormal
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public Matrix getQ() {
+        requireCurrent();
+        int p = Math.min(numOfRows, numOfColumns);
+        double[] q = new double[numOfRows * p];
+        for (int i = 0; i < p; i++) {
+            q[i * p + i] = 1.0;
+        }
+        applyQ(q, p, false);
+        return new Matrix(q, numOfRows, p);
+    }
+
+
+    /**
+     * Computes Q B without forming Q.
+     *
+     * @param B The matrix to multiply, with m rows
+     * @return The product Q B
+     * @throws IllegalArgumentException If B does not have as many rows as the decomposed matrix
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public Matrix multiplyQ(Matrix B) {
+        requireCurrent();
+        if (B.getNumOfRows() != numOfRows) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        double[] c = B.copyData();
+        applyQ(c, B.getNumOfColumns(), false);
+        return new Matrix(c, numOfRows, B.getNumOfColumns());
+    }
+
+
+    /**
+     * Computes Q^T B without forming Q.
+     *
+     * @param B The matrix to multiply, with m rows
+     * @return The product Q^T B
+     * @throws IllegalArgumentException If B does not have as many rows as the decomposed matrix
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public Matrix multiplyQTranspose(Matrix B) {
+        requireCurrent();
+        if (B.getNumOfRows() != numOfRows) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        double[] c = B.copyData();
+        applyQ(c, B.getNumOfColumns(), true);
+        return new Matrix(c, numOfRows, B.getNumOfColumns());
+    }
+
+
+    // Rank
+    /**
+     * Estimates the numerical rank of the decomposed matrix as the number of diagonal entries of R
+     * larger than max(m, n) * eps * max |R(k, k)|.
+     * The estimate is reliable with pivoting; without it, a rank-deficient matrix can still have a large diagonal.
+     *
+     * @return The numerical rank
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public int getRank() {
+        return getRank(defaultTolerance());
+    }
+
+
+    /**
+     * Counts the diagonal entries of R whose magnitude is larger than the given tolerance.
+     *
+     * @param tolerance The magnitude at or below which a diagonal entry counts as zero
+     * @return The numerical rank for the given tolerance
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public int getRank(double tolerance) {
+        requireCurrent();
+        int p = Math.min(numOfRows, numOfColumns), rank = 0;
+        for (int k = 0; k < p; k++) {
+            if (Math.abs(qr[k * numOfColumns + k]) > tolerance) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+
+    /**
+     * Checks whether the decomposed matrix has full rank, that is, rank min(m, n).
+     *
+     * @return true if getRank() is min(m, n), false otherwise
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public boolean isFullRank() {
+        return getRank() == Math.min(numOfRows, numOfColumns);
+    }
+
+
+    // Least squares
+    /**
+     * Solves the least-squares problem min ||Ax - b|| as R x = Q^T b, without forming A^T A.
+     * For an underdetermined or rank-deficient A with pivoting, the basic solution is returned: it has at most
+     * rank nonzero entries, in the columns that pivoting selected.
+     *
+     * @param b The right-hand side vector, with m elements
+     * @return The least-squares solution x, with n elements
+     * @throws IllegalArgumentException If the length of b does not match the number of rows of A
+     * @throws UnsupportedOperationException If A is rank deficient and was decomposed without pivoting
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Vector solve(Vector b) {
+        if (b.length() != numOfRows) {
+            throw new IllegalArgumentException("Vector length must match the number of rows of the matrix.");
+        }
+        return new Vector(solve(b.getElements(), 1));
+    }
+
+
+    /**
+     * Solves the least-squares problem min ||AX - B|| column by column, as R X = Q^T B.
+     *
+     * @param B The right-hand side, with m rows
+     * @return The least-squares solution X, with n rows
+     * @throws IllegalArgumentException If B does not have as many rows as A
+     * @throws UnsupportedOperationException If A is rank deficient and was decomposed without pivoting
+     * @throws IllegalStateException If A has been modified since it was decomposed
+     */
+    public Matrix solve(Matrix B) {
+        if (B.getNumOfRows() != numOfRows) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        }
+        int numCols = B.getNumOfColumns();
+        return new Matrix(solve(B.copyData(), numCols), numOfColumns, numCols);
+    }
+
+
+    // Solves R X = Q^T C for the m x numCols row-major array c, which is overwritten, and returns the n x numCols solution
+    private double[] solve(double[] c, int numCols) {
+        requireCurrent();
+        int rank = getRank();
+        if (!pivoting && rank < Math.min(numOfRows, numOfColumns)) {
+            throw new UnsupportedOperationException("The matrix is rank deficient; decompose it with pivoting.");
+        }
+        applyQ(c, numCols, true);
+
+        // Back substitution with the leading rank x rank block of R
+        int n = numOfColumns;
+        for (int k = rank - 1; k >= 0; k--) {
+            int rowK = k * numCols;
+            double diagonal = qr[k * n + k];
+            for (int j = 0; j < numCols; j++) {
+                c[rowK + j] /= diagonal;
+            }
+            for (int i = 0; i < k; i++) {
+                double factor = qr[i * n + k];
+                if (factor != 0) {
+                    int row = i * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        c[row + j] -= factor * c[rowK + j];
+                    }
+                }
+            }
+        }
+
+        // Undo the column permutation; the entries past the rank are zero
+        double[] x = new double[n * numCols];
+        for (int k = 0; k < rank; k++) {
+            System.arraycopy(c, k * numCols, x, pivot[k] * numCols, numCols);
+        }
+        return x;
+    }
+
+
+
+    // Householder kernels
+    // Turns the length entries of a column, starting at offset and stride apart, into a reflector H = I - tau v v^T with H x = beta e_1.
+    // Stores beta in place of the first entry and v in place of the others (v[0] = 1 is implied),
+    // and returns tau, which is 0 if the column is already reduced
+    static double reflect(double[] values, int offset, int stride, int length) {
+        double alpha = values[offset];
+        int end = offset + length * stride;
+
+        // Norm of the entries below the first as scale * sqrt(sum), rescaled on the way so that the squares cannot overflow
+        double scale = 0, sum = 1;
+        for (int i = offset + stride; i < end; i += stride) {
+            double x = Math.abs(values[i]);
+            if (x > scale) {
+                double ratio = scale / x;
+                sum = 1 + sum * ratio * ratio;
+                scale = x;
+            } else if (x != 0) {
+                double ratio = x / scale;
+                sum += ratio * ratio;
+            }
+        }
+        if (scale == 0) {
+            return 0.0;
+        }
+        double beta = -Math.copySign(Math.hypot(alpha, scale * Math.sqrt(sum)), alpha);
+        double factor = 1.0 / (alpha - beta);
+        for (int i = offset + stride; i < end; i += stride) {
+            values[i] *= factor;
+        }
+        values[offset] = beta;
+        return (beta - alpha) / beta;
+    }
+
+
+    // Computes the upper triangular T of the block of count reflectors starting at k0, with H_k0 ... H_(k0+count-1) = I - V T V^T
+    private double[] triangularFactor(int k0, int count) {
+        // Gram matrix V^T V of the reflectors
+        int n = numOfColumns;
+        double[] gram = new double[count * count];
+        for (int i = k0; i < numOfRows; i++) {
+            int row = i * n;
+            int last = Math.min(count, i - k0 + 1);    // Reflectors that are nonzero in row i
+            for (int t = 0; t < last; t++) {
+                double v = i == k0 + t ? 1.0 : qr[row + k0 + t];
+                for (int u = t; u < last; u++) {
+                    gram[t * count + u] += v * (i == k0 + u ? 1.0 : qr[row + k0 + u]);
+                }
+            }
+        }
+        double[] T = new double[count * count];
+        for (int l = 0; l < count; l++) {
+            double tauL = tau[k0 + l];
+            T[l * count + l] = tauL;
+            // T(0:l, l) = -tau_l T(0:l, 0:l) V(:, 0:l)^T v_l
+            for (int r = 0; r < l; r++) {
+                double sum = 0;
+                for (int t = r; t < l; t++) {
+                    sum += T[r * count + t] * gram[t * count + l];
+                }
+                T[r * count + l] = -tauL * sum;
+            }
+        }
+        return T;
+    }
+
+
+    // Applies Q, or Q^T if transpose is set, to the m x numCols row-major array c, one block of reflectors at a time
+    private void applyQ(double[] c, int numCols, boolean transpose) {
+        int numBlocks = blockT.length;
+        for (int s = 0; s < numBlocks; s++) {
+            int b = transpose ? s : numBlocks - 1 - s;
+            int k0 = blockStarts[b], count = blockStarts[b + 1] - k0;
+            double[] w = reflectorProducts(k0, count, c, numCols, 0, numCols);
+            multiplyTriangular(blockT[b], count, w, numCols, transpose);
+            subtractReflectors(k0, count, w, numCols, 0, c, numCols, 0, numCols, k0);
+        }
+    }
+
+
+    // Returns V^T C as a count x width row-major array, where V holds the count reflectors starting at k0
+    // and C is the block of width columns starting at column colStart of the row-major array c with the given row length.
+    // Row chunks are summed into separate partial results in parallel, which are then added in order
+    private double[] reflectorProducts(int k0, int count, double[] c, int rowLength, int colStart, int width) {
+        int m = numOfRows, n = numOfColumns;
+        int numChunks = (m - k0 + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        double[][] partial = new double[numChunks][];
+        MatrixMultiplication.forEachRowBlock(numChunks, (long) (m - k0) * count * width, (chunkStart, chunkEnd) -> {
+            for (int chunk = chunkStart; chunk < chunkEnd; chunk++) {
+                double[] w = new double[count * width];
+                int rowEnd = Math.min(m, k0 + (chunk + 1) * CHUNK_ROWS);
+                for (int i = k0 + chunk * CHUNK_ROWS; i < rowEnd; i++) {
+                    int row = i * n, cRow = i * rowLength + colStart;
+                    for (int t = 0; t < count; t++) {
+                        int column = k0 + t;
+                        double v = i > column ? qr[row + column] : (i == column ? 1.0 : 0.0);
+                        if (v != 0) {
+                            int wRow = t * width;
+                            for (int j = 0; j < width; j++) {
+                                w[wRow + j] += v * c[cRow + j];
+                            }
+                        }
+                    }
+                }
+                partial[chunk] = w;
+            }
+        });
+        double[] result = new double[count * width];
+        for (double[] w : partial) {
+            for (int j = 0; j < result.length; j++) {
+                result[j] += w[j];
+            }
+        }
+        return result;
+    }
+
+
+    // Subtracts V W from the rows from rowStart on of the block of width columns starting at colStart of c,
+    // where V holds the count reflectors starting at k0 and W is the count x width block starting at column wColStart of w
+    private void subtractReflectors(int k0, int count, double[] w, int wRowLength, int wColStart,
+                                    double[] c, int rowLength, int colStart, int width, int rowStart) {
+        int n = numOfColumns;
+        MatrixMultiplication.forEachRowBlock(numOfRows - rowStart, (long) (numOfRows - rowStart) * count * width, (blockStart, blockEnd) -> {
+            for (int i = rowStart + blockStart; i < rowStart + blockEnd; i++) {
+                int row = i * n, cRow = i * rowLength + colStart;
+                for (int t = 0; t < count; t++) {
+                    int column = k0 + t;
+                    double v = i > column ? qr[row + column] : (i == column ? 1.0 : 0.0);
+                    if (v != 0) {
+                        int wRow = t * wRowLength + wColStart;
+                        for (int j = 0; j < width; j++) {
+                            c[cRow + j] -= v * w[wRow + j];
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+
+    // Multiplies the count x width row-major array w in place by the upper triangular T, or by T^T if transpose is set
+    private static void multiplyTriangular(double[] T, int count, double[] w, int width, boolean transpose) {
+        if (transpose) {
+            // Row r of T^T W combines the rows 0..r of W, so go from the last row up
+            for (int r = count - 1; r >= 0; r--) {
+                int row = r * width;
+                double diagonal = T[r * count + r];
+                for (int j = 0; j < width; j++) {
+                    w[row + j] *= diagonal;
+                }
+                for (int t = 0; t < r; t++) {
+                    double factor = T[t * count + r];
+                    if (factor != 0) {
+                        int other = t * width;
+                        for (int j = 0; j < width; j++) {
+                            w[row + j] += factor * w[other + j];
+                        }
+                    }
+                }
+            }
+        } else {
+            // Row r of T W combines the rows r..count-1 of W, so go from the first row down
+            for (int r = 0; r < count; r++) {
+                int row = r * width;
+                double diagonal = T[r * count + r];
+                for (int j = 0; j < width; j++) {
+                    w[row + j] *= diagonal;
+                }
+                for (int t = r + 1; t < count; t++) {
+                    double factor = T[r * count + t];
+                    if (factor != 0) {
+                        int other = t * width;
+                        for (int j = 0; j < width; j++) {
+                            w[row + j] += factor * w[other + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    // Swaps two columns of the first numRows rows of a row-major array
+    private static void swapColumns(double[] values, int rowLength, int numRows, int a, int b) {
+        for (int i = 0; i < numRows; i++) {
+            int row = i * rowLength;
+            double temp = values[row + a];
+            values[row + a] = values[row + b];
+            values[row + b] = temp;
+        }
+    }
+
+
+    private static void swap(double[] values, int a, int b) {
+        double temp = values[a];
+        values[a] = values[b];
+        values[b] = temp;
+    }
+
+
+    private double defaultTolerance() {
+        int p = Math.min(numOfRows, numOfColumns);
+        double max = 0;
+        for (int k = 0; k < p; k++) {
+            max = Math.max(max, Math.abs(qr[k * numOfColumns + k]));
+        }
+        return Math.max(numOfRows, numOfColumns) * Math.ulp(1.0) * max;
+    }
+
+
+    private void requireCurrent() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+    }
+
+
+}
@@ -0,0 +1,215 @@
+package am.aua.linalg.core;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SimdBackend class runs the loops of VectorKernels with the incubating Vector API,
+ * processing as many doubles at once as the preferred species of the processor holds (4 with AVX2, 8 with AVX-512).
+ * The elements that do not fill a whole vector at the end of a chunk go through a scalar loop.
+ * This class needs the jdk.incubator.vector module both to compile and to run; VectorKernels only loads it,
+ * by name, when the module is present, so the rest of the library works without it.
+ */
+final class SimdBackend implements VectorKernels.Backend {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+
+    @Override
+    public void add(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xi + i).add(DoubleVector.fromArray(SPECIES, y, yi + i))
+                    .intoArray(out, oi + i);
+        }
+        for (; i < n; i++) {
+            out[oi + i] = x[xi + i] + y[yi + i];
+        }
+    }
+
+
+    @Override
+    public void subtract(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xi + i).sub(DoubleVector.fromArray(SPECIES, y, yi + i))
+                    .intoArray(out, oi + i);
+        }
+        for (; i < n; i++) {
+            out[oi + i] = x[xi + i] - y[yi + i];
+        }
+    }
+
+
+    @Override
+    public void scale(double a, double[] x, int xi, double[] out, int oi, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xi + i).mul(a).intoArray(out, oi + i);
+        }
+        for (; i < n; i++) {
+            out[oi + i] = a * x[xi + i];
+        }
+    }
+
+
+    @Override
+    public void addScaled(double[] x, int xi, double a, double[] y, int yi, double[] out, int oi, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, xi + i).add(DoubleVector.fromArray(SPECIES, y, yi + i).mul(a))
+                    .intoArray(out, oi + i);
+        }
+        for (; i < n; i++) {
+            out[oi + i] = x[xi + i] + a * y[yi + i];
+        }
+    }
+
+
+    @Override
+    public void axpy(double a, double[] x, int xi, double[] y, int yi, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, y, yi + i).add(DoubleVector.fromArray(SPECIES, x, xi + i).mul(a))
+                    .intoArray(y, yi + i);
+        }
+        for (; i < n; i++) {
+            y[yi + i] += a * x[xi + i];
+        }
+    }
+
+
+    // Keeps one sum per lane and adds the lanes together at the end, in lane order rather than with reduceLanes,
+    // whose order for floating-point addition is unspecified, so that a result never depends on how the code was compiled
+    @Override
+    public double dot(double[] x, int xi, double[] y, int yi, int n) {
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, x, xi + i).mul(DoubleVector.fromArray(SPECIES, y, yi + i)));
+        }
+        double sum = 0;
+        for (double lane : sums.toArray()) {
+            sum += lane;
+        }
+        for (; i < n; i++) {
+            sum += x[xi + i] * y[yi + i];
+        }
+        return sum;
+    }
+
+
+
+    // 3D kernels
+    // Each lane evaluates the formula of the scalar backend with the same operations in the same order,
+    // so the results are the same bit for bit
+    @Override
+    public void cross(double[][] a, double[][] b, int i, double[][] r, int ri, int n) {
+        double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+        double[] rx = r[0], ry = r[1], rz = r[2];
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += SPECIES.length()) {
+            int j = i + k;
+            DoubleVector x1 = DoubleVector.fromArray(SPECIES, ax, j), y1 = DoubleVector.fromArray(SPECIES, ay, j);
+            DoubleVector z1 = DoubleVector.fromArray(SPECIES, az, j), x2 = DoubleVector.fromArray(SPECIES, bx, j);
+            DoubleVector y2 = DoubleVector.fromArray(SPECIES, by, j), z2 = DoubleVector.fromArray(SPECIES, bz, j);
+            y1.mul(z2).sub(z1.mul(y2)).intoArray(rx, ri + k);
+            z1.mul(x2).sub(x1.mul(z2)).intoArray(ry, ri + k);
+            x1.mul(y2).sub(y1.mul(x2)).intoArray(rz, ri + k);
+        }
+        for (; k < n; k++) {
+            int j = i + k;
+            rx[ri + k] = (ay[j] * bz[j]) - (az[j] * by[j]);
+            ry[ri + k] = (az[j] * bx[j]) - (ax[j] * bz[j]);
+            rz[ri + k] = (ax[j] * by[j]) - (ay[j] * bx[j]);
+        }
+    }
+
+
+    @Override
+    public void dot3(double[][] a, double[][] b, int i, double[] r, int ri, int n) {
+        double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += SPECIES.length()) {
+            int j = i + k;
+            DoubleVector.fromArray(SPECIES, ax, j).mul(DoubleVector.fromArray(SPECIES, bx, j))
+                    .add(DoubleVector.fromArray(SPECIES, ay, j).mul(DoubleVector.fromArray(SPECIES, by, j)))
+                    .add(DoubleVector.fromArray(SPECIES, az, j).mul(DoubleVector.fromArray(SPECIES, bz, j)))
+                    .intoArray(r, ri + k);
+        }
+        for (; k < n; k++) {
+            int j = i + k;
+            r[ri + k] = ax[j] * bx[j] + ay[j] * by[j] + az[j] * bz[j];
+        }
+    }
+
+
+    @Override
+    public void magnitude3(double[][] a, int i, double[] r, int ri, int n) {
+        double[] ax = a[0], ay = a[1], az = a[2];
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += SPECIES.length()) {
+            int j = i + k;
+            magnitude(ax, ay, az, j).intoArray(r, ri + k);
+        }
+        for (; k < n; k++) {
+            int j = i + k;
+            r[ri + k] = Math.sqrt(ax[j] * ax[j] + ay[j] * ay[j] + az[j] * az[j]);
+        }
+    }
+
+
+    @Override
+    public void normalize3(double[][] a, int i, int n) {
+        double[] ax = a[0], ay = a[1], az = a[2];
+        int j = i;
+        for (int bound = i + SPECIES.loopBound(n); j < bound; j += SPECIES.length()) {
+            DoubleVector magnitude = magnitude(ax, ay, az, j);
+            DoubleVector.fromArray(SPECIES, ax, j).div(magnitude).intoArray(ax, j);
+            DoubleVector.fromArray(SPECIES, ay, j).div(magnitude).intoArray(ay, j);
+            DoubleVector.fromArray(SPECIES, az, j).div(magnitude).intoArray(az, j);
+        }
+        for (; j < i + n; j++) {
+            double magnitude = Math.sqrt(ax[j] * ax[j] + ay[j] * ay[j] + az[j] * az[j]);
+            ax[j] /= magnitude;
+            ay[j] /= magnitude;
+            az[j] /= magnitude;
+        }
+    }
+
+
+    @Override
+    public void area3(double[][] a, double[][] b, int i, double[] r, int ri, int n) {
+        double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+        int k = 0;
+        for (int bound = SPECIES.loopBound(n); k < bound; k += SPECIES.length()) {
+            int j = i + k;
+            DoubleVector x1 = DoubleVector.fromArray(SPECIES, ax, j), y1 = DoubleVector.fromArray(SPECIES, ay, j);
+            DoubleVector z1 = DoubleVector.fromArray(SPECIES, az, j), x2 = DoubleVector.fromArray(SPECIES, bx, j);
+            DoubleVector y2 = DoubleVector.fromArray(SPECIES, by, j), z2 = DoubleVector.fromArray(SPECIES, bz, j);
+            DoubleVector x = y1.mul(z2).sub(z1.mul(y2));
+            DoubleVector y = z1.mul(x2).sub(x1.mul(z2));
+            DoubleVector z = x1.mul(y2).sub(y1.mul(x2));
+            x.mul(x).add(y.mul(y)).add(z.mul(z)).lanewise(VectorOperators.SQRT).mul(0.5).intoArray(r, ri + k);
+        }
+        for (; k < n; k++) {
+            int j = i + k;
+            double x = (ay[j] * bz[j]) - (az[j] * by[j]);
+            double y = (az[j] * bx[j]) - (ax[j] * bz[j]);
+            double z = (ax[j] * by[j]) - (ay[j] * bx[j]);
+            r[ri + k] = 0.5 * Math.sqrt(x * x + y * y + z * z);
+        }
+    }
+
+
+    // Returns the magnitudes of the vectors from index j
+    private static DoubleVector magnitude(double[] xs, double[] ys, double[] zs, int j) {
+        DoubleVector x = DoubleVector.fromArray(SPECIES, xs, j);
+        DoubleVector y = DoubleVector.fromArray(SPECIES, ys, j);
+        DoubleVector z = DoubleVector.fromArray(SPECIES, zs, j);
+        return x.mul(x).add(y.mul(y)).add(z.mul(z)).lanewise(VectorOperators.SQRT);
+    }
+
+
+}
@@ -0,0 +1,745 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the thin singular value decomposition of an m x n matrix, A = U S V^T, where p = min(m, n),
+ * U is m x p and V is n x p with orthonormal columns, and S is the p x p diagonal matrix of the singular values
+ * in decreasing order. The matrix is reduced to bidiagonal form by Householder reflections, and the bidiagonal
+ * matrix is diagonalized by the implicit-shift QR algorithm of Golub and Kahan. Matrices with many more rows than
+ * columns are first reduced to their triangular QR factor, so only an n x n problem is bidiagonalized.
+ * The singular vectors can be skipped when only the singular values are needed, which is much cheaper;
+ * that is how the rank and the condition number of a Matrix are computed.
+ * A decomposition becomes stale, and can no longer be used, once its matrix is modified through setEntry or setValue.
+ */
+public class SingularValueDecomposition {
+
+    // Matrices with at least this many times as many rows as columns are reduced by QR first (the LAPACK crossover)
+    private static final double QR_FIRST_RATIO = 1.6;
+
+    // Maximum number of QR steps spent on one singular value before giving up
+    private static final int MAX_ITERATIONS = 75;
+
+    // Rows in the chunks of a bidiagonalization pass, whose partial sums are added in order for a deterministic result
+    private static final int CHUNK_ROWS = 256;
+
+    // Number of reflectors applied together when forming the singular vectors
+    private static final int REFLECTOR_GROUP = 16;
+
+    // Instance variables
+    private final Matrix source;          // The decomposed matrix
+    private final int sourceModCount;     // Modification count of the source when it was decomposed
+    private final int numOfRows;          // m, the number of rows of the decomposed matrix
+    private final int numOfColumns;       // n, the number of columns of the decomposed matrix
+    private final double[] singularValues;   // The p singular values in decreasing order
+    private final double[] u;             // Row-major m x p array of the left singular vectors, or null if they were not computed
+    private final double[] v;             // Row-major n x p array of the right singular vectors, or null if they were not computed
+
+
+    // Constructors
+    /**
+     * Computes the thin singular value decomposition of the given matrix, with its singular vectors.
+     *
+     * @param A The matrix to decompose
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public SingularValueDecomposition(Matrix A) {
+        this(A, true);
+    }
+
+
+    /**
+     * Computes the singular values of the given matrix, and its thin singular vectors if requested.
+     * A wide matrix is decomposed through its transpose, and a tall one through its triangular QR factor.
+     *
+     * @param A The matrix to decompose
+     * @param computeVectors Whether to compute the singular vectors as well as the singular values
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public SingularValueDecomposition(Matrix A, boolean computeVectors) {
+        this.source = A;
+        this.sourceModCount = A.getModCount();
+        this.numOfRows = A.getNumOfRows();
+        this.numOfColumns = A.getNumOfColumns();
+
+        // Work on the tall orientation, rows >= cols
+        boolean transposed = numOfRows < numOfColumns;
+        Matrix tall = transposed ? A.transpose() : A;
+        int rows = Math.max(numOfRows, numOfColumns), cols = Math.min(numOfRows, numOfColumns);
+
+        double[][] factors;
+        if (rows >= QR_FIRST_RATIO * cols) {
+            // A = QR and R = U_R S V^T, so A = (Q U_R) S V^T
+            QRDecomposition qr = new QRDecomposition(tall);
+            factors = decompose(qr.getR().data(), cols, cols, computeVectors);
+            if (computeVectors) {
+                double[] padded = new double[rows * cols];
+                System.arraycopy(factors[1], 0, padded, 0, cols * cols);
+                factors[1] = qr.multiplyQ(new Matrix(padded, rows, cols)).data();
+            }
+        } else {
+            factors = decompose(tall.copyData(), rows, cols, computeVectors);
+        }
+
+        // A^T = U S V^T means A = V S U^T
+        this.singularValues = factors[0];
+        this.u = transposed ? factors[2] : factors[1];
+        this.v = transposed ? factors[1] : factors[2];
+    }
+
+
+
+    // Accessors
+    /**
+     * Checks whether the decomposed matrix has been modified through setEntry or setValue since it was decomposed.
+     * A stale decomposition no longer describes its matrix and refuses to be used.
+     *
+     * @return true if the decomposed matrix has changed, false otherwise
+     */
+    public boolean isStale() {
+        return source.getModCount() != sourceModCount;
+    }
+
+    /**
+     * Checks whether the singular vectors were computed.
+     *
+     * @return true if U and V are available, false if only the singular values were computed
+     */
+    public boolean hasVectors() {
+        return u != null;
+    }
+
+    /**
+     * Returns the singular values in decreasing order.
+     *
+     * @return A copy of the min(m, n) singular values
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public double[] getSingularValues() {
+        requireCurrent();
+        return singularValues.clone();
+    }
+
+    /**
+     * Returns the left singular vectors as the columns of an m x min(m, n) matrix.
+     *
+     * @return The factor U
+     * @throws IllegalStateException If the singular vectors were not computed or the matrix has been modified since
+     */
+    public Matrix getU() {
+        requireVectors();
+        return new Matrix(u.clone(), numOfRows, singularValues.length);
+    }
+
+    /**
+     * Returns the right singular vectors as the columns of an n x min(m, n) matrix.
+     *
+     * @return The factor V
+     * @throws IllegalStateException If the singular vectors were not computed or the matrix has been modified since
+     */
+    public Matrix getV() {
+        requireVectors();
+        return new Matrix(v.clone(), numOfColumns, singularValues.length);
+    }
+
+    /**
+     * Returns the singular values as a diagonal matrix.
+     *
+     * @return The factor S
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public DiagonalMatrix getS() {
+        requireCurrent();
+        return new DiagonalMatrix(singularValues.clone(), singularValues.length);
+    }
+
+
+
+    // Methods
+
+    // Norm and condition number
+    /**
+     * Returns the 2-norm of the decomposed matrix, its largest singular value.
+     *
+     * @return The largest singular value, or 0 for an empty matrix
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public double norm2() {
+        requireCurrent();
+        return singularValues.length == 0 ? 0.0 : singularValues[0];
+    }
+
+
+    /**
+     * Returns the 2-norm condition number of the decomposed matrix, the ratio of its largest to its smallest singular value.
+     *
+     * @return The condition number, infinite if the matrix is rank deficient
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public double cond() {
+        requireCurrent();
+        int p = singularValues.length;
+        return p == 0 ? 0.0 : singularValues[0] / singularValues[p - 1];
+    }
+
+
+    // Rank
+    /**
+     * Returns the numerical rank of the decomposed matrix: the number of singular values larger than
+     * max(m, n) * eps * the largest singular value, the threshold used by LAPACK and MATLAB.
+     *
+     * @return The numerical rank
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public int getRank() {
+        return getRank(defaultTolerance());
+    }
+
+
+    /**
+     * Counts the singular values larger than the given tolerance.
+     *
+     * @param tolerance The value at or below which a singular value counts as zero
+     * @return The numerical rank for the given tolerance
+     * @throws IllegalStateException If the matrix has been modified since it was decomposed
+     */
+    public int getRank(double tolerance) {
+        requireCurrent();
+        int rank = 0;
+        while (rank < singularValues.length && singularValues[rank] > tolerance) {
+            rank++;
+        }
+        return rank;
+    }
+
+
+    // Pseudo-inverse
+    /**
+     * Computes the Moore-Penrose pseudo-inverse V S^+ U^T of the decomposed matrix, where S^+ inverts the singular values
+     * above the default rank tolerance and sets the others to zero.
+     *
+     * @return The n x m pseudo-inverse
+     * @throws IllegalStateException If the singular vectors were not computed or the matrix has been modified since
+     */
+    public Matrix pinv() {
+        return pinv(defaultTolerance());
+    }
+
+
+    /**
+     * Computes the pseudo-inverse V S^+ U^T of the decomposed matrix, treating the singular values at or below
+     * the given tolerance as zero.
+     *
+     * @param tolerance The value at or below which a singular value counts as zero
+     * @return The n x m pseudo-inverse
+     * @throws IllegalStateException If the singular vectors were not computed or the matrix has been modified since
+     */
+    public Matrix pinv(double tolerance) {
+        requireVectors();
+        int rank = getRank(tolerance);
+        double[] inverted = new double[rank];
+        for (int l = 0; l < rank; l++) {
+            inverted[l] = 1.0 / singularValues[l];
+        }
+        return product(v, numOfColumns, inverted, u, numOfRows);
+    }
+
+
+    // Low-rank approximation
+    /**
+     * Computes the best approximation of rank k of the decomposed matrix in the 2-norm and the Frobenius norm,
+     * U_k S_k V_k^T, from its k largest singular values and their vectors (the Eckart-Young theorem).
+     *
+     * @param k The rank of the approximation
+     * @return The m x n approximation of rank at most k
+     * @throws IllegalArgumentException If k is negative or larger than min(m, n)
+     * @throws IllegalStateException If the singular vectors were not computed or the matrix has been modified since
+     */
+    public Matrix lowRankApproximation(int k) {
+        if (k < 0 || k > singularValues.length) {
+            throw new IllegalArgumentException("The rank must be between 0 and the smaller dimension of the matrix.");
+        }
+        requireVectors();
+        double[] values = new double[k];
+        System.arraycopy(singularValues, 0, values, 0, k);
+        return product(u, numOfRows, values, v, numOfColumns);
+    }
+
+
+    // Computes X D Y^T for the leading columns of the row-major factors x (xRows x p) and y (yRows x p),
+    // where D is the diagonal of the given weights, whose length is the number of columns used
+    private Matrix product(double[] x, int xRows, double[] weights, double[] y, int yRows) {
+        int p = singularValues.length, k = weights.length;
+        double[] left = new double[xRows * k];
+        for (int i = 0; i < xRows; i++) {
+            for (int l = 0; l < k; l++) {
+                left[i * k + l] = x[i * p + l] * weights[l];
+            }
+        }
+        double[] right = new double[k * yRows];
+        for (int j = 0; j < yRows; j++) {
+            for (int l = 0; l < k; l++) {
+                right[l * yRows + j] = y[j * p + l];
+            }
+        }
+        return new Matrix(MatrixMultiplication.multiply(left, right, xRows, k, yRows), xRows, yRows);
+    }
+
+
+
+    // Algorithm
+    // Decomposes the rows x cols row-major array a, with rows >= cols, which is overwritten.
+    // Returns the singular values and, if vectors is set, the row-major rows x cols U and cols x cols V
+    private static double[][] decompose(double[] a, int rows, int cols, boolean vectors) {
+        double[] d = new double[cols];
+        double[] e = new double[cols];
+        double[] tauLeft = new double[cols];
+        double[] tauRight = new double[cols];
+        bidiagonalize(a, rows, cols, d, e, tauLeft, tauRight);
+
+        // The singular vectors are kept as the rows of U^T and V^T, so that rotations combine contiguous rows
+        double[] ut = null, vt = null;
+        if (vectors) {
+            ut = leftVectors(a, rows, cols, tauLeft);
+            vt = rightVectors(a, cols, tauRight);
+        }
+        diagonalize(d, e, ut, rows, vt, cols);
+
+        double[][] factors = { d, null, null };
+        if (vectors) {
+            factors[1] = new double[rows * cols];
+            Matrix.transpose(ut, factors[1], rows, cols);
+            factors[2] = new double[cols * cols];
+            Matrix.transpose(vt, factors[2], cols, cols);
+        }
+        return factors;
+    }
+
+
+    // Reduces a to the upper bidiagonal B = U^T A V with Householder reflections applied alternately from the left,
+    // to zero column k below the diagonal, and from the right, to zero row k past the superdiagonal.
+    // The diagonal goes to d and the superdiagonal to e; the left reflectors are left in the columns below the diagonal
+    // and the right ones in the rows past the superdiagonal, with their factors in tauLeft and tauRight.
+    // Each step makes a single pass over the remaining rows: it applies both reflectors to a row and, while the row is
+    // in cache, adds it to the sums that the next left reflector is computed from, so those need no pass of their own
+    private static void bidiagonalize(double[] a, int rows, int cols, double[] d, double[] e,
+                                      double[] tauLeft, double[] tauRight) {
+        int numChunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        double[][] partial = new double[numChunks][cols + 1];
+        double[] sums = new double[cols + 1];
+        double[] w = new double[cols];
+        columnSums(a, rows, cols, 0, sums);
+        for (int k = 0; k < cols; k++) {
+            int rowK = k * cols;
+            double left = leftReflector(a, rows, cols, k, sums, w);
+            tauLeft[k] = left;
+            d[k] = a[rowK + k];
+            if (k == cols - 1) {
+                break;
+            }
+
+            // Row k, where v is 1, gets its final value right away
+            if (left != 0) {
+                for (int j = k + 1; j < cols; j++) {
+                    a[rowK + j] -= w[j];
+                }
+            }
+            double right = QRDecomposition.reflect(a, rowK + k + 1, 1, cols - k - 1);
+            tauRight[k] = right;
+            e[k] = a[rowK + k + 1];
+
+            // Apply the left reflector and then the right one to every row below k, and sum the products of
+            // column k + 1 with the columns after it, in row chunks whose partial sums are added in order
+            int start = k, firstChunk = (k + 1) / CHUNK_ROWS;
+            MatrixMultiplication.forEachRowBlock(numChunks - firstChunk, 6L * (rows - k) * (cols - k), (chunkStart, chunkEnd) -> {
+                for (int chunk = firstChunk + chunkStart; chunk < firstChunk + chunkEnd; chunk++) {
+                    double[] local = partial[chunk];
+                    local[0] = 0.0;
+                    Arrays.fill(local, start + 3, cols + 1, 0.0);
+                    int rowEnd = Math.min(rows, (chunk + 1) * CHUNK_ROWS);
+                    for (int i = Math.max(start + 1, chunk * CHUNK_ROWS); i < rowEnd; i++) {
+                        int row = i * cols;
+                        double vi = a[row + start];
+                        if (left != 0 && vi != 0) {
+                            for (int j = start + 1; j < cols; j++) {
+                                a[row + j] -= vi * w[j];
+                            }
+                        }
+                        if (right != 0) {
+                            double z = a[row + start + 1];
+                            for (int j = start + 2; j < cols; j++) {
+                                z += a[row + j] * a[rowK + j];
+                            }
+                            z *= right;
+                            a[row + start + 1] -= z;
+                            for (int j = start + 2; j < cols; j++) {
+                                a[row + j] -= z * a[rowK + j];
+                            }
+                        }
+                        if (i > start + 1) {
+                            double x = a[row + start + 1];
+                            if (x != 0) {
+                                local[0] += x * x;
+                                for (int j = start + 2; j < cols; j++) {
+                                    local[1 + j] += x * a[row + j];
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            sums[0] = 0.0;
+            Arrays.fill(sums, k + 3, cols + 1, 0.0);
+            for (int chunk = firstChunk; chunk < numChunks; chunk++) {
+                double[] local = partial[chunk];
+                sums[0] += local[0];
+                for (int j = k + 3; j <= cols; j++) {
+                    sums[j] += local[j];
+                }
+            }
+        }
+    }
+
+
+    // Computes the left reflector of column k from sums[0], the sum of squares below the diagonal, and sums[1 + j],
+    // the sum of a(i, k) a(i, j) over the rows i > k. Stores it like QRDecomposition.reflect, sets w = tau v^T A(k:, k+1:)
+    // and returns tau. If the sum of squares overflowed or lost its precision to underflow, the reflector is computed
+    // with the scaled norm instead and the sums again from the column
+    private static double leftReflector(double[] a, int rows, int cols, int k, double[] sums, double[] w) {
+        int rowK = k * cols;
+        double squares = sums[0];
+        if (squares == 0) {
+            return 0.0;
+        }
+        double tau, factor;
+        if (squares >= Double.MIN_NORMAL / Math.ulp(1.0) && squares < Double.POSITIVE_INFINITY) {
+            double alpha = a[rowK + k];
+            double beta = -Math.copySign(Math.hypot(alpha, Math.sqrt(squares)), alpha);
+            factor = 1.0 / (alpha - beta);
+            for (int i = k + 1; i < rows; i++) {
+                a[i * cols + k] *= factor;
+            }
+            a[rowK + k] = beta;
+            tau = (beta - alpha) / beta;
+        } else {
+            tau = QRDecomposition.reflect(a, rowK + k, cols, rows - k);
+            columnSums(a, rows, cols, k, sums);
+            factor = 1.0;
+        }
+        for (int j = k + 1; j < cols; j++) {
+            w[j] = tau * (a[rowK + j] + factor * sums[1 + j]);
+        }
+        return tau;
+    }
+
+
+    // Sets sums[0] to the sum of squares of column k below the diagonal and sums[1 + j] to the sum of a(i, k) a(i, j) over i > k
+    private static void columnSums(double[] a, int rows, int cols, int k, double[] sums) {
+        sums[0] = 0.0;
+        Arrays.fill(sums, k + 2, cols + 1, 0.0);
+        for (int i = k + 1; i < rows; i++) {
+            int row = i * cols;
+            double x = a[row + k];
+            if (x != 0) {
+                sums[0] += x * x;
+                for (int j = k + 1; j < cols; j++) {
+                    sums[1 + j] += x * a[row + j];
+                }
+            }
+        }
+    }
+
+
+    // Forms U^T = [I 0] H_(cols-1) ... H_0 from the left reflectors, as a cols x rows row-major array.
+    // Row r is still e_r when H_k is applied for k > r, so only the rows from k on are touched.
+    // The reflectors are applied in groups, each row going through the whole group while it is in cache
+    private static double[] leftVectors(double[] a, int rows, int cols, double[] tau) {
+        double[] ut = new double[cols * rows];
+        for (int r = 0; r < cols; r++) {
+            ut[r * rows + r] = 1.0;
+        }
+        double[] group = new double[REFLECTOR_GROUP * rows];
+        for (int high = cols - 1; high >= 0; high -= REFLECTOR_GROUP) {
+            int low = Math.max(0, high - REFLECTOR_GROUP + 1), top = high;
+            for (int k = high; k >= low; k--) {
+                int offset = (high - k) * rows;
+                group[offset + k] = 1.0;
+                for (int i = k + 1; i < rows; i++) {
+                    group[offset + i] = a[i * cols + k];
+                }
+            }
+            MatrixMultiplication.forEachRowBlock(cols - low, 4L * (cols - low) * (rows - low) * (top - low + 1), (blockStart, blockEnd) -> {
+                for (int r = low + blockStart; r < low + blockEnd; r++) {
+                    for (int k = Math.min(top, r); k >= low; k--) {
+                        reflectRow(ut, r * rows, group, (top - k) * rows, k, rows, tau[k]);
+                    }
+                }
+            });
+        }
+        return ut;
+    }
+
+
+    // Forms V^T = G_(cols-3) ... G_0 from the right reflectors, as a cols x cols row-major array, where G_k acts on
+    // the entries from k + 1 on. As for U^T, only the rows from k + 1 on are touched, and the reflectors are applied in groups
+    private static double[] rightVectors(double[] a, int cols, double[] tau) {
+        double[] vt = new double[cols * cols];
+        for (int r = 0; r < cols; r++) {
+            vt[r * cols + r] = 1.0;
+        }
+        double[] group = new double[REFLECTOR_GROUP * cols];
+        for (int high = cols - 3; high >= 0; high -= REFLECTOR_GROUP) {
+            int low = Math.max(0, high - REFLECTOR_GROUP + 1), top = high;
+            for (int k = high; k >= low; k--) {
+                int offset = (high - k) * cols;
+                group[offset + k + 1] = 1.0;
+                System.arraycopy(a, k * cols + k + 2, group, offset + k + 2, cols - k - 2);
+            }
+            MatrixMultiplication.forEachRowBlock(cols - low - 1, 4L * (cols - low) * (cols - low) * (top - low + 1), (blockStart, blockEnd) -> {
+                for (int r = low + 1 + blockStart; r < low + 1 + blockEnd; r++) {
+                    for (int k = Math.min(top, r - 1); k >= low; k--) {
+                        reflectRow(vt, r * cols, group, (top - k) * cols, k + 1, cols, tau[k]);
+                    }
+                }
+            });
+        }
+        return vt;
+    }
+
+
+    // Applies I - tau v v^T from the right to the row of x starting at offset,
+    // where v starts at vOffset of its array and is nonzero in [start, length)
+    private static void reflectRow(double[] x, int offset, double[] v, int vOffset, int start, int length, double tau) {
+        if (tau == 0) {
+            return;
+        }
+        double s = 0;
+        for (int i = start; i < length; i++) {
+            s += x[offset + i] * v[vOffset + i];
+        }
+        s *= tau;
+        if (s != 0) {
+            for (int i = start; i < length; i++) {
+                x[offset + i] -= s * v[vOffset + i];
+            }
+        }
+    }
+
+
+    // Diagonalizes the upper bidiagonal matrix with diagonal s and superdiagonal e by implicit-shift QR steps (Golub and Kahan),
+    // deflating whenever an entry becomes negligible, and leaves the singular values in s in decreasing order.
+    // The rotations are applied to the rows of ut (of length uLength) and vt (of length vLength) if they are not null.
+    // The signs and the order are fixed once all values have converged, with a single pass over the rows
+    private static void diagonalize(double[] s, double[] e, double[] ut, int uLength, double[] vt, int vLength) {
+        int p = s.length;
+        double eps = Math.ulp(1.0), tiny = Double.MIN_NORMAL / eps;
+        int iterations = 0;
+        while (p > 0) {
+            // Find the largest k < p - 1 with a negligible superdiagonal e[k], and a negligible diagonal s[ks] after it
+            int k;
+            for (k = p - 2; k >= 0; k--) {
+                if (Math.abs(e[k]) <= tiny + eps * (Math.abs(s[k]) + Math.abs(s[k + 1]))) {
+                    e[k] = 0.0;
+                    break;
+                }
+            }
+            int kase;
+            if (k == p - 2) {
+                kase = 4;    // s[p - 1] has converged
+            } else {
+                int ks;
+                for (ks = p - 1; ks > k; ks--) {
+                    double t = (ks != p ? Math.abs(e[ks]) : 0.0) + (ks != k + 1 ? Math.abs(e[ks - 1]) : 0.0);
+                    if (Math.abs(s[ks]) <= tiny + eps * t) {
+                        s[ks] = 0.0;
+                        break;
+                    }
+                }
+                if (ks == k) {
+                    kase = 3;    // No negligible diagonal, take a QR step on s[k + 1 .. p - 1]
+                } else if (ks == p - 1) {
+                    kase = 1;    // s[p - 1] is negligible, deflate it
+                } else {
+                    kase = 2;    // s[ks] is negligible, split there
+                    k = ks;
+                }
+            }
+            k++;
+
+            switch (kase) {
+                case 1: {
+                    // Chase e[p - 2] up the column p - 1 with rotations from the right
+                    double f = e[p - 2];
+                    e[p - 2] = 0.0;
+                    for (int j = p - 2; j >= k; j--) {
+                        double t = Math.hypot(s[j], f);
+                        double cs = s[j] / t, sn = f / t;
+                        s[j] = t;
+                        if (j != k) {
+                            f = -sn * e[j - 1];
+                            e[j - 1] = cs * e[j - 1];
+                        }
+                        if (vt != null) {
+                            rotate(vt, j, p - 1, vLength, cs, sn);
+                        }
+                    }
+                    break;
+                }
+                case 2: {
+                    // Chase e[k - 1] along the row k - 1 with rotations from the left
+                    double f = e[k - 1];
+                    e[k - 1] = 0.0;
+                    for (int j = k; j < p; j++) {
+                        double t = Math.hypot(s[j], f);
+                        double cs = s[j] / t, sn = f / t;
+                        s[j] = t;
+                        f = -sn * e[j];
+                        e[j] = cs * e[j];
+                        if (ut != null) {
+                            rotate(ut, j, k - 1, uLength, cs, sn);
+                        }
+                    }
+                    break;
+                }
+                case 3: {
+                    if (++iterations > MAX_ITERATIONS) {
+                        throw new UnsupportedOperationException("The SVD did not converge.");
+                    }
+                    // Shift from the trailing 2 x 2 block of B^T B, scaled to avoid overflow
+                    double scale = Math.max(Math.max(Math.max(Math.max(
+                            Math.abs(s[p - 1]), Math.abs(s[p - 2])), Math.abs(e[p - 2])), Math.abs(s[k])), Math.abs(e[k]));
+                    double sp = s[p - 1] / scale, spm1 = s[p - 2] / scale, epm1 = e[p - 2] / scale;
+                    double sk = s[k] / scale, ek = e[k] / scale;
+                    double b = ((spm1 + sp) * (spm1 - sp) + epm1 * epm1) / 2.0;
+                    double c = (sp * epm1) * (sp * epm1);
+                    double shift = 0.0;
+                    if (b != 0.0 || c != 0.0) {
+                        shift = Math.sqrt(b * b + c);
+                        if (b < 0.0) {
+                            shift = -shift;
+                        }
+                        shift = c / (b + shift);
+                    }
+                    double f = (sk + sp) * (sk - sp) + shift;
+                    double g = sk * ek;
+
+                    // Chase the bulge down the bidiagonal
+                    for (int j = k; j < p - 1; j++) {
+                        double t = Math.hypot(f, g);
+                        double cs = f / t, sn = g / t;
+                        if (j != k) {
+                            e[j - 1] = t;
+                        }
+                        f = cs * s[j] + sn * e[j];
+                        e[j] = cs * e[j] - sn * s[j];
+                        g = sn * s[j + 1];
+                        s[j + 1] = cs * s[j + 1];
+                        if (vt != null) {
+                            rotate(vt, j, j + 1, vLength, cs, sn);
+                        }
+                        t = Math.hypot(f, g);
+                        cs = f / t;
+                        sn = g / t;
+                        s[j] = t;
+                        f = cs * e[j] + sn * s[j + 1];
+                        s[j + 1] = -sn * e[j] + cs * s[j + 1];
+                        g = sn * e[j + 1];
+                        e[j + 1] = cs * e[j + 1];
+                        if (ut != null) {
+                            rotate(ut, j, j + 1, uLength, cs, sn);
+                        }
+                    }
+                    e[p - 2] = f;
+                    break;
+                }
+                default: {
+                    iterations = 0;
+                    p--;
+                    break;
+                }
+            }
+        }
+        // Make the singular values positive and sort them in decreasing order
+        int numOfValues = s.length;
+        for (int k = 0; k < numOfValues; k++) {
+            if (s[k] <= 0.0) {
+                if (s[k] < 0.0 && vt != null) {
+                    for (int i = 0; i < vLength; i++) {
+                        vt[k * vLength + i] = -vt[k * vLength + i];
+                    }
+                }
+                s[k] = Math.abs(s[k]);
+            }
+        }
+        Integer[] order = new Integer[numOfValues];
+        for (int k = 0; k < numOfValues; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(s[y], s[x]));
+        double[] sorted = new double[numOfValues];
+        for (int k = 0; k < numOfValues; k++) {
+            sorted[k] = s[order[k]];
+        }
+        System.arraycopy(sorted, 0, s, 0, numOfValues);
+        if (ut != null) {
+            permuteRows(ut, order, uLength);
+        }
+        if (vt != null) {
+            permuteRows(vt, order, vLength);
+        }
+    }
+
+
+    // Replaces the rows x and y of length n of an array by c x + s y and c y - s x
+    private static void rotate(double[] values, int x, int y, int n, double c, double s) {
+        int rowX = x * n, rowY = y * n;
+        for (int i = 0; i < n; i++) {
+            double xi = values[rowX + i], yi = values[rowY + i];
+            values[rowX + i] = c * xi + s * yi;
+            values[rowY + i] = c * yi - s * xi;
+        }
+    }
+
+
+    // Rearranges the rows of length n of an array so that row k becomes the former row order[k], one cycle at a time
+    private static void permuteRows(double[] values, Integer[] order, int n) {
+        boolean[] placed = new boolean[order.length];
+        double[] row = new double[n];
+        for (int k = 0; k < order.length; k++) {
+            if (placed[k] || order[k] == k) {
+                continue;
+            }
+            System.arraycopy(values, k * n, row, 0, n);
+            int j = k;
+            while (order[j] != k) {
+                System.arraycopy(values, order[j] * n, values, j * n, n);
+                placed[j] = true;
+                j = order[j];
+            }
+            System.arraycopy(row, 0, values, j * n, n);
+            placed[j] = true;
+        }
+    }
+
+
+    private double defaultTolerance() {
+        return Math.max(numOfRows, numOfColumns) * Math.ulp(1.0) * norm2();
+    }
+
+
+    private void requireVectors() {
+        requireCurrent();
+        if (u == null) {
+            throw new IllegalStateException("The singular vectors were not computed.");
+        }
+    }
+
+
+    private void requireCurrent() {
+        if (isStale()) {
+            throw new IllegalStateException("The matrix has been modified since it was decomposed.");
+        }
+    }
+
+
+}
@@ -0,0 +1,397 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents a sparse matrix, which only stores its non-zero entries.
+ * The entries are grouped into lines, the rows of a CSRMatrix or the columns of a CSCMatrix,
+ * and each line keeps the positions and values of its entries in ascending order of position.
+ * Memory use is proportional to the number of non-zero entries instead of rows x columns,
+ * so matrices with millions of rows and columns fit in memory as long as they are mostly zero.
+ * Sparse matrices are usually assembled with a SparseMatrixBuilder.
+ */
+public abstract class SparseMatrix extends Matrix {
+
+    // Instance variables
+    private int[] pointers;    // The entries of line m are stored at indices pointers[m] .. pointers[m + 1] - 1
+    private int[] indices;     // Position of each stored entry within its line, ascending within every line
+    private double[] values;   // Value of each stored entry
+
+
+    // Constructor
+    /**
+     * Constructs a sparse matrix that takes ownership of the given compressed arrays without copying them.
+     *
+     * @param numOfRows The number of rows in the matrix
+     * @param numOfColumns The number of columns in the matrix
+     * @param pointers The start of every line in indices and values, followed by the number of stored entries
+     * @param indices The position of every stored entry within its line
+     * @param values The value of every stored entry
+     */
+    SparseMatrix(int numOfRows, int numOfColumns, int[] pointers, int[] indices, double[] values) {
+        super(null, numOfRows, numOfColumns);
+        this.pointers = pointers;
+        this.indices = indices;
+        this.values = values;
+    }
+
+
+
+    // Accessors and Mutators
+    // Return the compressed arrays backing this matrix without copying them
+    int[] pointerData() {
+        return pointers;
+    }
+
+    int[] indexData() {
+        return indices;
+    }
+
+    double[] valueData() {
+        return values;
+    }
+
+
+    /**
+     * Checks whether the lines of this matrix are its rows (CSR) rather than its columns (CSC).
+     *
+     * @return true if the entries are grouped by row, false if they are grouped by column
+     */
+    abstract boolean isRowMajor();
+
+
+    /**
+     * Creates a sparse matrix with the format and dimensions of this one that takes ownership of the given arrays.
+     *
+     * @param pointers The start of every line in indices and values, followed by the number of stored entries
+     * @param indices The position of every stored entry within its line
+     * @param values The value of every stored entry
+     * @return The new sparse matrix
+     */
+    abstract SparseMatrix withStorage(int[] pointers, int[] indices, double[] values);
+
+
+    /**
+     * Returns this matrix in compressed sparse row format.
+     *
+     * @return This matrix if it already is a CSRMatrix, otherwise a converted copy
+     */
+    public abstract CSRMatrix toCSR();
+
+
+    /**
+     * Returns this matrix in compressed sparse column format.
+     *
+     * @return This matrix if it already is a CSCMatrix, otherwise a converted copy
+     */
+    public abstract CSCMatrix toCSC();
+
+
+    /**
+     * Returns the number of entries stored by this matrix.
+     *
+     * @return The number of non-zero entries
+     */
+    public int getNumOfNonZeros() {
+        return pointers[pointers.length - 1];
+    }
+
+
+    /**
+     * Retrieves the value of a specific entry in the matrix by a binary search of its line.
+     *
+     * @param row The row index of the entry
+     * @param column The column index of the entry
+     * @return The value of the specified entry, 0 if it is not stored
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     */
+    @Override
+    public double getEntry(int row, int column) {
+        checkIndices(row, column);
+        int k = isRowMajor() ? find(row, column) : find(column, row);
+        return k >= 0 ? values[k] : 0;
+    }
+
+
+    /**
+     * Sets the value of a specific entry in the matrix.
+     * Changing a stored entry takes O(log n) time, but storing a new entry shifts the entries after it and takes O(non-zeros) time,
+     * so matrices should be assembled with a SparseMatrixBuilder rather than entry by entry.
+     *
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     */
+    @Override
+    public void setEntry(int i, int j, double value) {
+        checkIndices(i, j);
+        int line = isRowMajor() ? i : j;
+        int position = isRowMajor() ? j : i;
+        int k = find(line, position);
+        if (k >= 0) {
+            values[k] = value;
+        } else if (value != 0) {
+            // Insert the new entry in place, keeping the positions of the line in ascending order
+            int at = -(k + 1);
+            int count = getNumOfNonZeros();
+            int[] newIndices = new int[count + 1];
+            double[] newValues = new double[count + 1];
+            System.arraycopy(indices, 0, newIndices, 0, at);
+            System.arraycopy(values, 0, newValues, 0, at);
+            newIndices[at] = position;
+            newValues[at] = value;
+            System.arraycopy(indices, at, newIndices, at + 1, count - at);
+            System.arraycopy(values, at, newValues, at + 1, count - at);
+            for (int m = line + 1; m < pointers.length; m++) {
+                pointers[m]++;
+            }
+            this.indices = newIndices;
+            this.values = newValues;
+        } else {
+            return;
+        }
+        modified();
+    }
+
+
+    /**
+     * Sets the values of this matrix using the provided 2D array, storing only its non-zero entries.
+     *
+     * @param array The 2D array containing the new values
+     * @throws IllegalArgumentException If the array does not have the dimensions of this matrix
+     */
+    @Override
+    public void setValue(double[][] array) {
+        if (array.length != getNumOfRows()) {
+            throw new IllegalArgumentException("Array does not match the dimensions of the matrix");
+        }
+        SparseMatrixBuilder builder = new SparseMatrixBuilder(getNumOfRows(), getNumOfColumns());
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].length != getNumOfColumns()) {
+                throw new IllegalArgumentException("Array does not match the dimensions of the matrix");
+            }
+            for (int j = 0; j < array[i].length; j++) {
+                if (array[i][j] != 0) {
+                    builder.add(i, j, array[i][j]);
+                }
+            }
+        }
+        SparseMatrix rebuilt = isRowMajor() ? builder.toCSR() : builder.toCSC();
+        this.pointers = rebuilt.pointers;
+        this.indices = rebuilt.indices;
+        this.values = rebuilt.values;
+        modified();
+    }
+
+
+    @Override
+    double[] copyData() {
+        double[] dense = new double[getNumOfRows() * getNumOfColumns()];
+        scatter(dense, 1.0);
+        return dense;
+    }
+
+
+    @Override
+    public SparseMatrix clone() {
+        SparseMatrix clonedMatrix = (SparseMatrix) super.clone();
+        clonedMatrix.pointers = this.pointers.clone();
+        clonedMatrix.indices = this.indices.clone();
+        clonedMatrix.values = this.values.clone();
+        return clonedMatrix;
+    }
+
+
+
+    // Methods
+
+    // Add and subtract
+    /**
+     * Computes A + sign * B where at least one operand is sparse.
+     * Two sparse operands are merged line by line into a sparse result in O(non-zeros) time,
+     * in the format of A; otherwise the sparse entries are added to a dense copy of the other operand.
+     *
+     * @param A The first operand
+     * @param B The second operand, with the dimensions of A
+     * @param sign 1 to add B, -1 to subtract it
+     * @return The sum or difference of A and B
+     */
+    static Matrix add(Matrix A, Matrix B, double sign) {
+        if (A instanceof SparseMatrix && B instanceof SparseMatrix) {
+            SparseMatrix left = (SparseMatrix) A;
+            SparseMatrix right = left.isRowMajor() ? ((SparseMatrix) B).toCSR() : ((SparseMatrix) B).toCSC();
+            return left.merge(right, sign);
+        }
+
+        double[] result;
+        if (A instanceof SparseMatrix) {
+            result = B.copyData();
+            if (sign < 0) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = -result[i];
+                }
+            }
+            ((SparseMatrix) A).scatter(result, 1.0);
+        } else {
+            result = A.copyData();
+            ((SparseMatrix) B).scatter(result, sign);
+        }
+        return new Matrix(result, A.getNumOfRows(), A.getNumOfColumns());
+    }
+
+
+    // Merges the lines of this matrix with those of another matrix in the same format, this + sign * other
+    private SparseMatrix merge(SparseMatrix other, double sign) {
+        int numLines = pointers.length - 1;
+        int[] resultPointers = new int[numLines + 1];
+        int[] resultIndices = new int[getNumOfNonZeros() + other.getNumOfNonZeros()];
+        double[] resultValues = new double[resultIndices.length];
+
+        int count = 0;
+        for (int m = 0; m < numLines; m++) {
+            int p = pointers[m], pEnd = pointers[m + 1];
+            int q = other.pointers[m], qEnd = other.pointers[m + 1];
+            while (p < pEnd || q < qEnd) {
+                int position;
+                double value;
+                if (q == qEnd || (p < pEnd && indices[p] < other.indices[q])) {
+                    position = indices[p];
+                    value = values[p++];
+                } else if (p == pEnd || other.indices[q] < indices[p]) {
+                    position = other.indices[q];
+                    value = sign * other.values[q++];
+                } else {
+                    position = indices[p];
+                    value = values[p++] + sign * other.values[q++];
+                }
+                // Entries that cancel out are not stored
+                if (value != 0) {
+                    resultIndices[count] = position;
+                    resultValues[count] = value;
+                    count++;
+                }
+            }
+            resultPointers[m + 1] = count;
+        }
+
+        return withStorage(resultPointers, Arrays.copyOf(resultIndices, count), Arrays.copyOf(resultValues, count));
+    }
+
+
+    // Scalar multiplication
+    /**
+     * Multiplies this matrix by a scalar value in O(non-zeros) time.
+     *
+     * @param a The scalar value to multiply by
+     * @return The result of multiplying this matrix by the scalar value, in the format of this matrix
+     */
+    @Override
+    public SparseMatrix scalarMultiply(Scalar a) {
+        double scalar = a.getValue();
+        double[] result = new double[values.length];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = values[k] * scalar;
+        }
+        return withStorage(pointers.clone(), indices.clone(), result);
+    }
+
+
+    // Scaling by a diagonal matrix
+    /**
+     * Multiplies every line m of this matrix by d[m], which scales the rows of a CSRMatrix and the columns of a CSCMatrix.
+     *
+     * @param d The factor of every line
+     * @return The scaled matrix, in the format of this matrix
+     */
+    SparseMatrix scaleLines(double[] d) {
+        double[] result = new double[values.length];
+        for (int m = 0; m < pointers.length - 1; m++) {
+            double factor = d[m];
+            for (int k = pointers[m]; k < pointers[m + 1]; k++) {
+                result[k] = values[k] * factor;
+            }
+        }
+        return withStorage(pointers.clone(), indices.clone(), result);
+    }
+
+
+    /**
+     * Multiplies every entry at position p of its line by d[p], which scales the columns of a CSRMatrix and the rows of a CSCMatrix.
+     *
+     * @param d The factor of every position
+     * @return The scaled matrix, in the format of this matrix
+     */
+    SparseMatrix scalePositions(double[] d) {
+        double[] result = new double[values.length];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = values[k] * d[indices[k]];
+        }
+        return withStorage(pointers.clone(), indices.clone(), result);
+    }
+
+
+
+    // Helpers
+    // Adds factor times every stored entry to a dense row-major array with the dimensions of this matrix
+    void scatter(double[] dense, double factor) {
+        int numCols = getNumOfColumns();
+        boolean rowMajor = isRowMajor();
+        for (int m = 0; m < pointers.length - 1; m++) {
+            for (int k = pointers[m]; k < pointers[m + 1]; k++) {
+                int index = rowMajor ? m * numCols + indices[k] : indices[k] * numCols + m;
+                dense[index] += factor * values[k];
+            }
+        }
+    }
+
+
+    // Index of the entry at the given position of a line in indices and values,
+    // or -(insertion point) - 1 if it is not stored
+    private int find(int line, int position) {
+        return Arrays.binarySearch(indices, pointers[line], pointers[line + 1], position);
+    }
+
+
+    private void checkIndices(int row, int column) {
+        if (row < 0 || row >= getNumOfRows() || column < 0 || column >= getNumOfColumns()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+    }
+
+
+    /**
+     * Regroups compressed entries by their position instead of their line, which converts CSR to CSC and back.
+     * A counting sort over the positions keeps every new line in ascending order and takes O(non-zeros + lines) time.
+     *
+     * @param pointers The line pointers of the input
+     * @param indices The positions of the input entries
+     * @param values The values of the input entries
+     * @param numOfPositions The number of positions, which becomes the number of lines of the output
+     * @param newPointers The line pointers of the output, of length numOfPositions + 1
+     * @param newIndices The positions of the output entries, of the length of indices
+     * @param newValues The values of the output entries, of the length of values
+     */
+    static void regroup(int[] pointers, int[] indices, double[] values, int numOfPositions,
+                        int[] newPointers, int[] newIndices, double[] newValues) {
+        // Count the entries at every position and turn the counts into line starts
+        for (int k = 0; k < pointers[pointers.length - 1]; k++) {
+            newPointers[indices[k] + 1]++;
+        }
+        for (int p = 0; p < numOfPositions; p++) {
+            newPointers[p + 1] += newPointers[p];
+        }
+
+        // Walking the old lines in order fills every new line in ascending order of its new positions
+        int[] next = Arrays.copyOf(newPointers, numOfPositions);
+        for (int m = 0; m < pointers.length - 1; m++) {
+            for (int k = pointers[m]; k < pointers[m + 1]; k++) {
+                int at = next[indices[k]]++;
+                newIndices[at] = m;
+                newValues[at] = values[k];
+            }
+        }
+    }
+
+
+}
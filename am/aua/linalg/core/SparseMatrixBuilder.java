@@ -0,0 +1,174 @@
+package am.aua.linalg.core;
+
+import java.util.Arrays;
+
+/**
+ * Assembles a sparse matrix from a list of (row, column, value) triplets, the coordinate (COO) format.
+ * Triplets can be added in any order, and triplets for the same entry are summed,
+ * which is how matrices assembled from many local contributions are usually built.
+ * The builder is then converted to a CSRMatrix or a CSCMatrix in O(rows + columns + triplets) time.
+ */
+public class SparseMatrixBuilder {
+
+    // Instance variables
+    private final int numOfRows;       // Number of rows of the assembled matrix
+    private final int numOfColumns;    // Number of columns of the assembled matrix
+    private int[] rows;                // Row of every triplet
+    private int[] columns;             // Column of every triplet
+    private double[] values;           // Value of every triplet
+    private int count;                 // Number of triplets added so far
+
+
+    // Constructors
+    /**
+     * Constructs a builder for a sparse matrix with the specified number of rows and columns.
+     *
+     * @param numOfRows The number of rows of the matrix
+     * @param numOfColumns The number of columns of the matrix
+     */
+    public SparseMatrixBuilder(int numOfRows, int numOfColumns) {
+        this(numOfRows, numOfColumns, 16);
+    }
+
+
+    /**
+     * Constructs a builder for a sparse matrix with room for the expected number of triplets.
+     *
+     * @param numOfRows The number of rows of the matrix
+     * @param numOfColumns The number of columns of the matrix
+     * @param expectedEntries The number of triplets expected to be added
+     */
+    public SparseMatrixBuilder(int numOfRows, int numOfColumns, int expectedEntries) {
+        this.numOfRows = numOfRows;
+        this.numOfColumns = numOfColumns;
+        int capacity = Math.max(expectedEntries, 1);
+        this.rows = new int[capacity];
+        this.columns = new int[capacity];
+        this.values = new double[capacity];
+    }
+
+
+
+    // Accessors and Mutators
+    /**
+     * Returns the number of triplets added so far, counting repeated entries separately.
+     *
+     * @return The number of triplets in the builder
+     */
+    public int getNumOfEntries() {
+        return count;
+    }
+
+
+    /**
+     * Adds a value to an entry of the matrix.
+     * Values added to the same entry more than once are summed when the matrix is built.
+     *
+     * @param row The row index of the entry
+     * @param column The column index of the entry
+     * @param value The value to add
+     * @return This builder, so that calls can be chained
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     */
+    public SparseMatrixBuilder add(int row, int column, double value) {
+        if (row < 0 || row >= numOfRows || column < 0 || column >= numOfColumns) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        if (count == rows.length) {
+            int capacity = rows.length * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        rows[count] = row;
+        columns[count] = column;
+        values[count] = value;
+        count++;
+        return this;
+    }
+
+
+
+    // Conversion
+    /**
+     * Builds the matrix in compressed sparse row format.
+     *
+     * @return A CSRMatrix holding the sums of the added triplets
+     */
+    public CSRMatrix toCSR() {
+        int[] pointers = new int[numOfRows + 1];
+        int[] indices = new int[count];
+        double[] sums = new double[count];
+        int stored = compress(rows, columns, numOfRows, numOfColumns, pointers, indices, sums);
+        return new CSRMatrix(numOfRows, numOfColumns, pointers, Arrays.copyOf(indices, stored), Arrays.copyOf(sums, stored));
+    }
+
+
+    /**
+     * Builds the matrix in compressed sparse column format.
+     *
+     * @return A CSCMatrix holding the sums of the added triplets
+     */
+    public CSCMatrix toCSC() {
+        int[] pointers = new int[numOfColumns + 1];
+        int[] indices = new int[count];
+        double[] sums = new double[count];
+        int stored = compress(columns, rows, numOfColumns, numOfRows, pointers, indices, sums);
+        return new CSCMatrix(numOfRows, numOfColumns, pointers, Arrays.copyOf(indices, stored), Arrays.copyOf(sums, stored));
+    }
+
+
+    // Groups the triplets into lines sorted by position, summing repeated entries and dropping zeros
+    // Returns the number of entries written to indices and sums
+    private int compress(int[] lines, int[] positions, int numOfLines, int numOfPositions,
+                         int[] pointers, int[] indices, double[] sums) {
+        // First pass: sort the triplets by position with a counting sort
+        int[] byPosition = new int[count];
+        int[] next = new int[numOfPositions + 1];
+        for (int t = 0; t < count; t++) {
+            next[positions[t] + 1]++;
+        }
+        for (int p = 0; p < numOfPositions; p++) {
+            next[p + 1] += next[p];
+        }
+        for (int t = 0; t < count; t++) {
+            byPosition[next[positions[t]]++] = t;
+        }
+
+        // Second pass: a stable counting sort by line leaves every line sorted by position
+        int[] order = new int[count];
+        int[] lineStart = new int[numOfLines + 1];
+        for (int t = 0; t < count; t++) {
+            lineStart[lines[t] + 1]++;
+        }
+        for (int m = 0; m < numOfLines; m++) {
+            lineStart[m + 1] += lineStart[m];
+        }
+        int[] fill = Arrays.copyOf(lineStart, numOfLines);
+        for (int t : byPosition) {
+            order[fill[lines[t]]++] = t;
+        }
+
+        // Sum the repeated entries, which are now adjacent, and drop the ones that add up to zero
+        int stored = 0;
+        for (int m = 0; m < numOfLines; m++) {
+            int k = lineStart[m];
+            while (k < lineStart[m + 1]) {
+                int position = positions[order[k]];
+                double sum = 0;
+                while (k < lineStart[m + 1] && positions[order[k]] == position) {
+                    sum += values[order[k++]];
+                }
+                if (sum != 0) {
+                    indices[stored] = position;
+                    sums[stored] = sum;
+                    stored++;
+                }
+            }
+            pointers[m + 1] = stored;
+        }
+        return stored;
+    }
+
+
+}
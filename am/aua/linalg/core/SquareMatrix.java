@@ -10,6 +10,7 @@ public class SquareMatrix extends Matrix {
 
     // Instance variables
     private int size;
+    private MatrixDecomposition factorization;  // Cached factorization, recomputed once the matrix is modified
 
 
     // Constructors 
@@ -20,6 +21,7 @@ public class SquareMatrix extends Matrix {
     */    
     public SquareMatrix(int size){
         super(size,size);
+        this.size = size;
     }
  
     /**
@@ -64,6 +66,19 @@ public class SquareMatrix extends Matrix {
 
     }
 
+
+    /**
+     * Constructs a square matrix that takes ownership of the given row-major array without copying it.
+     * Structured subclasses with a compact storage of their own pass null.
+     *
+     * @param value The row-major array of size * size elements, or null
+     * @param size The size of the square matrix (number of rows and columns)
+     */
+    SquareMatrix(double[] value, int size) {
+        super(value, size, size);
+        this.size = size;
+    }
+
  
     
 
@@ -77,6 +92,78 @@ public class SquareMatrix extends Matrix {
         return this.size;
     }
 
+    /**
+     * Creates and returns a deep copy of this SquareMatrix.
+     * The copy does not share the cached factorization of this matrix.
+     * 
+     * @return A deep copy of this SquareMatrix
+     */
+    @Override
+    public SquareMatrix clone() {
+        SquareMatrix clonedMatrix = (SquareMatrix) super.clone();
+        clonedMatrix.factorization = null;
+        return clonedMatrix;
+    }
+
+
+    /**
+     * Returns a factorization of this matrix, computing it only on the first call.
+     * Symmetric positive-definite matrices get a Cholesky decomposition, all others an LU decomposition.
+     * The same decomposition is reused by det(), inverse(), solve() and divide() until the matrix
+     * is modified through setEntry or setValue, after which it is computed again.
+     * 
+     * @return The factorization of this matrix
+     */
+    public MatrixDecomposition factorize() {
+        if (factorization == null || factorization.isStale()) {
+            factorization = null;
+            if (isSymmetric()) {
+                CholeskyDecomposition cholesky = new CholeskyDecomposition(this);
+                if (cholesky.isSPD()) {
+                    factorization = cholesky;
+                }
+            }
+            if (factorization == null) {
+                factorization = new LUDecomposition(this);
+            }
+        }
+        return factorization;
+    }
+
+
+    /**
+     * Checks whether this matrix is symmetric, that is, equal to its transpose.
+     * 
+     * @return true if every entry (i, j) equals the entry (j, i), false otherwise
+     */
+    public boolean isSymmetric() {
+        double[] value = data();
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (value[i * size + j] != value[j * size + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Computes the eigenvalues and eigenvectors of this matrix.
+     * Symmetric matrices use the symmetric algorithm, which gives real eigenvalues and orthonormal eigenvectors;
+     * all others use the Hessenberg QR algorithm, whose eigenvalues may come in complex conjugate pairs.
+     * For only a few eigenpairs of a large matrix, PartialEigenSolver is much cheaper.
+     *
+     * @return The eigendecomposition of this matrix
+     * @throws IllegalArgumentException If this matrix has a NaN or infinite entry
+     * @throws UnsupportedOperationException If the QR algorithm does not converge
+     */
+    public EigenDecomposition eigen() {
+        return new EigenDecomposition(this);
+    }
+
+
     /**
      * Attempts to create a SquareMatrix object from a Matrix object.
      * If the input Matrix is not square (number of rows != number of columns), it throws an Exception.
@@ -90,9 +177,7 @@ public class SquareMatrix extends Matrix {
             throw new Exception("Not a SquareMatrix");
             
         }
-        // Assuming SquareMatrix has a constructor that takes a 2D array of doubles
-        double[][] matrixArray = M.getValue();
-        return new SquareMatrix(matrixArray);
+        return new SquareMatrix(M.copyData(), M.getNumOfRows());
     }
     
   
@@ -103,13 +188,15 @@ public class SquareMatrix extends Matrix {
 
     // Division
     /**
-     * Divides one matrix by another.
+     * Divides one matrix by another, computing A * B^-1.
+     * The result is obtained by factorizing B and solving XB = A, without forming the inverse of B.
+     * The factorization of B is cached, so repeated divisions by the same matrix only cost the substitutions.
      * 
      * @param A The numerator matrix
      * @param B The denominator square matrix
      * @return The result of dividing matrix A by matrix B
      * @throws IllegalArgumentException If the matrices have incompatible dimensions for division
-     * @throws ArithmeticException If the denominator matrix B is not invertible
+     * @throws UnsupportedOperationException If the denominator matrix B is not invertible
     */
     public static Matrix divide(Matrix A, SquareMatrix B) {
         // Check if the matrices have compatible dimensions for multiplication
@@ -117,16 +204,62 @@ public class SquareMatrix extends Matrix {
             throw new IllegalArgumentException("Matrices cannot be divided: Incompatible dimensions.");
         }
     
-        // Compute the inverse of matrix B
-        Matrix inverseB = B.inverse();
-    
-        // Check if the inverse exists
-        if (inverseB == null) {
-            throw new ArithmeticException("Matrix B is not invertible, division is not possible.");
+        return B.rightDivide(A);
+    }
+
+
+    /**
+     * Computes A times the inverse of this matrix from the cached factorization.
+     * Structured subclasses override it with cheaper substitutions.
+     * 
+     * @param A The numerator matrix, with as many columns as this matrix
+     * @return The result of dividing matrix A by this matrix
+     */
+    Matrix rightDivide(Matrix A) {
+        return factorize().divide(A);
+    }
+
+
+    // Solve
+    /**
+     * Solves the linear system AX = B by factorizing A and substituting, without forming the inverse of A.
+     * The factorization of A is cached, so repeated solves against the same matrix only cost the substitutions.
+     * 
+     * @param A The square coefficient matrix
+     * @param B The right-hand side, with as many rows as A
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as A
+     * @throws UnsupportedOperationException If A is singular
+    */
+    public static Matrix solve(SquareMatrix A, Matrix B) {
+        if (B.getNumOfRows() != A.getSize()) {
+            throw new IllegalArgumentException("Cannot solve the system: Incompatible dimensions.");
         }
-    
-        // Perform matrix multiplication: A * inverse(B)
-        return Matrix.multiply(A, inverseB);
+        return A.solve(B);
+    }
+
+    /**
+     * Solves the linear system AX = B, where A is this matrix.
+     * 
+     * @param B The right-hand side, with as many rows as this matrix
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as this matrix
+     * @throws UnsupportedOperationException If this matrix is singular
+    */
+    public Matrix solve(Matrix B) {
+        return factorize().solve(B);
+    }
+
+    /**
+     * Solves the linear system Ax = b, where A is this matrix.
+     * 
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of this matrix
+     * @throws UnsupportedOperationException If this matrix is singular
+    */
+    public Vector solve(Vector b) {
+        return factorize().solve(b);
     }
 
     
@@ -137,9 +270,22 @@ public class SquareMatrix extends Matrix {
      * @param M The square matrix to be raised to the power
      * @param n The exponent to raise the matrix to
      * @return The result of raising the matrix to the given power
-     * @throws ArithmeticException If the matrix is not invertible and the exponent is negative
+     * @throws UnsupportedOperationException If the matrix is not invertible and the exponent is negative
     */
     public static SquareMatrix power(SquareMatrix M, int n) {
+        return M.power(n);
+    }
+
+
+    /**
+     * Raises this matrix to a given power by repeated squaring.
+     * Structured subclasses override it with cheaper versions.
+     * 
+     * @param n The exponent to raise the matrix to
+     * @return The result of raising this matrix to the given power
+     * @throws UnsupportedOperationException If the matrix is not invertible and the exponent is negative
+    */
+    public SquareMatrix power(int n) {
     
         // If the exponent is negative, compute the inverse of the matrix
         if (n < 0) {
@@ -147,7 +293,7 @@ public class SquareMatrix extends Matrix {
             int absN = Math.abs(n);
             
             // Compute the inverse of the matrix
-            SquareMatrix inverseM = M.inverse();
+            SquareMatrix inverseM = inverse();
             
             // Check if the matrix is invertible
             if (inverseM == null) {
@@ -155,19 +301,25 @@ public class SquareMatrix extends Matrix {
             }
             
             // Return the result of the inverse matrix raised to the absolute value of the exponent
-            return power(inverseM, absN);
+            return inverseM.power(absN);
+        }
+
+        // Any matrix to the power 0 is the identity matrix
+        if (n == 0) {
+            return new IdentityMatrix(getSize());
         }
     
-        // Initialize the result matrix as the identity matrix of the same size as M
-        SquareMatrix result = new IdentityMatrix(M.getNumOfRows());
-    
-        // Perform matrix exponentiation
+        // Perform matrix exponentiation, starting from the first factor instead of multiplying by the identity
+        SquareMatrix result = null;
+        SquareMatrix base = this;
         while (n > 0) {
             if (n % 2 == 1) {
-                result = (SquareMatrix) SquareMatrix.multiply(result, M);
+                result = (result == null) ? base.clone() : SquareMatrix.multiply(result, base);
             }
-            M = (SquareMatrix) SquareMatrix.multiply(M, M);
             n /= 2;
+            if (n > 0) {
+                base = SquareMatrix.multiply(base, base);
+            }
         }
     
         return result;
@@ -178,6 +330,7 @@ public class SquareMatrix extends Matrix {
  
     /**
      * Multiplies two square matrices.
+     * Structured operands keep their structure, e.g. the product of two upper triangular matrices is upper triangular.
      * 
      * @param A The first square matrix
      * @param B The second square matrix
@@ -185,13 +338,10 @@ public class SquareMatrix extends Matrix {
      *         If the multiplication fails, returns null
      */
     public static SquareMatrix multiply(SquareMatrix A, SquareMatrix B) {
-        SquareMatrix result;
-        try {
-            result = makeSquare(Matrix.multiply(A, B));
-        } catch (Exception e) {
+        if (A.getNumOfRows() != B.getNumOfRows()) {
             return null;
         }
-        return result;
+        return (SquareMatrix) MatrixMultiplication.multiply(A, B);
     }
 
 
@@ -199,79 +349,14 @@ public class SquareMatrix extends Matrix {
 
     // Inverse
     /**
-     * Computes the inverse of the square matrix using Gaussian elimination.
+     * Computes the inverse of the square matrix from its cached factorization:
+     * a Cholesky decomposition if the matrix is symmetric positive-definite, otherwise LU with partial pivoting.
      * 
      * @return The inverse of the square matrix
      * @throws UnsupportedOperationException If the matrix is singular and does not have an inverse
     */
     public SquareMatrix inverse(){
-
-        // Create an identity matrix of the same size
-        IdentityMatrix identity = new IdentityMatrix(this.getSize());
-
-        // Augment the original matrix with the identity matrix
-        Matrix augmentedMatrix = augment(this,identity);
-
-        // Perform Gaussian elimination to transform the augmented matrix into REF
-        Matrix refMatrix = ref(augmentedMatrix);
-
-        // Check if the original matrix is invertible (i.e., has full rank)
-        for (int i = 0; i < size; i++) {
-            if (refMatrix.getEntry(i, i) == 0) {
-                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
-            }
-        }
-
-        // Perform back substitution to transform the REF matrix into RREF
-        Matrix rrefMatrix = rref(refMatrix);
-
-        // Extract the inverse matrix from the augmented matrix
-       SquareMatrix inverseMatrix = extractInverse(rrefMatrix,size);
-
-        return inverseMatrix;
-    }
-    
-
-    private static SquareMatrix extractInverse(Matrix matrix, int size) {
-        // Create a new matrix to store the inverse
-        SquareMatrix inverseMatrix = new SquareMatrix(size);
-    
-        // Copy the values from the right part of the augmented matrix to the inverse matrix
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                inverseMatrix.setEntry(i, j, matrix.getEntry(i, size + j));
-            }
-        }
-    
-        return inverseMatrix;
-    }
-    
-    
-    private static Matrix augment(SquareMatrix sqMatrix , IdentityMatrix identityMatrix) {
-        // Check if the dimensions match
-        if (sqMatrix.getNumOfRows()!= identityMatrix.getNumOfRows()) {
-            throw new IllegalArgumentException("Matrices must have the same number of rows to be augmented.");
-        }
-        
-
-        // Create a new matrix with augmented dimensions
-        Matrix augmentedMatrix = new Matrix(sqMatrix.getNumOfRows(), sqMatrix.getNumOfColumns() + identityMatrix.getNumOfColumns());
-
-        // Copy the values from the original matrix to the left part of the augmented matrix
-        for (int i = 0; i < sqMatrix.getNumOfRows(); i++) {
-            for (int j = 0; j < sqMatrix.getNumOfColumns(); j++) {
-                augmentedMatrix.setEntry(i, j, sqMatrix.getEntry(i, j));
-            }
-        }
-
-        // Copy the values from the identity matrix to the right part of the augmented matrix
-        for (int i = 0; i < identityMatrix.getNumOfRows(); i++) {
-            for (int j = 0; j < identityMatrix.getNumOfColumns(); j++) {
-                augmentedMatrix.setEntry(i, identityMatrix.getNumOfColumns() + j, identityMatrix.getEntry(i, j));
-            }
-        }
-
-        return augmentedMatrix;
+        return factorize().inverse();
     }
 
 
@@ -280,7 +365,8 @@ public class SquareMatrix extends Matrix {
 
     // Determinant
     /**
-     * Computes the determinant of the square matrix recursively using Laplace expansion.
+     * Computes the determinant of the square matrix.
+     * Matrices larger than 2x2 are reduced to the product of the pivots of their cached factorization, which takes O(n^3) time.
      * 
      * @return The determinant of the square matrix
     */
@@ -290,33 +376,8 @@ public class SquareMatrix extends Matrix {
         } else if (size == 2) {
             return getEntry(0, 0) * getEntry(1, 1) - getEntry(0, 1) * getEntry(1, 0); // For a 2x2 matrix, use the simple formula
         } else {
-            double determinant = 0;
-            for (int i = 0; i < size; i++) {
-                determinant += Math.pow(-1, i) * getEntry(0, i) * subMatrix(0, i).det();
-            }
-            return determinant;
-        }
-    }
-    
-    // Method to get sub-matrix by excluding given row and column
-    private SquareMatrix subMatrix(int excludingRow, int excludingCol) {
-        double[][] newArray = new double[size - 1][size - 1];
-        int newRow = 0, newCol = 0;
-        for (int i = 0; i < size; i++) {
-            if (i == excludingRow) {
-                continue;
-            }
-            newCol = 0;
-            for (int j = 0; j < size; j++) {
-                if (j == excludingCol) {
-                    continue;
-                }
-                newArray[newRow][newCol] = getEntry(i, j);
-                newCol++;
-            }
-            newRow++;
+            return factorize().det();
         }
-        return new SquareMatrix(newArray);
     }
 
 
@@ -3,8 +3,14 @@ package am.aua.linalg.core;
 /* 
 * Represents an upper triangular matrix, which is a special type of square matrix
 * where all elements below the main diagonal are zero.
+* Only the upper triangle is stored, packed row by row into n(n+1)/2 values,
+* and determinants, inverses, solves and products exploit the zero lower half.
 */
 public class UpperTriangularMatrix extends SquareMatrix {
+
+    // Instance variables
+    private double[] packed;    // Row i holds the entries (i, i) .. (i, n - 1), starting at index rowStart(i)
+
     
     /**
      * Constructs an upper triangular matrix with the specified size and values.
@@ -15,18 +21,265 @@ public class UpperTriangularMatrix extends SquareMatrix {
      * @throws IllegalArgumentException If the number of elements provided does not match the expected number for an upper triangular matrix
     */
     public UpperTriangularMatrix(int size, double... values) {
-        super(size);
+        super(null, size);
         if (values.length != size * (size + 1) / 2) {
             throw new IllegalArgumentException("Invalid number of elements for an upper triangular matrix.");
         }
 
+        // The values are already packed row by row
+        this.packed = values.clone();
+    }
+
+
+    /**
+     * Constructs an upper triangular matrix that takes ownership of the given packed array without copying it.
+     * 
+     * @param packed The upper triangle packed row by row, n(n+1)/2 values
+     * @param size The size of the upper triangular matrix (number of rows/columns)
+     */
+    UpperTriangularMatrix(double[] packed, int size) {
+        super(null, size);
+        this.packed = packed;
+    }
+
+
+
+    // Accessors and Mutators
+
+    // Index of the entry (i, i) in the packed array, rows above it hold n, n - 1, ..., n - i + 1 entries
+    private int rowStart(int i) {
+        return i * getSize() - i * (i - 1) / 2;
+    }
+
+
+    @Override
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= getSize() || column < 0 || column >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        return column < row ? 0 : packed[rowStart(row) + column - row];
+    }
+
+
+    /**
+     * Sets the value of a specific entry in the upper triangle of the matrix.
+     * 
+     * @param i The row index of the entry
+     * @param j The column index of the entry
+     * @param value The new value to be set
+     * @throws IndexOutOfBoundsException If the specified row or column index is out of bounds
+     * @throws IllegalArgumentException If a non-zero value is set below the diagonal
+     */
+    @Override
+    public void setEntry(int i, int j, double value) {
+        if (i < 0 || i >= getSize() || j < 0 || j >= getSize()) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices");
+        }
+        if (j < i) {
+            if (value != 0) {
+                throw new IllegalArgumentException("Entries below the diagonal of an upper triangular matrix must be zero.");
+            }
+            return;
+        }
+        packed[rowStart(i) + j - i] = value;
+        modified();
+    }
+
+
+    /**
+     * Sets the values of this matrix using the provided 2D array.
+     * 
+     * @param array The square 2D array containing the new values, zero below the diagonal
+     * @throws IllegalArgumentException If the array does not have the size of this matrix or has non-zero entries below the diagonal
+     */
+    @Override
+    public void setValue(double[][] array) {
+        int size = getSize();
+        if (array.length != size) {
+            throw new IllegalArgumentException("Array does not match the size of the matrix");
+        }
+        double[] newPacked = new double[size * (size + 1) / 2];
+        for (int i = 0; i < size; i++) {
+            if (array[i].length != size) {
+                throw new IllegalArgumentException("Array does not match the size of the matrix");
+            }
+            for (int j = 0; j < i; j++) {
+                if (array[i][j] != 0) {
+                    throw new IllegalArgumentException("Entries below the diagonal of an upper triangular matrix must be zero.");
+                }
+            }
+            System.arraycopy(array[i], i, newPacked, rowStart(i), size - i);
+        }
+        this.packed = newPacked;
+        modified();
+    }
+
+
+    @Override
+    double[] copyData() {
+        int size = getSize();
+        double[] dense = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(packed, rowStart(i), dense, i * size + i, size - i);
+        }
+        return dense;
+    }
+
+
+    // Returns the packed array backing this matrix without copying it
+    double[] packedData() {
+        return packed;
+    }
+
+
+    @Override
+    public UpperTriangularMatrix clone() {
+        UpperTriangularMatrix clonedMatrix = (UpperTriangularMatrix) super.clone();
+        clonedMatrix.packed = this.packed.clone();
+        return clonedMatrix;
+    }
+
+
+
+    // Methods
+
+    // Transpose
+    /**
+     * Transposes this matrix; the transpose of an upper triangular matrix is lower triangular.
+     * 
+     * @return The transpose of this matrix
+     */
+    @Override
+    public LowerTriangularMatrix transpose() {
+        int size = getSize();
+        double[] transposed = new double[packed.length];
         int index = 0;
         for (int i = 0; i < size; i++) {
-            for (int j = i; j < size; j++) { // Start from i to fill only upper triangular part
-                setEntry(i, j, values[index]);
-                index++;
+            for (int j = 0; j <= i; j++) {
+                transposed[index++] = packed[rowStart(j) + i - j];
             }
         }
+        return new LowerTriangularMatrix(transposed, size);
     }
-}
 
+
+    // Determinant
+    /**
+     * Computes the determinant as the product of the diagonal entries, in O(n) time.
+     * 
+     * @return The determinant of this matrix
+     */
+    @Override
+    public double det() {
+        double determinant = 1;
+        for (int i = 0; i < getSize(); i++) {
+            determinant *= packed[rowStart(i)];
+        }
+        return determinant;
+    }
+
+
+    // Solve
+    /**
+     * Solves the linear system AX = B by back substitution, in O(n^2) time per column of B.
+     * 
+     * @param B The right-hand side, with as many rows as this matrix
+     * @return The solution X
+     * @throws IllegalArgumentException If B does not have as many rows as this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Matrix solve(Matrix B) {
+        if (B.getNumOfRows() != getSize()) {
+            throw new IllegalArgumentException("Cannot solve the system: Incompatible dimensions.");
+        }
+        int numCols = B.getNumOfColumns();
+        return new Matrix(backSubstitution(B.copyData(), numCols), getSize(), numCols);
+    }
+
+    /**
+     * Solves the linear system Ax = b by back substitution, in O(n^2) time.
+     * 
+     * @param b The right-hand side vector, with as many elements as this matrix has rows
+     * @return The solution x
+     * @throws IllegalArgumentException If the length of b does not match the size of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero
+     */
+    @Override
+    public Vector solve(Vector b) {
+        double[] values = b.getElements();
+        if (values.length != getSize()) {
+            throw new IllegalArgumentException("Vector length must match the size of the matrix.");
+        }
+        return Vector.wrap(backSubstitution(values, 1));
+    }
+
+
+    // Computes A * U^-1 by solving U^T X^T = A^T with forward substitution
+    @Override
+    Matrix rightDivide(Matrix A) {
+        return transpose().solve(A.transpose()).transpose();
+    }
+
+
+    // Solves UX = B in place for a row-major right-hand side with numCols columns
+    private double[] backSubstitution(double[] x, int numCols) {
+        int size = getSize();
+        for (int i = size - 1; i >= 0; i--) {
+            int rowU = rowStart(i) - i;
+            int rowX = i * numCols;
+            for (int k = i + 1; k < size; k++) {
+                double factor = packed[rowU + k];
+                if (factor != 0) {
+                    int rowK = k * numCols;
+                    for (int j = 0; j < numCols; j++) {
+                        x[rowX + j] -= factor * x[rowK + j];
+                    }
+                }
+            }
+            double diagonal = packed[rowU + i];
+            if (diagonal == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            for (int j = 0; j < numCols; j++) {
+                x[rowX + j] /= diagonal;
+            }
+        }
+        return x;
+    }
+
+
+    // Inverse
+    /**
+     * Computes the inverse, which is again upper triangular, in O(n^3 / 3) time.
+     * 
+     * @return The inverse of this matrix
+     * @throws UnsupportedOperationException If a diagonal entry is zero and the matrix does not have an inverse
+     */
+    @Override
+    public UpperTriangularMatrix inverse() {
+        int size = getSize();
+        double[] inverse = new double[packed.length];
+
+        for (int i = size - 1; i >= 0; i--) {
+            int rowU = rowStart(i) - i;
+            double diagonal = packed[rowU + i];
+            if (diagonal == 0) {
+                throw new UnsupportedOperationException("The matrix is singular and does not have an inverse.");
+            }
+            inverse[rowU + i] = 1 / diagonal;
+
+            // Entry (i, j) of the inverse is -(sum of U(i, k) * X(k, j) for i < k <= j) / U(i, i)
+            for (int j = i + 1; j < size; j++) {
+                double sum = 0;
+                for (int k = i + 1; k <= j; k++) {
+                    sum += packed[rowU + k] * inverse[rowStart(k) - k + j];
+                }
+                inverse[rowU + j] = -sum / diagonal;
+            }
+        }
+        return new UpperTriangularMatrix(inverse, size);
+    }
+
+
+}
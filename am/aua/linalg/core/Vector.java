@@ -1,12 +1,20 @@
 package am.aua.linalg.core;
 
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Represents a vector and implements basic vector operations.
+ * The elements can be read without copying them through get, asBuffer and slice,
+ * where a slice is a vector over a range of this one that shares its storage.
  */ 
 public class Vector implements BasicVectorOperations, Comparable<Vector> {
 
     // Instance variables
-    private double[] values;
+    private double[] values;   // The storage, which may be shared with the vectors this one was sliced from or into
+    private int offset;        // Index of the first element in values
+    private int length;        // Number of elements
 
 
     // Constructors
@@ -24,6 +32,7 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      */
     public Vector(double... values) {
         this.values = Vector.copyElements(values);
+        this.length = values.length;
     }
 
     // Copy constructor
@@ -33,7 +42,8 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @param other the vector to copy
     */
     public Vector(Vector other) {
-        this.values = Vector.copyElements(other.values);
+        this.values = other.getElements();
+        this.length = other.length;
     }   
     
     
@@ -45,7 +55,60 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @return a copy of the elements of this vector
     */
     public double[] getElements() {
-        return copyElements(values);
+        return Arrays.copyOfRange(values, offset, offset + length);
+    }
+
+
+    /**
+     * Returns the element at the given index of this vector, without copying the elements.
+     *
+     * @param index the index of the element, from 0 to length() - 1
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the length of this vector
+     */
+    public double get(int index) {
+        Objects.checkIndex(index, length);
+        return values[offset + index];
+    }
+
+
+    /**
+     * Returns the number of elements of this vector.
+     *
+     * @return the length of this vector
+     */
+    public int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns a read-only view of the elements of this vector that shares its storage instead of copying it.
+     * Element i of this vector is at index i of the buffer.
+     *
+     * @return a read-only buffer over the elements of this vector
+     */
+    public DoubleBuffer asBuffer() {
+        return DoubleBuffer.wrap(values, offset, length).slice().asReadOnlyBuffer();
+    }
+
+
+    /**
+     * Returns the elements of this vector from index from, inclusive, to index to, exclusive, as a vector
+     * that shares the storage of this one instead of copying it.
+     *
+     * @param from the index of the first element of the slice
+     * @param to the index after the last element of the slice
+     * @return a vector of length to - from whose element i is element from + i of this vector
+     * @throws IndexOutOfBoundsException if from is negative, to is greater than the length of this vector, or from is greater than to
+     */
+    public Vector slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        Vector slice = new Vector();
+        slice.values = values;
+        slice.offset = offset + from;
+        slice.length = to - from;
+        return slice;
     }
 
     /**
@@ -63,12 +126,51 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
     }
 
 
+    // Returns the array backing this vector without copying it, for the computational kernels that index it from 0.
+    // A slice shares a range of its parent's array, so it is handed to the kernels as array() and offset() instead
+    double[] data() {
+        if (offset != 0 || length != values.length) {
+            throw new IllegalStateException("A slice does not span its array; use array() and offset().");
+        }
+        return values;
+    }
+
+
+    // Returns the array this vector is a range of without copying it; it may be shared with other vectors
+    double[] array() {
+        return values;
+    }
+
+
+    // Returns the index of the first element of this vector in array()
+    int offset() {
+        return offset;
+    }
+
+
+    // Returns a vector backed by the given array without copying it, for results that nothing else refers to
+    static Vector wrap(double[] values) {
+        Vector vector = new Vector();
+        vector.values = values;
+        vector.length = values.length;
+        return vector;
+    }
+
+
+    private void checkLength(Vector other) {
+        if (other.length != this.length) {
+            throw new IllegalArgumentException("Cannot combine vectors of different lengths.");
+        }
+    }
+
+
     public boolean equals(Object object) {
         if (object == null || !(object instanceof Vector))
             return false;
         else {
             Vector otherVector = (Vector) object;
-            return this.values.equals(otherVector.values);
+            return this.values == otherVector.values && this.offset == otherVector.offset
+                    && this.length == otherVector.length;
         }
     }
 
@@ -79,7 +181,7 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("[ ");
-        for (int i = 0; i < values.length; i++) {
+        for (int i = offset; i < offset + length; i++) {
             sb.append(values[i]);
             sb.append(", ");
         }
@@ -90,8 +192,8 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
     
 
     public boolean isZero() {
-        for (int i = 0; i < values.length; i++) {
-            if(getElements()[i] != 0) {
+        for (int i = offset; i < offset + length; i++) {
+            if (values[i] != 0) {
                 return false;
             }
         }
@@ -114,11 +216,10 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
 
     
     public static Vector3D makeA3DVector(Vector v) throws Exception{
-        if (v.getElements().length != 3){
+        if (v.length() != 3){
             throw new Exception("Cannot downcast to Vector3D");
         }
-        double[] vector = v.getElements();
-        return new Vector3D(vector);
+        return new Vector3D(v.get(0), v.get(1), v.get(2));
     }
 
     
@@ -133,11 +234,10 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @throws IllegalArgumentException if the lengths of the vectors are different
      */
     public Vector add(Vector other) {
-        double[] newVector = new double[other.values.length];
-        for (int i = 0; i < other.values.length; i++) {
-            newVector[i] = other.values[i] + this.values[i];
-        }
-        return new Vector(newVector);
+        checkLength(other);
+        double[] newVector = new double[this.length];
+        VectorKernels.add(this.values, this.offset, other.values, other.offset, newVector, 0, this.length);
+        return wrap(newVector);
     }
 
 
@@ -150,11 +250,10 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @throws IllegalArgumentException if the lengths of the vectors are different
     */
     public Vector subtract(Vector other) {
-        double[] newVector = new double[other.values.length];
-        for (int i = 0; i < other.values.length; i++) {
-            newVector[i] = this.values[i] - other.values[i];
-        }
-        return new Vector(newVector);
+        checkLength(other);
+        double[] newVector = new double[this.length];
+        VectorKernels.subtract(this.values, this.offset, other.values, other.offset, newVector, 0, this.length);
+        return wrap(newVector);
     }
 
 
@@ -166,11 +265,9 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @return a new vector containing the elements of this vector multiplied by the scalar value
     */
     public Vector multiplyWithAScalar(Scalar scalar) {
-        double[] newVector = new double[this.values.length];
-        for (int i = 0; i < this.values.length; i++) {
-            newVector[i] = this.values[i] * scalar.getValue();
-        }
-        return new Vector(newVector);
+        double[] newVector = new double[this.length];
+        VectorKernels.scale(scalar.getValue(), this.values, this.offset, newVector, 0, this.length);
+        return wrap(newVector);
     }
 
 
@@ -197,15 +294,10 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @throws LengthsNotEqualException if the lengths of the two vectors are not equal
     */
     public double dot(Vector other) throws LengthsNotEqualException {
-        if (other.values.length != this.values.length) {
+        if (other.length != this.length) {
             throw new LengthsNotEqualException();
         }
-        double sum = 0;
-        for (int i = 0; i < other.values.length; i++) {
-            sum += other.values[i] * getElements()[i];
-        }
-        return sum;
-
+        return VectorKernels.dot(this.values, this.offset, other.values, other.offset, this.length);
     }
 
     public static double dot(Vector vector1, Vector vector2) throws LengthsNotEqualException{
@@ -220,11 +312,7 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @return the magnitude of this vector
      */
     public double calculateMagnitude() {
-        double sum = 0;
-        for (int i = 0; i < values.length; i++) {
-            sum += Math.pow(values[i], 2);
-        }
-        return Math.sqrt(sum);
+        return VectorKernels.norm(values, offset, length);
     }
     
 
@@ -259,11 +347,12 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @return the unit vector of this vector
     */
     public Vector calculateUnitVector() {
-        double[] unitVector = new double[this.values.length];
-        for (int i = 0; i < this.values.length; i++) {
-            unitVector[i] = getElements()[i] / calculateMagnitude();
+        double magnitude = calculateMagnitude();
+        double[] unitVector = new double[this.length];
+        for (int i = 0; i < this.length; i++) {
+            unitVector[i] = this.values[this.offset + i] / magnitude;
         }
-        return new Vector(copyElements(unitVector));
+        return wrap(unitVector);
     }
 
     public static Vector calculateUnitVector(Vector vector) {
@@ -301,11 +390,9 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
     */
     public Vector calculateVectorProjection(Vector other) throws LengthsNotEqualException {
         double calculation = dot(other) / Math.pow(calculateMagnitude(), 2);
-        double[] vector = new double[values.length];
-        for (int i = 0; i < values.length; i++) {
-            vector[i] = getElements()[i] * calculation;
-        }
-        return new Vector(copyElements(vector));
+        double[] vector = new double[length];
+        VectorKernels.scale(calculation, values, offset, vector, 0, length);
+        return wrap(vector);
     }
 
     public static Vector calculateVectorProjection(Vector vector1, Vector vector2) throws LengthsNotEqualException {
@@ -322,10 +409,7 @@ public class Vector implements BasicVectorOperations, Comparable<Vector> {
      * @throws LengthsNotEqualException if the lengths of the two vectors are not equal
     */
     public Vector calculateVectorRejection(Vector other) throws LengthsNotEqualException {
-        Vector projection = calculateVectorProjection(other);
-        Vector projectionVector = new Vector(projection);
-        Vector rejectionVector = subtract(projectionVector);
-        return new Vector(copyElements(rejectionVector.values));
+        return subtract(calculateVectorProjection(other));
     }
     public static Vector calculateVectorRejection(Vector vector1, Vector vector2) throws LengthsNotEqualException{
         return vector1.calculateVectorRejection(vector2);
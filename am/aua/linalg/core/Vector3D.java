@@ -7,9 +7,9 @@ package am.aua.linalg.core;
 public class Vector3D extends Vector implements  Cloneable {
     
     // Instance variables
-    private double x = this.getElements()[0];
-    private double y = this.getElements()[1];
-    private double z = this.getElements()[2];
+    private double x = this.get(0);
+    private double y = this.get(1);
+    private double z = this.get(2);
 
 
 
@@ -87,7 +87,7 @@ public class Vector3D extends Vector implements  Cloneable {
      * @throws LengthsNotEqualException if the two vectors have different dimensions
     */
     public Vector3D crossProduct(Vector3D other) throws LengthsNotEqualException {
-        if (this.getElements().length != other.getElements().length){
+        if (this.length() != other.length()){
             throw new LengthsNotEqualException();
         }
 
@@ -0,0 +1,326 @@
+package am.aua.linalg.core;
+
+import java.util.Objects;
+
+/**
+ * The Vector3DBatch class stores many three-dimensional vectors, such as the points of a point cloud,
+ * as three arrays of x, y and z components instead of one Vector3D object per vector.
+ * The bulk operations apply the Vector3D operations to every vector of an index range at once, with the same formulas,
+ * so their results are the same bit for bit. Each array is read sequentially by the backend of VectorKernels,
+ * which uses DoubleVector when the jdk.incubator.vector module is present and scalar loops otherwise,
+ * and long ranges are split into chunks that are processed in parallel on the multiplication engine's pool.
+ * Single vectors are read and written as Vector3D objects through get and set.
+ */
+public class Vector3DBatch {
+
+    // Instance variables
+    private final double[] xs;   // The x components
+    private final double[] ys;   // The y components
+    private final double[] zs;   // The z components
+    private final double[][] components;   // {xs, ys, zs}, the form the kernels take
+
+
+
+    // Constructors
+    /**
+     * Constructs a batch of the given number of zero vectors.
+     *
+     * @param size the number of vectors
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public Vector3DBatch(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size of a batch cannot be negative.");
+        }
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.zs = new double[size];
+        this.components = new double[][] { xs, ys, zs };
+    }
+
+    /**
+     * Constructs a batch from copies of the arrays of x, y and z components, where vector i is (xs[i], ys[i], zs[i]).
+     *
+     * @param xs the x components
+     * @param ys the y components
+     * @param zs the z components
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public Vector3DBatch(double[] xs, double[] ys, double[] zs) {
+        if (ys.length != xs.length || zs.length != xs.length) {
+            throw new IllegalArgumentException("The component arrays must have the same length.");
+        }
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.zs = zs.clone();
+        this.components = new double[][] { this.xs, this.ys, this.zs };
+    }
+
+    /**
+     * Constructs a batch holding the components of the given vectors, in order.
+     *
+     * @param vectors the vectors to store
+     */
+    public Vector3DBatch(Vector3D... vectors) {
+        this(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            set(i, vectors[i]);
+        }
+    }
+
+
+
+    // Accessors and modifiers
+    /**
+     * Returns the number of vectors in this batch.
+     *
+     * @return the size of this batch
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * Returns the vector at the given index as a new Vector3D.
+     *
+     * @param index the index of the vector
+     * @return the vector at the given index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Vector3D get(int index) {
+        Objects.checkIndex(index, xs.length);
+        return new Vector3D(xs[index], ys[index], zs[index]);
+    }
+
+    /**
+     * Replaces the vector at the given index by the components of a Vector3D.
+     *
+     * @param index the index of the vector
+     * @param vector the new vector
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public void set(int index, Vector3D vector) {
+        set(index, vector.getX(), vector.getY(), vector.getZ());
+    }
+
+    /**
+     * Replaces the vector at the given index by (x, y, z).
+     *
+     * @param index the index of the vector
+     * @param x the new x component
+     * @param y the new y component
+     * @param z the new z component
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public void set(int index, double x, double y, double z) {
+        Objects.checkIndex(index, xs.length);
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+    }
+
+    /**
+     * Returns the x component of the vector at the given index, without creating a Vector3D.
+     *
+     * @param index the index of the vector
+     * @return the x component of the vector at the given index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double getX(int index) {
+        return xs[Objects.checkIndex(index, xs.length)];
+    }
+
+    /**
+     * Returns the y component of the vector at the given index, without creating a Vector3D.
+     *
+     * @param index the index of the vector
+     * @return the y component of the vector at the given index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double getY(int index) {
+        return ys[Objects.checkIndex(index, ys.length)];
+    }
+
+    /**
+     * Returns the z component of the vector at the given index, without creating a Vector3D.
+     *
+     * @param index the index of the vector
+     * @return the z component of the vector at the given index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double getZ(int index) {
+        return zs[Objects.checkIndex(index, zs.length)];
+    }
+
+    /**
+     * Returns the vectors of this batch as an array of new Vector3D objects.
+     *
+     * @return the vectors of this batch, in order
+     */
+    public Vector3D[] toArray() {
+        Vector3D[] vectors = new Vector3D[xs.length];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = new Vector3D(xs[i], ys[i], zs[i]);
+        }
+        return vectors;
+    }
+
+
+
+    // Methods
+
+    // CrossProduct
+    /**
+     * Computes the cross product of every vector of this batch with the vector at the same index of another batch.
+     *
+     * @param other the batch to compute the cross products with
+     * @return a batch whose vector i is the cross product of the vectors at index i
+     * @throws IllegalArgumentException if the batches have different sizes
+     */
+    public Vector3DBatch crossProduct(Vector3DBatch other) {
+        return crossProduct(other, 0, size());
+    }
+
+    /**
+     * Computes the cross products of the vectors of this batch and another one at the indices from, inclusive, to to, exclusive.
+     *
+     * @param other the batch to compute the cross products with
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @return a batch of size to - from whose vector i is the cross product of the vectors at index from + i
+     * @throws IllegalArgumentException if the batches have different sizes
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public Vector3DBatch crossProduct(Vector3DBatch other, int from, int to) {
+        checkRange(other, from, to);
+        Vector3DBatch result = new Vector3DBatch(to - from);
+        VectorKernels.forEachChunk(to - from, (start, end) ->
+                VectorKernels.backend().cross(components, other.components, from + start, result.components, start, end - start));
+        return result;
+    }
+
+
+    // Dot product
+    /**
+     * Computes the dot product of every vector of this batch with the vector at the same index of another batch.
+     *
+     * @param other the batch to compute the dot products with
+     * @return an array whose element i is the dot product of the vectors at index i
+     * @throws IllegalArgumentException if the batches have different sizes
+     */
+    public double[] dot(Vector3DBatch other) {
+        return dot(other, 0, size());
+    }
+
+    /**
+     * Computes the dot products of the vectors of this batch and another one at the indices from, inclusive, to to, exclusive.
+     *
+     * @param other the batch to compute the dot products with
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @return an array of length to - from whose element i is the dot product of the vectors at index from + i
+     * @throws IllegalArgumentException if the batches have different sizes
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public double[] dot(Vector3DBatch other, int from, int to) {
+        checkRange(other, from, to);
+        double[] result = new double[to - from];
+        VectorKernels.forEachChunk(to - from, (start, end) ->
+                VectorKernels.backend().dot3(components, other.components, from + start, result, start, end - start));
+        return result;
+    }
+
+
+    // Magnitude
+    /**
+     * Calculates the magnitude of every vector of this batch.
+     *
+     * @return an array whose element i is the magnitude of vector i
+     */
+    public double[] calculateMagnitude() {
+        return calculateMagnitude(0, size());
+    }
+
+    /**
+     * Calculates the magnitudes of the vectors at the indices from, inclusive, to to, exclusive.
+     *
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @return an array of length to - from whose element i is the magnitude of vector from + i
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public double[] calculateMagnitude(int from, int to) {
+        checkRange(this, from, to);
+        double[] result = new double[to - from];
+        VectorKernels.forEachChunk(to - from, (start, end) ->
+                VectorKernels.backend().magnitude3(components, from + start, result, start, end - start));
+        return result;
+    }
+
+
+    // Normalization
+    /**
+     * Replaces every vector of this batch by its unit vector.
+     * As with Vector.calculateUnitVector, a zero vector has no direction and becomes NaN.
+     */
+    public void normalize() {
+        normalize(0, size());
+    }
+
+    /**
+     * Replaces the vectors at the indices from, inclusive, to to, exclusive, by their unit vectors.
+     * As with Vector.calculateUnitVector, a zero vector has no direction and becomes NaN.
+     *
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public void normalize(int from, int to) {
+        checkRange(this, from, to);
+        VectorKernels.forEachChunk(to - from, (start, end) ->
+                VectorKernels.backend().normalize3(components, from + start, end - start));
+    }
+
+
+    // areaOfTriangle
+    /**
+     * Computes the area of the triangle formed by every vector of this batch and the vector at the same index of another batch.
+     *
+     * @param other the batch holding the second side of each triangle
+     * @return an array whose element i is the area of the triangle formed by the vectors at index i
+     * @throws IllegalArgumentException if the batches have different sizes
+     */
+    public double[] areaOfTriangle(Vector3DBatch other) {
+        return areaOfTriangle(other, 0, size());
+    }
+
+    /**
+     * Computes the areas of the triangles formed by the vectors of this batch and another one
+     * at the indices from, inclusive, to to, exclusive, as half the magnitudes of their cross products.
+     *
+     * @param other the batch holding the second side of each triangle
+     * @param from the first index of the range
+     * @param to the index after the last one of the range
+     * @return an array of length to - from whose element i is the area of the triangle formed by the vectors at index from + i
+     * @throws IllegalArgumentException if the batches have different sizes
+     * @throws IndexOutOfBoundsException if the range is out of bounds
+     */
+    public double[] areaOfTriangle(Vector3DBatch other, int from, int to) {
+        checkRange(other, from, to);
+        double[] result = new double[to - from];
+        VectorKernels.forEachChunk(to - from, (start, end) ->
+                VectorKernels.backend().area3(components, other.components, from + start, result, start, end - start));
+        return result;
+    }
+
+
+    // Checks that another batch has the size of this one and that [from, to) is a range of indices of both
+    private void checkRange(Vector3DBatch other, int from, int to) {
+        if (other.xs.length != xs.length) {
+            throw new IllegalArgumentException("Cannot combine batches of different sizes.");
+        }
+        Objects.checkFromToIndex(from, to, xs.length);
+    }
+
+
+}
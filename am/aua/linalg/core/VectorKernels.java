@@ -0,0 +1,323 @@
+package am.aua.linalg.core;
+
+/**
+ * The VectorKernels class holds the element-wise and reduction loops behind the Vector and dense Matrix operations
+ * and the iterative solvers, so that each is written once over flat double arrays.
+ * The loops themselves come from a backend chosen once, when the class is loaded:
+ * if the JVM was started with the jdk.incubator.vector module (--add-modules jdk.incubator.vector),
+ * SimdBackend runs them with DoubleVector at the preferred species width of the processor;
+ * otherwise the scalar loops of ScalarBackend are used, which the JIT compiler may still vectorize on its own.
+ * Long arrays are split into chunks that are processed in parallel on the multiplication engine's pool;
+ * the partial sums of the chunks are added in order, so a reduction gives the same result with any number of threads.
+ */
+final class VectorKernels {
+
+    // Elements per chunk, sized so that the chunks of three arrays fit in L2
+    private static final int CHUNK = 1 << 15;
+
+    // Name of the module and the class of the SIMD backend, which is only loaded when the module is present
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String SIMD_BACKEND = "am.aua.linalg.core.SimdBackend";
+
+    // The backend chosen at startup
+    private static final Backend BACKEND = loadBackend();
+
+
+    private VectorKernels() {
+    }
+
+
+    /**
+     * The loops of the kernels over one chunk of n elements, where each array is given with the index of its first element.
+     * An output may be one of the inputs at the same index, so every element must be read before it is written.
+     */
+    interface Backend {
+
+        // out = x + y
+        void add(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n);
+
+        // out = x - y
+        void subtract(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n);
+
+        // out = a * x
+        void scale(double a, double[] x, int xi, double[] out, int oi, int n);
+
+        // out = x + a * y
+        void addScaled(double[] x, int xi, double a, double[] y, int yi, double[] out, int oi, int n);
+
+        // y += a * x
+        void axpy(double a, double[] x, int xi, double[] y, int yi, int n);
+
+        // Returns the sum of x * y
+        double dot(double[] x, int xi, double[] y, int yi, int n);
+
+        // The 3D kernels of Vector3DBatch, whose vectors are given as arrays {xs, ys, zs} and start at index i;
+        // the results start at index ri and follow the formulas of Vector3D exactly
+        // r = a x b
+        void cross(double[][] a, double[][] b, int i, double[][] r, int ri, int n);
+
+        // r = a . b
+        void dot3(double[][] a, double[][] b, int i, double[] r, int ri, int n);
+
+        // r = |a|
+        void magnitude3(double[][] a, int i, double[] r, int ri, int n);
+
+        // a = a / |a|
+        void normalize3(double[][] a, int i, int n);
+
+        // r = |a x b| / 2
+        void area3(double[][] a, double[][] b, int i, double[] r, int ri, int n);
+    }
+
+
+    // Returns the SIMD backend if the Vector API module was added to the JVM and the backend links, and the scalar one otherwise
+    private static Backend loadBackend() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (Backend) Class.forName(SIMD_BACKEND).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar loops
+            }
+        }
+        return new ScalarBackend();
+    }
+
+
+    // Returns whether the kernels run on the SIMD backend
+    static boolean isSimd() {
+        return !(BACKEND instanceof ScalarBackend);
+    }
+
+
+    // Returns the backend chosen at startup, for the kernels of Vector3DBatch
+    static Backend backend() {
+        return BACKEND;
+    }
+
+
+
+    // Element-wise kernels
+    // Each array may be given with an offset, the index of its first element, and out may be x or y at the same offset
+    // Computes out = x + y, where out may be x or y
+    static void add(double[] x, double[] y, double[] out) {
+        add(x, 0, y, 0, out, 0, x.length);
+    }
+
+
+    static void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        forEachChunk(length, (start, end) ->
+                BACKEND.add(x, xOffset + start, y, yOffset + start, out, outOffset + start, end - start));
+    }
+
+
+    // Computes out = x - y, where out may be x or y
+    static void subtract(double[] x, double[] y, double[] out) {
+        subtract(x, 0, y, 0, out, 0, x.length);
+    }
+
+
+    static void subtract(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        forEachChunk(length, (start, end) ->
+                BACKEND.subtract(x, xOffset + start, y, yOffset + start, out, outOffset + start, end - start));
+    }
+
+
+    // Computes out = a * x, where out may be x
+    static void scale(double a, double[] x, double[] out) {
+        scale(a, x, 0, out, 0, x.length);
+    }
+
+
+    static void scale(double a, double[] x, int xOffset, double[] out, int outOffset, int length) {
+        forEachChunk(length, (start, end) ->
+                BACKEND.scale(a, x, xOffset + start, out, outOffset + start, end - start));
+    }
+
+
+    // Computes out = x + a * y in one pass, reading both inputs of an element before writing it,
+    // so out may be x, y, or both when they are the same array
+    static void addScaled(double[] x, double a, double[] y, double[] out) {
+        forEachChunk(x.length, (start, end) ->
+                BACKEND.addScaled(x, start, a, y, start, out, start, end - start));
+    }
+
+
+    // Computes y += a * x
+    static void axpy(double a, double[] x, double[] y) {
+        axpy(a, x, 0, y, 0, x.length);
+    }
+
+
+    static void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        forEachChunk(length, (start, end) ->
+                BACKEND.axpy(a, x, xOffset + start, y, yOffset + start, end - start));
+    }
+
+
+
+    // Reductions
+    // Returns the sum of x[i] * y[i] over the length of x
+    static double dot(double[] x, double[] y) {
+        return dot(x, 0, y, 0, x.length);
+    }
+
+
+    // Returns the sum of x[xOffset + i] * y[yOffset + i] over 0 <= i < length
+    static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        if (length <= CHUNK) {
+            return BACKEND.dot(x, xOffset, y, yOffset, length);
+        }
+        double[] partial = new double[(length + CHUNK - 1) / CHUNK];
+        MatrixMultiplication.forEachRowBlock(partial.length, length, (chunkStart, chunkEnd) -> {
+            for (int chunk = chunkStart; chunk < chunkEnd; chunk++) {
+                int start = chunk * CHUNK;
+                partial[chunk] = BACKEND.dot(x, xOffset + start, y, yOffset + start, Math.min(CHUNK, length - start));
+            }
+        });
+        double sum = 0;
+        for (double value : partial) {
+            sum += value;
+        }
+        return sum;
+    }
+
+
+    // Returns the Euclidean norm of x
+    static double norm(double[] x) {
+        return norm(x, 0, x.length);
+    }
+
+
+    // Returns the Euclidean norm of the length elements of x starting at offset
+    static double norm(double[] x, int offset, int length) {
+        return Math.sqrt(dot(x, offset, x, offset, length));
+    }
+
+
+    // Runs a loop body over [0, length), in chunks on the pool when the array is long enough
+    static void forEachChunk(int length, MatrixMultiplication.RowKernel body) {
+        if (length <= CHUNK) {
+            body.compute(0, length);
+            return;
+        }
+        int numChunks = (length + CHUNK - 1) / CHUNK;
+        MatrixMultiplication.forEachRowBlock(numChunks, length, (chunkStart, chunkEnd) ->
+                body.compute(chunkStart * CHUNK, Math.min(length, chunkEnd * CHUNK)));
+    }
+
+
+
+    /**
+     * The scalar loops, used when the Vector API is not available.
+     * The element-wise loops are simple enough for the JIT compiler to vectorize,
+     * and the dot product keeps four independent sums, which breaks the dependency between consecutive additions.
+     */
+    static final class ScalarBackend implements Backend {
+
+        @Override
+        public void add(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n) {
+            for (int i = 0; i < n; i++) {
+                out[oi + i] = x[xi + i] + y[yi + i];
+            }
+        }
+
+        @Override
+        public void subtract(double[] x, int xi, double[] y, int yi, double[] out, int oi, int n) {
+            for (int i = 0; i < n; i++) {
+                out[oi + i] = x[xi + i] - y[yi + i];
+            }
+        }
+
+        @Override
+        public void scale(double a, double[] x, int xi, double[] out, int oi, int n) {
+            for (int i = 0; i < n; i++) {
+                out[oi + i] = a * x[xi + i];
+            }
+        }
+
+        @Override
+        public void addScaled(double[] x, int xi, double a, double[] y, int yi, double[] out, int oi, int n) {
+            for (int i = 0; i < n; i++) {
+                out[oi + i] = x[xi + i] + a * y[yi + i];
+            }
+        }
+
+        @Override
+        public void axpy(double a, double[] x, int xi, double[] y, int yi, int n) {
+            for (int i = 0; i < n; i++) {
+                y[yi + i] += a * x[xi + i];
+            }
+        }
+
+        @Override
+        public double dot(double[] x, int xi, double[] y, int yi, int n) {
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < n; i += 4) {
+                s0 += x[xi + i] * y[yi + i];
+                s1 += x[xi + i + 1] * y[yi + i + 1];
+                s2 += x[xi + i + 2] * y[yi + i + 2];
+                s3 += x[xi + i + 3] * y[yi + i + 3];
+            }
+            for (; i < n; i++) {
+                s0 += x[xi + i] * y[yi + i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        @Override
+        public void cross(double[][] a, double[][] b, int i, double[][] r, int ri, int n) {
+            double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+            double[] rx = r[0], ry = r[1], rz = r[2];
+            for (int k = 0; k < n; k++) {
+                int j = i + k;
+                rx[ri + k] = (ay[j] * bz[j]) - (az[j] * by[j]);
+                ry[ri + k] = (az[j] * bx[j]) - (ax[j] * bz[j]);
+                rz[ri + k] = (ax[j] * by[j]) - (ay[j] * bx[j]);
+            }
+        }
+
+        @Override
+        public void dot3(double[][] a, double[][] b, int i, double[] r, int ri, int n) {
+            double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+            for (int k = 0; k < n; k++) {
+                int j = i + k;
+                r[ri + k] = ax[j] * bx[j] + ay[j] * by[j] + az[j] * bz[j];
+            }
+        }
+
+        @Override
+        public void magnitude3(double[][] a, int i, double[] r, int ri, int n) {
+            double[] ax = a[0], ay = a[1], az = a[2];
+            for (int k = 0; k < n; k++) {
+                int j = i + k;
+                r[ri + k] = Math.sqrt(ax[j] * ax[j] + ay[j] * ay[j] + az[j] * az[j]);
+            }
+        }
+
+        @Override
+        public void normalize3(double[][] a, int i, int n) {
+            double[] ax = a[0], ay = a[1], az = a[2];
+            for (int j = i; j < i + n; j++) {
+                double magnitude = Math.sqrt(ax[j] * ax[j] + ay[j] * ay[j] + az[j] * az[j]);
+                ax[j] /= magnitude;
+                ay[j] /= magnitude;
+                az[j] /= magnitude;
+            }
+        }
+
+        @Override
+        public void area3(double[][] a, double[][] b, int i, double[] r, int ri, int n) {
+            double[] ax = a[0], ay = a[1], az = a[2], bx = b[0], by = b[1], bz = b[2];
+            for (int k = 0; k < n; k++) {
+                int j = i + k;
+                double x = (ay[j] * bz[j]) - (az[j] * by[j]);
+                double y = (az[j] * bx[j]) - (ax[j] * bz[j]);
+                double z = (ax[j] * by[j]) - (ay[j] * bx[j]);
+                r[ri + k] = 0.5 * Math.sqrt(x * x + y * y + z * z);
+            }
+        }
+    }
+
+
+}